@@ -40,6 +40,16 @@ public final class PredefinedMetricNames {
    */
   public static final String TIME_DELTA = "timeDelta";
 
+  /**
+   * Predefined entry name.
+   * <p/>
+   * Time in that was spent to execute the corresponding operation, measured with nanosecond precision.
+   * The associated value expected to be a long number, that represents time in nanoseconds.
+   *
+   * @see #TIME_DELTA
+   */
+  public static final String TIME_DELTA_NANOS = "timeDeltaNanos";
+
   /**
    * Predefined entry name.
    * <p/>
@@ -47,4 +57,15 @@ public final class PredefinedMetricNames {
    * The associated value expected to be of boolean type.
    */
   public static final String SUCCEEDED = "succeeded";
+
+  /**
+   * Predefined entry name.
+   * <p/>
+   * Probability, with which the record has been kept by the sampling metrics creator, so that each written record
+   * represents {@code 1 / sampleRate} records.
+   * The associated value expected to be a double number in {@code (0, 1]} range.
+   *
+   * @see com.truward.metrics.support.SamplingMetricsCreator
+   */
+  public static final String SAMPLE_RATE = "sampleRate";
 }
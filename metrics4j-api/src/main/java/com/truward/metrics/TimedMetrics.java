@@ -0,0 +1,32 @@
+package com.truward.metrics;
+
+/**
+ * Represents metrics, that measure time of the operation themselves: start time is recorded when metrics
+ * is created and time delta is recorded when metrics is closed.
+ * <p/>
+ * <p>The corresponding code might look as follows:</p>
+ * <code>
+ * try (final TimedMetrics metrics = timedMetricsCreator.create()) {
+ *    metrics.put(ORIGIN, "OpenGLEngine.renderScene");
+ *    // execute operation...
+ *    metrics.markSucceeded();
+ * }
+ * </code>
+ *
+ * @author Alexander Shabanov
+ * @see PredefinedMetricNames#START_TIME
+ * @see PredefinedMetricNames#TIME_DELTA
+ */
+public interface TimedMetrics extends Metrics {
+
+  /**
+   * Marks the operation as succeeded, so that {@link PredefinedMetricNames#SUCCEEDED} entry is recorded as true
+   * on close. Operation is considered failed unless this method is called, e.g. if it throws an exception.
+   */
+  void markSucceeded();
+
+  /**
+   * Marks the operation as failed, which is the default.
+   */
+  void markFailed();
+}
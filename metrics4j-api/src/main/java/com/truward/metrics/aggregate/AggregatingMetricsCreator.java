@@ -0,0 +1,340 @@
+package com.truward.metrics.aggregate;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.MetricsCreator;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.time.TimeService;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Metrics creator, that doesn't write a record per metrics instance, but aggregates
+ * {@link PredefinedMetricNames#TIME_DELTA} and {@link PredefinedMetricNames#SUCCEEDED} values of the closed metrics
+ * per {@link PredefinedMetricNames#ORIGIN} and writes one summary record per origin per interval into the given
+ * appender.
+ * <p>
+ * Intervals are aligned to the multiples of the interval length. Summary records are written by the thread, that
+ * creates metrics after the end of the interval, and on {@link #flush()} or {@link #close()}.
+ * Summary record contains origin, interval start time and length, counts of the records and failures, time delta
+ * percentiles and non-empty buckets of the time delta histogram, see {@link LatencyHistogram}, so that summaries
+ * of the different intervals or processes can be merged. Records without origin are aggregated under the empty one,
+ * records without time delta are counted, but not included into the histogram.
+ * All the other entries of the metrics are ignored.
+ * </p>
+ * <p>
+ * Aggregation is lock-free, state of each origin is kept for the lifetime of this object. Each origin takes
+ * a histogram stripe of about 4.5 Kb per each recording thread up to the given stripe count, i.e. up to 36 Kb with
+ * the default {@link LatencyHistogram#DEFAULT_STRIPE_COUNT}, and two more snapshots of that size are allocated
+ * per active origin when summary is written.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class AggregatingMetricsCreator implements MetricsCreator, Closeable {
+  /** Length of the aggregation interval in milliseconds. */
+  public static final String INTERVAL = "interval";
+  /** Count of the records, closed within the interval. */
+  public static final String COUNT = "count";
+  /** Count of the records with {@link PredefinedMetricNames#SUCCEEDED} set to false. */
+  public static final String FAILED_COUNT = "failedCount";
+  public static final String TIME_DELTA_SUM = "timeDeltaSum";
+  public static final String TIME_DELTA_MIN = "timeDeltaMin";
+  public static final String TIME_DELTA_MAX = "timeDeltaMax";
+  public static final String TIME_DELTA_P50 = "timeDeltaP50";
+  public static final String TIME_DELTA_P90 = "timeDeltaP90";
+  public static final String TIME_DELTA_P99 = "timeDeltaP99";
+  public static final String TIME_DELTA_P999 = "timeDeltaP999";
+  /** Lower bounds of the non-empty histogram buckets, see {@link LatencyHistogram#getBucketLowerBound(int)}. */
+  public static final String HISTOGRAM_BUCKETS = "histogramBuckets";
+  /** Counts of the values in the non-empty histogram buckets, in the same order as {@link #HISTOGRAM_BUCKETS}. */
+  public static final String HISTOGRAM_COUNTS = "histogramCounts";
+
+  private final MapAppender mapAppender;
+  private final TimeService timeService;
+  private final long intervalMillis;
+  private final int histogramStripeCount;
+  private final ConcurrentMap<String, OriginStats> origins = new ConcurrentHashMap<>();
+
+  private final ReentrantLock emitLock = new ReentrantLock();
+  private volatile long intervalEnd;
+  private long intervalStart; // guarded by emitLock
+  private volatile boolean closed = false;
+
+  /**
+   * @param mapAppender          Appender, that writes summary records
+   * @param intervalMillis       Length of the aggregation interval
+   * @param timeService          Time service, used to find interval end
+   * @param histogramStripeCount Maximum count of the stripes of each origin's histogram,
+   *                             see {@link LatencyHistogram#LatencyHistogram(int)}
+   */
+  public AggregatingMetricsCreator(@Nonnull MapAppender mapAppender, long intervalMillis,
+                                   @Nonnull TimeService timeService, int histogramStripeCount) {
+    if (intervalMillis <= 0L) {
+      throw new IllegalArgumentException("intervalMillis should be positive");
+    }
+
+    LatencyHistogram.checkStripeCount(histogramStripeCount);
+    this.mapAppender = mapAppender;
+    this.timeService = timeService;
+    this.intervalMillis = intervalMillis;
+    this.histogramStripeCount = histogramStripeCount;
+
+    final long now = timeService.now();
+    this.intervalStart = now - now % intervalMillis;
+    this.intervalEnd = intervalStart + intervalMillis;
+  }
+
+  public AggregatingMetricsCreator(@Nonnull MapAppender mapAppender, long intervalMillis,
+                                   @Nonnull TimeService timeService) {
+    this(mapAppender, intervalMillis, timeService, LatencyHistogram.DEFAULT_STRIPE_COUNT);
+  }
+
+  public AggregatingMetricsCreator(@Nonnull MapAppender mapAppender, long intervalMillis) {
+    this(mapAppender, intervalMillis, TimeService.DEFAULT);
+  }
+
+  @Nonnull
+  @Override
+  public Metrics create() {
+    if (closed) {
+      throw new IllegalStateException("Can't create metric instance: metrics creator has been closed");
+    }
+
+    emitIfDue();
+    return new AggregatedMetrics(this);
+  }
+
+  /**
+   * Writes summary records of the current interval up to the current time, so that records, closed after this call,
+   * are written within the next summary.
+   */
+  public void flush() {
+    emitLock.lock();
+    try {
+      emit(timeService.now());
+    } finally {
+      emitLock.unlock();
+    }
+  }
+
+  /**
+   * Writes summary records of the current interval and closes underlying appender.
+   * No metrics should be closed from any other thread when this object is closed.
+   *
+   * @throws IOException On I/O error when closing appender
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    flush();
+    mapAppender.close();
+  }
+
+  //
+  // Private
+  //
+
+  private void record(@Nonnull String origin, long timeDelta, boolean hasTimeDelta, boolean succeeded) {
+    OriginStats stats = origins.get(origin);
+    if (stats == null) {
+      final OriginStats newStats = new OriginStats(histogramStripeCount);
+      stats = origins.putIfAbsent(origin, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+
+    if (hasTimeDelta) {
+      stats.histogram.record(timeDelta);
+    }
+    if (!succeeded) {
+      stats.failedCount.add(1L);
+    }
+    stats.count.add(1L);
+  }
+
+  private void emitIfDue() {
+    if (timeService.now() < intervalEnd || !emitLock.tryLock()) {
+      return; // not yet or another thread is writing summary
+    }
+
+    try {
+      final long now = timeService.now();
+      if (now >= intervalEnd) {
+        emit(now);
+      }
+    } finally {
+      emitLock.unlock();
+    }
+  }
+
+  private void emit(long now) {
+    assert emitLock.isHeldByCurrentThread();
+    final long end = Math.max(intervalStart, Math.min(now, intervalEnd));
+    for (final Map.Entry<String, OriginStats> entry : origins.entrySet()) {
+      final Map<String, Object> summary = entry.getValue().summarize(entry.getKey(), intervalStart, end);
+      if (summary != null) {
+        mapAppender.write(summary);
+      }
+    }
+
+    if (now >= intervalEnd) {
+      intervalStart = now - now % intervalMillis;
+      intervalEnd = intervalStart + intervalMillis;
+    } else {
+      intervalStart = end; // rest of the current interval
+    }
+  }
+
+  private static final class OriginStats {
+    final LatencyHistogram histogram;
+    final StripedCounter count = new StripedCounter();
+    final StripedCounter failedCount = new StripedCounter();
+
+    // totals, written in the previous summary, guarded by emitLock
+    private LatencyHistogram.Snapshot writtenSnapshot = new LatencyHistogram.Snapshot(
+        new long[LatencyHistogram.BUCKET_COUNT], 0L);
+    private long writtenCount;
+    private long writtenFailedCount;
+
+    OriginStats(int histogramStripeCount) {
+      this.histogram = new LatencyHistogram(histogramStripeCount);
+    }
+
+    Map<String, Object> summarize(@Nonnull String origin, long start, long end) {
+      // count is read first, so that it doesn't include values, which are not yet in the histogram
+      final long totalCount = count.sum();
+      if (totalCount == writtenCount) {
+        return null; // no records within the interval
+      }
+
+      final long totalFailedCount = failedCount.sum();
+      final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+      final LatencyHistogram.Snapshot delta = snapshot.minus(writtenSnapshot);
+      final Map<String, Object> result = new LinkedHashMap<>(32);
+      result.put(PredefinedMetricNames.ORIGIN, origin);
+      result.put(PredefinedMetricNames.START_TIME, start);
+      result.put(INTERVAL, end - start);
+      result.put(COUNT, totalCount - writtenCount);
+      result.put(FAILED_COUNT, totalFailedCount - writtenFailedCount);
+      if (delta.getCount() > 0L) {
+        result.put(TIME_DELTA_SUM, delta.getSum());
+        result.put(TIME_DELTA_MIN, delta.getMin());
+        result.put(TIME_DELTA_MAX, delta.getMax());
+        result.put(TIME_DELTA_P50, delta.getValueAtPercentile(50.0));
+        result.put(TIME_DELTA_P90, delta.getValueAtPercentile(90.0));
+        result.put(TIME_DELTA_P99, delta.getValueAtPercentile(99.0));
+        result.put(TIME_DELTA_P999, delta.getValueAtPercentile(99.9));
+
+        final List<Long> buckets = new ArrayList<>();
+        final List<Long> counts = new ArrayList<>();
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; ++i) {
+          final long bucketCount = delta.getBucketCount(i);
+          if (bucketCount > 0L) {
+            buckets.add(LatencyHistogram.getBucketLowerBound(i));
+            counts.add(bucketCount);
+          }
+        }
+        result.put(HISTOGRAM_BUCKETS, buckets);
+        result.put(HISTOGRAM_COUNTS, counts);
+      }
+
+      writtenSnapshot = snapshot;
+      writtenCount = totalCount;
+      writtenFailedCount = totalFailedCount;
+      return result;
+    }
+  }
+
+  /**
+   * Metrics, which keep only aggregated entries and pass them to the creator on close.
+   */
+  private static final class AggregatedMetrics implements Metrics {
+    private AggregatingMetricsCreator creator;
+    private String origin = "";
+    private long timeDelta;
+    private boolean hasTimeDelta;
+    private boolean succeeded = true;
+
+    AggregatedMetrics(@Nonnull AggregatingMetricsCreator creator) {
+      this.creator = creator;
+    }
+
+    @Override
+    public void put(@Nonnull String name, boolean value) {
+      if (PredefinedMetricNames.SUCCEEDED.equals(name)) {
+        succeeded = value;
+      }
+    }
+
+    @Override
+    public void put(@Nonnull String name, char value) {
+      // ignored
+    }
+
+    @Override
+    public void put(@Nonnull String name, int value) {
+      put(name, (long) value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, float value) {
+      put(name, (long) value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, double value) {
+      put(name, (long) value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, long value) {
+      if (PredefinedMetricNames.TIME_DELTA.equals(name)) {
+        timeDelta = value;
+        hasTimeDelta = true;
+      }
+    }
+
+    @Override
+    public void put(@Nonnull String name, @Nonnull CharSequence value) {
+      if (PredefinedMetricNames.ORIGIN.equals(name)) {
+        origin = value.toString();
+      }
+    }
+
+    @Override
+    public <T> void put(@Nonnull String name, @Nonnull Collection<T> value) {
+      // ignored
+    }
+
+    @Override
+    public <K, V> void put(@Nonnull String name, @Nonnull Map<K, V> value) {
+      // ignored
+    }
+
+    @Override
+    public void close() {
+      final AggregatingMetricsCreator c = creator;
+      if (c == null) {
+        throw new IllegalStateException("Metrics instance has been already closed.");
+      }
+      creator = null;
+      c.record(origin, timeDelta, hasTimeDelta, succeeded);
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package com.truward.metrics.aggregate;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents histogram of the non-negative values, e.g. operation durations in milliseconds.
+ * <p>
+ * Values are counted in log-linear buckets: values less than {@code 2 * 2^SUB_BUCKET_BITS} are counted exactly,
+ * each greater power of two range is split into {@code 2^SUB_BUCKET_BITS} buckets of the same width, so that
+ * the value reported for the bucket differs from the recorded one by less than {@code 1/2^SUB_BUCKET_BITS}, i.e.
+ * about 3%. Negative values are counted as zero, values greater than {@link #MAX_VALUE}, which is about 70 minutes
+ * in milliseconds, are counted as {@link #MAX_VALUE}.
+ * </p>
+ * <p>
+ * Instances of this class are thread safe and lock-free: bucket counts are atomically incremented in one of
+ * the stripes, selected by the current thread, stripes are allocated on first use. Each stripe takes
+ * {@code 8 * BUCKET_COUNT} bytes, i.e. about 4.5 Kb, so that the histogram takes up to that size multiplied
+ * by the stripe count, see {@link #LatencyHistogram(int)}.
+ * Counts are never reset, interval statistics is calculated as a difference of the subsequent snapshots,
+ * see {@link Snapshot#minus(Snapshot)}, so that no concurrently recorded value is lost.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class LatencyHistogram {
+  public static final int SUB_BUCKET_BITS = 5;
+  public static final long MAX_VALUE = (1L << 22) - 1L;
+  public static final int BUCKET_COUNT = getBucketIndex(MAX_VALUE) + 1;
+
+  /**
+   * Default count of stripes, count of available processors rounded up to the power of two, but not greater than 8.
+   */
+  public static final int DEFAULT_STRIPE_COUNT = Math.min(StripedCounter.STRIPE_COUNT, 8);
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private final AtomicReferenceArray<AtomicLongArray> stripes;
+  private final StripedCounter sum = new StripedCounter();
+
+  /**
+   * @param stripeCount Maximum count of the stripes, power of two from 1 to 64, greater count reduces contention
+   *                    of the concurrently recording threads at the cost of memory
+   */
+  public LatencyHistogram(int stripeCount) {
+    checkStripeCount(stripeCount);
+    this.stripes = new AtomicReferenceArray<>(stripeCount);
+  }
+
+  public LatencyHistogram() {
+    this(DEFAULT_STRIPE_COUNT);
+  }
+
+  public void record(long value) {
+    final long clamped = value < 0L ? 0L : Math.min(value, MAX_VALUE);
+    getStripe(StripedCounter.getCurrentStripe() & (stripes.length() - 1)).incrementAndGet(getBucketIndex(clamped));
+    sum.add(clamped);
+  }
+
+  /**
+   * @return Counts of the values, recorded since this histogram has been created
+   */
+  @Nonnull
+  public Snapshot snapshot() {
+    final long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < stripes.length(); ++i) {
+      final AtomicLongArray stripe = stripes.get(i);
+      if (stripe != null) {
+        for (int j = 0; j < BUCKET_COUNT; ++j) {
+          counts[j] += stripe.get(j);
+        }
+      }
+    }
+    return new Snapshot(counts, sum.sum());
+  }
+
+  /**
+   * @param value Value in {@code [0, MAX_VALUE]} range
+   * @return Index of the bucket, in which the given value is counted
+   */
+  public static int getBucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+  }
+
+  /**
+   * @param index Index of the bucket
+   * @return The least value, counted in the bucket with the given index
+   */
+  public static long getBucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_COUNT - 1;
+    return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+  }
+
+  /**
+   * @param index Index of the bucket
+   * @return The greatest value, counted in the bucket with the given index
+   */
+  public static long getBucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    return getBucketLowerBound(index) + (1L << (index / SUB_BUCKET_COUNT - 1)) - 1L;
+  }
+
+  /**
+   * Represents immutable counts of the histogram buckets. Snapshots of the histograms with the same bucket layout,
+   * e.g. written by the different processes, can be merged, see {@link #plus(Snapshot)}.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long sum;
+    private final long count;
+
+    /**
+     * @param counts Counts of the values in each bucket, array of {@link #BUCKET_COUNT} elements
+     * @param sum    Sum of the counted values
+     */
+    public Snapshot(@Nonnull long[] counts, long sum) {
+      if (counts.length != BUCKET_COUNT) {
+        throw new IllegalArgumentException("Expected " + BUCKET_COUNT + " buckets, got " + counts.length);
+      }
+      this.counts = counts;
+      this.sum = sum;
+
+      long count = 0L;
+      for (final long bucketCount : counts) {
+        count += bucketCount;
+      }
+      this.count = count;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getSum() {
+      return sum;
+    }
+
+    /**
+     * @param index Index of the bucket
+     * @return Count of the values in the given bucket
+     */
+    public long getBucketCount(int index) {
+      return counts[index];
+    }
+
+    /**
+     * @return Lower bound of the least non-empty bucket or zero if snapshot is empty
+     */
+    public long getMin() {
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        if (counts[i] > 0L) {
+          return getBucketLowerBound(i);
+        }
+      }
+      return 0L;
+    }
+
+    /**
+     * @return Upper bound of the greatest non-empty bucket or zero if snapshot is empty
+     */
+    public long getMax() {
+      for (int i = BUCKET_COUNT - 1; i >= 0; --i) {
+        if (counts[i] > 0L) {
+          return getBucketUpperBound(i);
+        }
+      }
+      return 0L;
+    }
+
+    /**
+     * @param percentile Percentile in {@code [0, 100]} range, e.g. {@code 99.9}
+     * @return Upper bound of the bucket, that contains the value at the given percentile, or zero if snapshot
+     * is empty
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (percentile < 0.0 || percentile > 100.0) {
+        throw new IllegalArgumentException("percentile should be in [0, 100] range");
+      }
+
+      final long rank = Math.max(1L, (long) Math.ceil(percentile * count / 100.0));
+      long cumulativeCount = 0L;
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        cumulativeCount += counts[i];
+        if (cumulativeCount >= rank) {
+          return getBucketUpperBound(i);
+        }
+      }
+      return 0L;
+    }
+
+    /**
+     * @param other Snapshot to merge with
+     * @return Snapshot, that contains values of both this and the given snapshots
+     */
+    @Nonnull
+    public Snapshot plus(@Nonnull Snapshot other) {
+      final long[] result = Arrays.copyOf(counts, BUCKET_COUNT);
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        result[i] += other.counts[i];
+      }
+      return new Snapshot(result, sum + other.sum);
+    }
+
+    /**
+     * @param previous Earlier snapshot of the same histogram
+     * @return Snapshot, that contains values recorded after the given snapshot has been taken
+     */
+    @Nonnull
+    public Snapshot minus(@Nonnull Snapshot previous) {
+      final long[] result = Arrays.copyOf(counts, BUCKET_COUNT);
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        result[i] -= previous.counts[i];
+      }
+      return new Snapshot(result, sum - previous.sum);
+    }
+  }
+
+  //
+  // Private
+  //
+
+  static void checkStripeCount(int stripeCount) {
+    if (stripeCount <= 0 || stripeCount > 64 || (stripeCount & (stripeCount - 1)) != 0) {
+      throw new IllegalArgumentException("stripeCount should be a power of two from 1 to 64");
+    }
+  }
+
+  @Nonnull
+  private AtomicLongArray getStripe(int index) {
+    final AtomicLongArray stripe = stripes.get(index);
+    if (stripe != null) {
+      return stripe;
+    }
+
+    stripes.compareAndSet(index, null, new AtomicLongArray(BUCKET_COUNT));
+    return stripes.get(index);
+  }
+}
@@ -0,0 +1,56 @@
+package com.truward.metrics.aggregate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter, which value is spread over several cells, so that threads updating it concurrently rarely contend
+ * on the same cache line. Cell is selected by the current thread, see {@link #getCurrentStripe()}.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+final class StripedCounter {
+  /**
+   * Count of stripes, power of two not less than the count of available processors, but not greater than 64.
+   */
+  static final int STRIPE_COUNT = getStripeCount(Runtime.getRuntime().availableProcessors());
+
+  private static final int PADDING = 8; // 64 bytes per cell
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPE_COUNT * PADDING);
+
+  void add(long delta) {
+    cells.addAndGet(getCurrentStripe() * PADDING, delta);
+  }
+
+  /**
+   * @return Sum of all the cells, values added concurrently might be not included
+   */
+  long sum() {
+    long result = 0L;
+    for (int i = 0; i < STRIPE_COUNT; ++i) {
+      result += cells.get(i * PADDING);
+    }
+    return result;
+  }
+
+  /**
+   * @return Stripe of the current thread, thread identifiers are sequential, so that threads of the same pool
+   * are usually mapped to the different stripes
+   */
+  static int getCurrentStripe() {
+    return (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+  }
+
+  //
+  // Private
+  //
+
+  private static int getStripeCount(int processors) {
+    int result = 1;
+    while (result < processors && result < 64) {
+      result <<= 1;
+    }
+    return result;
+  }
+}
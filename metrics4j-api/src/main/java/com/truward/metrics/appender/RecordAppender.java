@@ -0,0 +1,28 @@
+package com.truward.metrics.appender;
+
+import com.truward.metrics.support.MetricsRecord;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents an appender, that is able to write metrics records directly, without converting them to map.
+ *
+ * @author Alexander Shabanov
+ */
+public interface RecordAppender extends MapAppender {
+
+  /**
+   * Writes a record into the associated storage.
+   * <p>
+   * Same guarantees as for {@link #write(java.util.Map)} apply, i.e. an exception related to unsuccessful I/O
+   * operation will be suppressed and logged.
+   * </p>
+   * <p>
+   * Appender takes ownership of the given record and calls {@link MetricsRecord#recycle()} once record is written,
+   * so the record instance might be reused when the other metrics entry is created.
+   * </p>
+   *
+   * @param record A record that should be written into the corresponding storage.
+   */
+  void write(@Nonnull MetricsRecord record);
+}
@@ -0,0 +1,90 @@
+package com.truward.metrics.reader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Represents cursor over the metrics records, that exposes the current record through typed accessors.
+ * Unlike {@link MetricsReader} cursor reuses the same record view for all the records, so values of the current
+ * record should be retrieved before advancing to the next one.
+ * <p>The corresponding code might look as follows:</p>
+ * <code>
+ * try (final MetricsCursor cursor = ...) {
+ *   while (cursor.next()) {
+ *     if (cursor.getBoolean(SUCCEEDED, false)) {
+ *       totalTime += cursor.getLong(TIME_DELTA, 0L);
+ *     }
+ *   }
+ * }
+ * </code>
+ *
+ * @author Alexander Shabanov
+ */
+public interface MetricsCursor extends Closeable {
+
+  /**
+   * Advances this cursor to the next record.
+   *
+   * @return True, if cursor points to the next record, false if there are no more records
+   * @throws IOException On I/O or parsing error
+   */
+  boolean next() throws IOException;
+
+  /**
+   * @return Count of entries in the current record
+   */
+  int size();
+
+  /**
+   * @param index Entry index, should be less than {@link #size()}
+   * @return Name of the entry with the given index
+   */
+  @Nonnull
+  String getName(int index);
+
+  /**
+   * @param name Entry name
+   * @return True, if current record has an entry with the given name
+   */
+  boolean has(@Nonnull String name);
+
+  /**
+   * @param name         Entry name
+   * @param defaultValue Value to be returned if there is no such entry or entry is not a number
+   * @return Numeric value of the given entry, floating point values are truncated
+   */
+  long getLong(@Nonnull String name, long defaultValue);
+
+  /**
+   * @param name         Entry name
+   * @param defaultValue Value to be returned if there is no such entry or entry is not a number
+   * @return Numeric value of the given entry
+   */
+  double getDouble(@Nonnull String name, double defaultValue);
+
+  /**
+   * @param name         Entry name
+   * @param defaultValue Value to be returned if there is no such entry or entry is not a boolean
+   * @return Boolean value of the given entry
+   */
+  boolean getBoolean(@Nonnull String name, boolean defaultValue);
+
+  /**
+   * @param name Entry name
+   * @return String value of the given entry or null if there is no such entry or entry is not a string
+   */
+  @Nullable
+  String getString(@Nonnull String name);
+
+  /**
+   * Returns value of the given entry in the same form as it is returned by {@link MetricsReader}, i.e.
+   * boxed primitive, string, list or map.
+   *
+   * @param name Entry name
+   * @return Value of the given entry or null if there is no such entry or its value is null
+   */
+  @Nullable
+  Object get(@Nonnull String name);
+}
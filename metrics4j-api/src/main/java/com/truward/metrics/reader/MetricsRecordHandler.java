@@ -0,0 +1,19 @@
+package com.truward.metrics.reader;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * Callback, that receives metrics records, read from the metrics log.
+ *
+ * @author Alexander Shabanov
+ */
+public interface MetricsRecordHandler {
+
+  /**
+   * Handles the given metrics record.
+   *
+   * @param record Deserialized metrics record
+   */
+  void handle(@Nonnull Map<String, ?> record);
+}
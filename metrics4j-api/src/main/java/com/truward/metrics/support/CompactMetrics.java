@@ -0,0 +1,118 @@
+package com.truward.metrics.support;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.appender.RecordAppender;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Implementation of {@link com.truward.metrics.Metrics}, that is based on {@link MetricsRecord},
+ * primitive values are recorded without boxing.
+ *
+ * @author Alexander Shabanov
+ */
+public class CompactMetrics implements Metrics {
+  private RecordAppender recordAppender;
+  private MetricsRecord record;
+
+  public CompactMetrics(@Nonnull MetricsRecord record, @Nonnull RecordAppender recordAppender) {
+    this.record = record;
+    this.recordAppender = recordAppender;
+  }
+
+  public CompactMetrics(@Nonnull RecordAppender recordAppender) {
+    this(new MetricsRecord(), recordAppender);
+  }
+
+  @Override
+  public final void put(@Nonnull String name, boolean value) {
+    if (getRecord().putLong(name, MetricsRecord.TYPE_BOOLEAN, value ? 1L : 0L)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  @Override
+  public final void put(@Nonnull String name, char value) {
+    if (getRecord().putLong(name, MetricsRecord.TYPE_CHAR, value)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  @Override
+  public final void put(@Nonnull String name, int value) {
+    if (getRecord().putLong(name, MetricsRecord.TYPE_INT, value)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  @Override
+  public final void put(@Nonnull String name, float value) {
+    if (getRecord().putDouble(name, MetricsRecord.TYPE_FLOAT, value)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  @Override
+  public final void put(@Nonnull String name, double value) {
+    if (getRecord().putDouble(name, MetricsRecord.TYPE_DOUBLE, value)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  @Override
+  public final void put(@Nonnull String name, long value) {
+    if (getRecord().putLong(name, MetricsRecord.TYPE_LONG, value)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  @Override
+  public final void put(@Nonnull String name, @Nonnull CharSequence value) {
+    putObject(name, value);
+  }
+
+  @Override
+  public final <T> void put(@Nonnull String name, @Nonnull Collection<T> value) {
+    putObject(name, value);
+  }
+
+  @Override
+  public final <K, V> void put(@Nonnull String name, @Nonnull Map<K, V> value) {
+    putObject(name, value);
+  }
+
+  @Override
+  public void close() {
+    final RecordAppender appender = recordAppender;
+    if (appender == null) {
+      throw new IllegalStateException("Metrics instance has been already closed.");
+    }
+    recordAppender = null;
+    appender.write(record);
+    record = null;
+  }
+
+  //
+  // Private
+  //
+
+  private MetricsRecord getRecord() {
+    final MetricsRecord result = record;
+    if (result == null) {
+      throw new IllegalStateException("Metric object is not writable, it has been closed");
+    }
+    return result;
+  }
+
+  private void putObject(String name, Object value) {
+    if (getRecord().putObject(name, value)) {
+      reportDuplicateEntry(name);
+    }
+  }
+
+  private void reportDuplicateEntry(String name) {
+    recordAppender.reportDuplicateEntry(record.toMap(), name);
+  }
+}
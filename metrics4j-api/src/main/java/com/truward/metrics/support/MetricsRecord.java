@@ -0,0 +1,261 @@
+package com.truward.metrics.support;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics record, that keeps entries in the parallel arrays of names, type tags, primitive and object slots,
+ * so that primitive values are stored without boxing.
+ * <p>
+ * Integral primitives, booleans and chars are stored in the long slots, floating point primitives are
+ * stored in the double slots, all the other values are stored in the object slots.
+ * </p>
+ * <p>Instances of this class are not thread safe.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class MetricsRecord {
+  public static final byte TYPE_BOOLEAN = 1;
+  public static final byte TYPE_CHAR = 2;
+  public static final byte TYPE_INT = 3;
+  public static final byte TYPE_LONG = 4;
+  public static final byte TYPE_FLOAT = 5;
+  public static final byte TYPE_DOUBLE = 6;
+  public static final byte TYPE_OBJECT = 7;
+
+  /**
+   * Default count of entries the record can hold without growing its arrays.
+   */
+  public static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * Callback, that takes records which are no longer in use, e.g. to put them back to the pool.
+   */
+  public interface Recycler {
+    void recycle(@Nonnull MetricsRecord record);
+  }
+
+  private final Recycler recycler;
+  private String[] names;
+  private byte[] types;
+  private long[] longs;
+  private double[] doubles;
+  private Object[] objects;
+  private int size;
+
+  public MetricsRecord(int capacity, @Nullable Recycler recycler) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity should be greater than zero");
+    }
+
+    this.recycler = recycler;
+    this.names = new String[capacity];
+    this.types = new byte[capacity];
+    this.longs = new long[capacity];
+    this.doubles = new double[capacity];
+    this.objects = new Object[capacity];
+  }
+
+  public MetricsRecord() {
+    this(DEFAULT_CAPACITY, null);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return Count of entries this record can hold without growing its arrays
+   */
+  public int capacity() {
+    return names.length;
+  }
+
+  @Nonnull public String getName(int index) {
+    return names[index];
+  }
+
+  /**
+   * @param index Entry index
+   * @return Type tag of the entry, one of {@code TYPE_*} constants
+   */
+  public byte getType(int index) {
+    return types[index];
+  }
+
+  /**
+   * @param index Entry index
+   * @return Value of the integral, boolean (1 or 0) or char entry
+   */
+  public long getLong(int index) {
+    return longs[index];
+  }
+
+  /**
+   * @param index Entry index
+   * @return Value of the float or double entry
+   */
+  public double getDouble(int index) {
+    return doubles[index];
+  }
+
+  @Nullable public Object getObject(int index) {
+    return objects[index];
+  }
+
+  /**
+   * @param name Entry name
+   * @return Index of the entry with the given name or -1 if there is no such entry
+   */
+  public int indexOf(@Nonnull String name) {
+    for (int i = 0; i < size; ++i) {
+      final String n = names[i];
+      if (n == name || n.equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Puts integral, boolean or char value into this record, entry with the same name is replaced.
+   *
+   * @param name  Entry name
+   * @param type  Type tag
+   * @param value Value
+   * @return True, if entry with the same name has been replaced
+   */
+  public boolean putLong(@Nonnull String name, byte type, long value) {
+    final int prevSize = size;
+    final int index = slotFor(name);
+    types[index] = type;
+    longs[index] = value;
+    objects[index] = null;
+    return index < prevSize;
+  }
+
+  /**
+   * Puts floating point value into this record, entry with the same name is replaced.
+   *
+   * @param name  Entry name
+   * @param type  Type tag
+   * @param value Value
+   * @return True, if entry with the same name has been replaced
+   */
+  public boolean putDouble(@Nonnull String name, byte type, double value) {
+    final int prevSize = size;
+    final int index = slotFor(name);
+    types[index] = type;
+    doubles[index] = value;
+    objects[index] = null;
+    return index < prevSize;
+  }
+
+  /**
+   * Puts object value into this record, entry with the same name is replaced.
+   *
+   * @param name  Entry name
+   * @param value Value
+   * @return True, if entry with the same name has been replaced
+   */
+  public boolean putObject(@Nonnull String name, @Nullable Object value) {
+    final int prevSize = size;
+    final int index = slotFor(name);
+    types[index] = TYPE_OBJECT;
+    objects[index] = value;
+    return index < prevSize;
+  }
+
+  /**
+   * Removes all the entries from this record.
+   */
+  public void clear() {
+    Arrays.fill(names, 0, size, null);
+    Arrays.fill(objects, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Clears this record and passes it to the associated recycler, if any.
+   * Record should not be used by the caller after this method is called.
+   */
+  public void recycle() {
+    clear();
+    if (recycler != null) {
+      recycler.recycle(this);
+    }
+  }
+
+  /**
+   * Converts this record to map, primitive values are boxed.
+   *
+   * @return Map representation of this record
+   */
+  @Nonnull
+  public Map<String, Object> toMap() {
+    final Map<String, Object> result = new HashMap<>(size * 2);
+    for (int i = 0; i < size; ++i) {
+      result.put(names[i], getBoxedValue(i));
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return toMap().toString();
+  }
+
+  //
+  // Private
+  //
+
+  private int slotFor(@Nonnull String name) {
+    //noinspection ConstantConditions
+    if (name == null) {
+      throw new IllegalArgumentException("name can't be null");
+    }
+
+    final int existing = indexOf(name);
+    if (existing >= 0) {
+      return existing;
+    }
+
+    if (size == names.length) {
+      grow();
+    }
+    names[size] = name;
+    return size++;
+  }
+
+  private void grow() {
+    final int newCapacity = names.length * 2;
+    names = Arrays.copyOf(names, newCapacity);
+    types = Arrays.copyOf(types, newCapacity);
+    longs = Arrays.copyOf(longs, newCapacity);
+    doubles = Arrays.copyOf(doubles, newCapacity);
+    objects = Arrays.copyOf(objects, newCapacity);
+  }
+
+  @Nullable
+  private Object getBoxedValue(int index) {
+    switch (types[index]) {
+      case TYPE_BOOLEAN:
+        return longs[index] != 0;
+      case TYPE_CHAR:
+        return (char) longs[index];
+      case TYPE_INT:
+        return (int) longs[index];
+      case TYPE_LONG:
+        return longs[index];
+      case TYPE_FLOAT:
+        return (float) doubles[index];
+      case TYPE_DOUBLE:
+        return doubles[index];
+      default:
+        return objects[index];
+    }
+  }
+}
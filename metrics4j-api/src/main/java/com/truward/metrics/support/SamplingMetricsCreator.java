@@ -0,0 +1,165 @@
+package com.truward.metrics.support;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.MetricsCreator;
+import com.truward.metrics.NullMetricsCreator;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.time.TimeService;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics creator, that keeps only a part of the metrics, created by the given delegate, so that records of each
+ * origin are written with about the given target rate.
+ * <p>
+ * Decision is made when metrics is created: dropped metrics are represented by
+ * {@link NullMetricsCreator#NULL_METRICS}, so that nothing is allocated for them. Metrics are kept with
+ * the probability, which is recalculated every second from the observed creation rate of the origin: the rate
+ * estimate follows growth immediately and decreases by half of the difference, so that traffic spikes are
+ * throttled within a second. Kept metrics contain {@link PredefinedMetricNames#SAMPLE_RATE} entry with that
+ * probability, so that downstream counts can be re-weighted.
+ * </p>
+ * <p>
+ * Origin should be given to {@link #create(String)}, metrics created by {@link #create()} are sampled as if they
+ * had empty origin. Instances of this class are thread safe.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class SamplingMetricsCreator implements MetricsCreator {
+  private static final long WINDOW_MILLIS = 1000L;
+
+  private final MetricsCreator delegate;
+  private final TimeService timeService;
+  private final double defaultTargetRate;
+  private final ConcurrentMap<String, Double> targetRates = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, OriginSampler> samplers = new ConcurrentHashMap<>();
+
+  /**
+   * @param delegate          Metrics creator, that creates kept metrics
+   * @param defaultTargetRate Target count of the records per second of each origin
+   * @param timeService       Time service, used to measure creation rate
+   */
+  public SamplingMetricsCreator(@Nonnull MetricsCreator delegate, double defaultTargetRate,
+                                @Nonnull TimeService timeService) {
+    checkTargetRate(defaultTargetRate);
+    this.delegate = delegate;
+    this.timeService = timeService;
+    this.defaultTargetRate = defaultTargetRate;
+  }
+
+  public SamplingMetricsCreator(@Nonnull MetricsCreator delegate, double defaultTargetRate) {
+    this(delegate, defaultTargetRate, TimeService.DEFAULT);
+  }
+
+  /**
+   * Overrides target rate of the given origin.
+   *
+   * @param origin     Origin of the metrics
+   * @param targetRate Target count of the records per second
+   */
+  public void setTargetRate(@Nonnull String origin, double targetRate) {
+    checkTargetRate(targetRate);
+    targetRates.put(origin, targetRate);
+    final OriginSampler sampler = samplers.get(origin);
+    if (sampler != null) {
+      sampler.targetRate = targetRate;
+    }
+  }
+
+  /**
+   * @param origin Origin of the metrics
+   * @return Current probability of keeping metrics of the given origin
+   */
+  public double getSampleRate(@Nonnull String origin) {
+    final OriginSampler sampler = samplers.get(origin);
+    return sampler != null ? sampler.sampleRate : 1.0;
+  }
+
+  /**
+   * Creates metrics of the given origin, {@link PredefinedMetricNames#ORIGIN} entry is put into the kept metrics.
+   *
+   * @param origin Origin of the metrics
+   * @return New metrics instance or {@link NullMetricsCreator#NULL_METRICS} if metrics is dropped
+   */
+  @Nonnull
+  public Metrics create(@Nonnull String origin) {
+    final Metrics metrics = sample(origin);
+    if (metrics != NullMetricsCreator.NULL_METRICS) {
+      metrics.put(PredefinedMetricNames.ORIGIN, origin);
+    }
+    return metrics;
+  }
+
+  @Nonnull
+  @Override
+  public Metrics create() {
+    return sample("");
+  }
+
+  //
+  // Private
+  //
+
+  private static void checkTargetRate(double targetRate) {
+    if (!(targetRate > 0.0)) {
+      throw new IllegalArgumentException("targetRate should be positive");
+    }
+  }
+
+  @Nonnull
+  private Metrics sample(@Nonnull String origin) {
+    OriginSampler sampler = samplers.get(origin);
+    if (sampler == null) {
+      final Double targetRate = targetRates.get(origin);
+      final OriginSampler newSampler = new OriginSampler(targetRate != null ? targetRate : defaultTargetRate,
+          timeService.now());
+      sampler = samplers.putIfAbsent(origin, newSampler);
+      if (sampler == null) {
+        sampler = newSampler;
+      }
+    }
+
+    final double sampleRate = sampler.update(timeService.now());
+    if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return NullMetricsCreator.NULL_METRICS;
+    }
+
+    final Metrics metrics = delegate.create();
+    metrics.put(PredefinedMetricNames.SAMPLE_RATE, sampleRate);
+    return metrics;
+  }
+
+  private static final class OriginSampler {
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong windowStart;
+    volatile double targetRate;
+    volatile double sampleRate = 1.0;
+    private volatile double rateEstimate; // written by the thread, which has rolled the window
+
+    OriginSampler(double targetRate, long now) {
+      this.targetRate = targetRate;
+      this.windowStart = new AtomicLong(now);
+    }
+
+    /**
+     * Counts created metrics and recalculates sample rate at the end of the window.
+     *
+     * @return Probability of keeping the created metrics
+     */
+    double update(long now) {
+      final long start = windowStart.get();
+      if (now - start >= WINDOW_MILLIS && windowStart.compareAndSet(start, now)) {
+        final double observedRate = windowCount.getAndSet(0L) * 1000.0 / (now - start);
+        rateEstimate = Math.max(observedRate, (rateEstimate + observedRate) / 2.0);
+        sampleRate = rateEstimate > targetRate ? targetRate / rateEstimate : 1.0;
+      }
+      windowCount.incrementAndGet(); // counted in the new window
+      return sampleRate;
+    }
+  }
+}
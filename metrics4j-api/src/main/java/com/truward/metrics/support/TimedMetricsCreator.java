@@ -0,0 +1,156 @@
+package com.truward.metrics.support;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.MetricsCreator;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.TimedMetrics;
+import com.truward.metrics.time.MonotonicTimeService;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Metrics creator, that creates {@link TimedMetrics} over the metrics of the given delegate.
+ * <p>
+ * {@link PredefinedMetricNames#START_TIME} is recorded once, when metrics is created. Elapsed time is measured with
+ * the monotonic time source and is recorded on close as {@link PredefinedMetricNames#TIME_DELTA} in milliseconds and
+ * {@link PredefinedMetricNames#TIME_DELTA_NANOS} in nanoseconds along with {@link PredefinedMetricNames#SUCCEEDED}.
+ * </p>
+ * <p>
+ * Timed metrics wrapper is the only object allocated besides the delegate's metrics, it is not pooled, so that
+ * closed metrics can't be mistaken for the metrics, created later. Instances of this class are thread safe.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class TimedMetricsCreator implements MetricsCreator {
+  private final MetricsCreator delegate;
+  private final MonotonicTimeService timeService;
+
+  public TimedMetricsCreator(@Nonnull MetricsCreator delegate, @Nonnull MonotonicTimeService timeService) {
+    this.delegate = delegate;
+    this.timeService = timeService;
+  }
+
+  public TimedMetricsCreator(@Nonnull MetricsCreator delegate) {
+    this(delegate, MonotonicTimeService.DEFAULT);
+  }
+
+  @Nonnull
+  @Override
+  public TimedMetrics create() {
+    final Metrics metrics = delegate.create();
+    metrics.put(PredefinedMetricNames.START_TIME, timeService.now());
+    return new StandardTimedMetrics(metrics, timeService); // captures start time the last
+  }
+
+  /**
+   * Creates timed metrics with the given {@link PredefinedMetricNames#ORIGIN}.
+   *
+   * @param origin Origin of the metrics
+   * @return New metrics instance
+   */
+  @Nonnull
+  public TimedMetrics create(@Nonnull String origin) {
+    final TimedMetrics result = create();
+    result.put(PredefinedMetricNames.ORIGIN, origin);
+    return result;
+  }
+
+  //
+  // Private
+  //
+
+  private static final class StandardTimedMetrics implements TimedMetrics {
+    private final MonotonicTimeService timeService;
+    private Metrics metrics;
+    private boolean succeeded;
+    private final long startNanos;
+
+    StandardTimedMetrics(@Nonnull Metrics metrics, @Nonnull MonotonicTimeService timeService) {
+      this.metrics = metrics;
+      this.timeService = timeService;
+      this.startNanos = timeService.nanoTime();
+    }
+
+    @Override
+    public void markSucceeded() {
+      succeeded = true;
+    }
+
+    @Override
+    public void markFailed() {
+      succeeded = false;
+    }
+
+    @Override
+    public void put(@Nonnull String name, boolean value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, char value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, int value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, float value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, double value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, long value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void put(@Nonnull String name, @Nonnull CharSequence value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public <T> void put(@Nonnull String name, @Nonnull Collection<T> value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public <K, V> void put(@Nonnull String name, @Nonnull Map<K, V> value) {
+      getMetrics().put(name, value);
+    }
+
+    @Override
+    public void close() {
+      final long timeDeltaNanos = timeService.nanoTime() - startNanos;
+      final Metrics m = metrics;
+      if (m == null) {
+        throw new IllegalStateException("Metrics instance has been already closed.");
+      }
+      metrics = null;
+
+      m.put(PredefinedMetricNames.TIME_DELTA, timeDeltaNanos / 1000000L);
+      m.put(PredefinedMetricNames.TIME_DELTA_NANOS, timeDeltaNanos);
+      m.put(PredefinedMetricNames.SUCCEEDED, succeeded);
+      m.close();
+    }
+
+    @Nonnull
+    private Metrics getMetrics() {
+      final Metrics result = metrics;
+      if (result == null) {
+        throw new IllegalStateException("Metric object is not writable, it has been closed");
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.truward.metrics.time;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time service, that returns time cached in a padded volatile cell, which is refreshed by the daemon ticker thread
+ * with the given resolution, so that reading current time is a plain memory load.
+ * <p>
+ * Returned time lags behind {@link System#currentTimeMillis()} by up to the resolution plus thread scheduling delay,
+ * so this service is suitable for timestamps and coarse intervals, but not for measuring short operations, see
+ * {@link MonotonicTimeService}. Cached value is padded, so that reading it doesn't suffer from writes to the adjacent
+ * fields. Ticker is stopped on {@link #close()}, time is not updated afterwards.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class CachedClockTimeService implements TimeService, Closeable {
+  public static final long MIN_RESOLUTION_MILLIS = 1L;
+  public static final long MAX_RESOLUTION_MILLIS = 10L;
+
+  private static final int PADDING = 8; // 64 bytes on each side of the cached value
+  private static final int TIME_INDEX = PADDING;
+
+  // time is kept in the middle of the array, so that it doesn't share cache line with other objects
+  private final AtomicLongArray time = new AtomicLongArray(2 * PADDING + 1);
+  private final Thread ticker;
+  private volatile boolean closed = false;
+
+  /**
+   * @param resolutionMillis Interval between time updates, from {@link #MIN_RESOLUTION_MILLIS} to
+   *                         {@link #MAX_RESOLUTION_MILLIS}
+   */
+  public CachedClockTimeService(final long resolutionMillis) {
+    if (resolutionMillis < MIN_RESOLUTION_MILLIS || resolutionMillis > MAX_RESOLUTION_MILLIS) {
+      throw new IllegalArgumentException("resolutionMillis should be in [" + MIN_RESOLUTION_MILLIS + ", " +
+          MAX_RESOLUTION_MILLIS + "] range");
+    }
+
+    time.set(TIME_INDEX, System.currentTimeMillis());
+    this.ticker = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        final long resolutionNanos = TimeUnit.MILLISECONDS.toNanos(resolutionMillis);
+        while (!closed) {
+          LockSupport.parkNanos(resolutionNanos);
+          time.set(TIME_INDEX, System.currentTimeMillis());
+        }
+      }
+    }, "CachedClockTimeService-ticker");
+    this.ticker.setDaemon(true);
+    this.ticker.start();
+  }
+
+  public CachedClockTimeService() {
+    this(MIN_RESOLUTION_MILLIS);
+  }
+
+  @Override
+  public long now() {
+    return time.get(TIME_INDEX);
+  }
+
+  /**
+   * Stops the ticker thread.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(ticker);
+  }
+}
@@ -0,0 +1,32 @@
+package com.truward.metrics.time;
+
+/**
+ * Represents a time service, that also provides monotonic time source with nanosecond precision, which is used to
+ * measure elapsed time. Unlike {@link #now()}, values of {@link #nanoTime()} are not affected by system clock
+ * adjustments and can be compared only with the values, returned by the same service.
+ *
+ * @author Alexander Shabanov
+ */
+public interface MonotonicTimeService extends TimeService {
+
+  /**
+   * Default implementation of this service, delegates to {@link System#currentTimeMillis()} and
+   * {@link System#nanoTime()}.
+   */
+  static MonotonicTimeService DEFAULT = new MonotonicTimeService() {
+    @Override
+    public long now() {
+      return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * @return Current value of the monotonic time source, in nanoseconds.
+   */
+  long nanoTime();
+}
@@ -0,0 +1,136 @@
+package com.truward.metrics.aggregate;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.time.TimeService;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.aggregate.AggregatingMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class AggregatingMetricsCreatorTest {
+  private final List<Map<String, Object>> records = new ArrayList<>();
+  private long now = 61000L;
+  private AggregatingMetricsCreator metricsCreator;
+
+  @Before
+  public void init() {
+    metricsCreator = new AggregatingMetricsCreator(new MapAppender() {
+      @Override
+      public void write(@Nonnull Map<String, Object> properties) {
+        records.add(properties);
+      }
+
+      @Override
+      public void reportDuplicateEntry(@Nonnull Map<String, Object> properties, @Nonnull String name) {
+        fail("Unexpected duplicate entry " + name);
+      }
+
+      @Override
+      public void close() throws IOException {
+        // do nothing
+      }
+    }, 60000L, new TimeService() {
+      @Override
+      public long now() {
+        return now;
+      }
+    });
+  }
+
+  @Test
+  public void shouldWriteSummaryPerOriginAfterInterval() {
+    // Given:
+    put("a", 10L, true);
+    put("a", 20L, false);
+    put("b", 5L, true);
+
+    // When:
+    now = 120000L;
+    put("a", 30L, true);
+
+    // Then:
+    assertEquals(2, records.size());
+    final Map<String, Object> a = records.get(0).get(PredefinedMetricNames.ORIGIN).equals("a") ?
+        records.get(0) : records.get(1);
+    assertEquals(60000L, a.get(PredefinedMetricNames.START_TIME));
+    assertEquals(60000L, a.get(AggregatingMetricsCreator.INTERVAL));
+    assertEquals(2L, a.get(AggregatingMetricsCreator.COUNT));
+    assertEquals(1L, a.get(AggregatingMetricsCreator.FAILED_COUNT));
+    assertEquals(30L, a.get(AggregatingMetricsCreator.TIME_DELTA_SUM));
+    assertEquals(10L, a.get(AggregatingMetricsCreator.TIME_DELTA_P50));
+    assertEquals(20L, a.get(AggregatingMetricsCreator.TIME_DELTA_P999));
+    assertEquals(Arrays.asList(10L, 20L), a.get(AggregatingMetricsCreator.HISTOGRAM_BUCKETS));
+    assertEquals(Arrays.asList(1L, 1L), a.get(AggregatingMetricsCreator.HISTOGRAM_COUNTS));
+  }
+
+  @Test
+  public void shouldWriteRecordsOfNextIntervalOnClose() throws IOException {
+    // Given:
+    put("a", 10L, true);
+    now = 125000L;
+    put("a", 40L, true);
+    records.clear();
+
+    // When:
+    now = 130000L;
+    metricsCreator.close();
+
+    // Then:
+    assertEquals(1, records.size());
+    assertEquals(120000L, records.get(0).get(PredefinedMetricNames.START_TIME));
+    assertEquals(10000L, records.get(0).get(AggregatingMetricsCreator.INTERVAL));
+    assertEquals(1L, records.get(0).get(AggregatingMetricsCreator.COUNT));
+    assertEquals(40L, records.get(0).get(AggregatingMetricsCreator.TIME_DELTA_MAX));
+  }
+
+  @Test
+  public void shouldCountRecordsWithoutTimeDelta() {
+    // Given:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "a");
+      metrics.put("other", "value");
+    }
+
+    // When:
+    metricsCreator.flush();
+
+    // Then:
+    assertEquals(1, records.size());
+    assertEquals(1L, records.get(0).get(AggregatingMetricsCreator.COUNT));
+    assertFalse(records.get(0).containsKey(AggregatingMetricsCreator.TIME_DELTA_P50));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotCloseMetricsTwice() {
+    final Metrics metrics = metricsCreator.create();
+    metrics.close();
+    metrics.close();
+  }
+
+  //
+  // Private
+  //
+
+  private void put(String origin, long timeDelta, boolean succeeded) {
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, origin);
+      metrics.put(PredefinedMetricNames.START_TIME, now);
+      metrics.put(PredefinedMetricNames.TIME_DELTA, timeDelta);
+      metrics.put(PredefinedMetricNames.SUCCEEDED, succeeded);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.truward.metrics.aggregate;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.aggregate.LatencyHistogram}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class LatencyHistogramTest {
+
+  @Test
+  public void shouldMapValuesToBuckets() {
+    for (long value = 0L; value < 1000000L; value += 7L) {
+      final int index = LatencyHistogram.getBucketIndex(value);
+      assertTrue(LatencyHistogram.getBucketLowerBound(index) <= value);
+      assertTrue(LatencyHistogram.getBucketUpperBound(index) >= value);
+      assertTrue(LatencyHistogram.getBucketUpperBound(index) - value <= value / 32L);
+    }
+
+    assertEquals(63, LatencyHistogram.getBucketIndex(63L));
+    assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(LatencyHistogram.MAX_VALUE));
+    assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.getBucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+  }
+
+  @Test
+  public void shouldCalculatePercentiles() {
+    // Given:
+    final LatencyHistogram histogram = new LatencyHistogram();
+
+    // When:
+    for (long value = 1L; value <= 10000L; ++value) {
+      histogram.record(value);
+    }
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    // Then:
+    assertEquals(10000L, snapshot.getCount());
+    assertEquals(10000L * 10001L / 2L, snapshot.getSum());
+    assertEquals(1L, snapshot.getMin());
+    assertEquals(10000.0, snapshot.getMax(), 10000.0 / 32.0);
+    assertEquals(5000.0, snapshot.getValueAtPercentile(50.0), 5000.0 / 32.0);
+    assertEquals(9900.0, snapshot.getValueAtPercentile(99.0), 9900.0 / 32.0);
+    assertEquals(9990.0, snapshot.getValueAtPercentile(99.9), 9990.0 / 32.0);
+  }
+
+  @Test
+  public void shouldRecordWithSingleStripe() {
+    // Given:
+    final LatencyHistogram histogram = new LatencyHistogram(1);
+
+    // When:
+    histogram.record(5L);
+    histogram.record(LatencyHistogram.MAX_VALUE + 1000L);
+
+    // Then:
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(2L, snapshot.getCount());
+    assertEquals(5L, snapshot.getMin());
+    assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMax());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectStripeCountNotPowerOfTwo() {
+    new LatencyHistogram(3);
+  }
+
+  @Test
+  public void shouldMergeAndSubtractSnapshots() throws InterruptedException {
+    // Given:
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(10L);
+    final LatencyHistogram.Snapshot first = histogram.snapshot();
+
+    // When:
+    final Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; ++j) {
+            histogram.record(100L);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    final LatencyHistogram.Snapshot delta = histogram.snapshot().minus(first);
+
+    // Then:
+    assertEquals(4000L, delta.getCount());
+    assertEquals(100L, delta.getMin());
+    assertEquals(4001L, first.plus(delta).getCount());
+    assertEquals(10L, first.plus(delta).getMin());
+  }
+}
@@ -0,0 +1,78 @@
+package com.truward.metrics.support;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.support.MetricsRecord}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class MetricsRecordTest {
+
+  @Test
+  public void shouldPutPrimitivesWithoutBoxing() {
+    // Given:
+    final MetricsRecord record = new MetricsRecord(2, null);
+
+    // When:
+    record.putLong("a", MetricsRecord.TYPE_INT, 1);
+    record.putDouble("b", MetricsRecord.TYPE_DOUBLE, 2.5);
+    record.putLong("c", MetricsRecord.TYPE_BOOLEAN, 1);
+    record.putObject("d", "str");
+
+    // Then:
+    assertEquals(4, record.size());
+    assertEquals(4, record.capacity());
+    assertEquals(MetricsRecord.TYPE_INT, record.getType(0));
+    assertEquals(1L, record.getLong(0));
+    assertEquals(2.5, record.getDouble(1), 0.0);
+
+    final Map<String, Object> expected = new HashMap<>();
+    expected.put("a", 1);
+    expected.put("b", 2.5);
+    expected.put("c", true);
+    expected.put("d", "str");
+    assertEquals(expected, record.toMap());
+  }
+
+  @Test
+  public void shouldReplaceDuplicateEntry() {
+    // Given:
+    final MetricsRecord record = new MetricsRecord();
+    assertFalse(record.putLong("a", MetricsRecord.TYPE_LONG, 1L));
+
+    // When:
+    final boolean replaced = record.putObject("a", "b");
+
+    // Then:
+    assertTrue(replaced);
+    assertEquals(1, record.size());
+    assertEquals("b", record.getObject(0));
+  }
+
+  @Test
+  public void shouldRecycle() {
+    // Given:
+    final MetricsRecord[] recycled = new MetricsRecord[1];
+    final MetricsRecord record = new MetricsRecord(4, new MetricsRecord.Recycler() {
+      @Override
+      public void recycle(MetricsRecord record) {
+        recycled[0] = record;
+      }
+    });
+    record.putObject("a", "b");
+
+    // When:
+    record.recycle();
+
+    // Then:
+    assertSame(record, recycled[0]);
+    assertEquals(0, record.size());
+    assertEquals(-1, record.indexOf("a"));
+  }
+}
@@ -0,0 +1,150 @@
+package com.truward.metrics.support;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.MetricsCreator;
+import com.truward.metrics.NullMetricsCreator;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.time.TimeService;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.support.SamplingMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class SamplingMetricsCreatorTest {
+  private final List<Map<String, Object>> records = new ArrayList<>();
+  private long now = 0L;
+  private SamplingMetricsCreator metricsCreator;
+
+  @Before
+  public void init() {
+    final MapAppender appender = new MapAppender() {
+      @Override
+      public void write(@Nonnull Map<String, Object> properties) {
+        records.add(properties);
+      }
+
+      @Override
+      public void reportDuplicateEntry(@Nonnull Map<String, Object> properties, @Nonnull String name) {
+        fail("Unexpected duplicate entry " + name);
+      }
+
+      @Override
+      public void close() throws IOException {
+        // do nothing
+      }
+    };
+
+    metricsCreator = new SamplingMetricsCreator(new MetricsCreator() {
+      @Nonnull
+      @Override
+      public Metrics create() {
+        return new StandardMetrics(appender);
+      }
+    }, 10.0, new TimeService() {
+      @Override
+      public long now() {
+        return now;
+      }
+    });
+  }
+
+  @Test
+  public void shouldKeepAllRecordsBelowTargetRate() {
+    // When:
+    for (int i = 0; i < 20; ++i) {
+      now = i * 100L;
+      metricsCreator.create("a").close();
+    }
+
+    // Then:
+    assertEquals(20, records.size());
+    assertEquals("a", records.get(0).get(PredefinedMetricNames.ORIGIN));
+    assertEquals(1.0, records.get(0).get(PredefinedMetricNames.SAMPLE_RATE));
+    assertEquals(1.0, metricsCreator.getSampleRate("a"), 0.0);
+  }
+
+  @Test
+  public void shouldThrottleOriginAboveTargetRate() {
+    // Given:
+    writeOneSecond("a", 1000);
+    writeOneSecond("b", 5);
+    records.clear();
+
+    // When:
+    now = 1000L;
+    writeOneSecond("a", 1000);
+    writeOneSecond("b", 5);
+
+    // Then:
+    assertEquals(0.01, metricsCreator.getSampleRate("a"), 0.001);
+    assertEquals(1.0, metricsCreator.getSampleRate("b"), 0.0);
+    int keptCount = 0;
+    for (final Map<String, Object> record : records) {
+      if ("a".equals(record.get(PredefinedMetricNames.ORIGIN))) {
+        assertEquals(0.01, (Double) record.get(PredefinedMetricNames.SAMPLE_RATE), 0.001);
+        ++keptCount;
+      }
+    }
+    assertTrue("keptCount=" + keptCount, keptCount > 0 && keptCount < 40);
+    assertEquals(keptCount + 5, records.size());
+  }
+
+  @Test
+  public void shouldUseTargetRateOfOrigin() {
+    // Given:
+    metricsCreator.setTargetRate("a", 1000.0);
+
+    // When:
+    writeOneSecond("a", 500);
+    now = 1000L;
+    writeOneSecond("a", 500);
+
+    // Then:
+    assertEquals(1000, records.size());
+  }
+
+  @Test
+  public void shouldReturnNullMetricsForDroppedRecords() {
+    // Given:
+    writeOneSecond("", 100000);
+    now = 1000L;
+
+    // When:
+    int droppedCount = 0;
+    for (int i = 0; i < 100; ++i) {
+      final Metrics metrics = metricsCreator.create();
+      if (metrics == NullMetricsCreator.NULL_METRICS) {
+        ++droppedCount;
+      }
+      metrics.close();
+    }
+
+    // Then:
+    assertTrue("droppedCount=" + droppedCount, droppedCount > 90);
+  }
+
+  //
+  // Private
+  //
+
+  private void writeOneSecond(String origin, int count) {
+    final long start = now;
+    for (int i = 0; i < count; ++i) {
+      now = start + i * 1000L / count;
+      metricsCreator.create(origin).close();
+    }
+    now = start;
+  }
+}
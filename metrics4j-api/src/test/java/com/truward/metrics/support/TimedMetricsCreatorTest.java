@@ -0,0 +1,138 @@
+package com.truward.metrics.support;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.MetricsCreator;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.TimedMetrics;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.time.MonotonicTimeService;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.support.TimedMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class TimedMetricsCreatorTest {
+  private final List<Map<String, Object>> records = new ArrayList<>();
+  private long now = 1000L;
+  private long nanoTime = 5000000000L;
+  private TimedMetricsCreator metricsCreator;
+
+  @Before
+  public void init() {
+    final MapAppender appender = new MapAppender() {
+      @Override
+      public void write(@Nonnull Map<String, Object> properties) {
+        records.add(properties);
+      }
+
+      @Override
+      public void reportDuplicateEntry(@Nonnull Map<String, Object> properties, @Nonnull String name) {
+        fail("Unexpected duplicate entry " + name);
+      }
+
+      @Override
+      public void close() throws IOException {
+        // do nothing
+      }
+    };
+
+    metricsCreator = new TimedMetricsCreator(new MetricsCreator() {
+      @Nonnull
+      @Override
+      public Metrics create() {
+        return new StandardMetrics(appender);
+      }
+    }, new MonotonicTimeService() {
+      @Override
+      public long nanoTime() {
+        return nanoTime;
+      }
+
+      @Override
+      public long now() {
+        return now;
+      }
+    });
+  }
+
+  @Test
+  public void shouldRecordTimeAndResult() {
+    // When:
+    try (final TimedMetrics metrics = metricsCreator.create("a")) {
+      now += 3L;
+      nanoTime += 3250000L;
+      metrics.markSucceeded();
+    }
+
+    // Then:
+    assertEquals(1, records.size());
+    final Map<String, Object> record = records.get(0);
+    assertEquals("a", record.get(PredefinedMetricNames.ORIGIN));
+    assertEquals(1000L, record.get(PredefinedMetricNames.START_TIME));
+    assertEquals(3L, record.get(PredefinedMetricNames.TIME_DELTA));
+    assertEquals(3250000L, record.get(PredefinedMetricNames.TIME_DELTA_NANOS));
+    assertEquals(true, record.get(PredefinedMetricNames.SUCCEEDED));
+  }
+
+  @Test
+  public void shouldRecordFailureOnException() {
+    // When:
+    try (final TimedMetrics metrics = metricsCreator.create()) {
+      metrics.put("id", 1);
+      throw new UnsupportedOperationException();
+    } catch (UnsupportedOperationException ignored) {
+      // expected
+    }
+
+    // Then:
+    assertEquals(1, records.size());
+    assertEquals(false, records.get(0).get(PredefinedMetricNames.SUCCEEDED));
+  }
+
+  @Test
+  public void shouldNotAffectNewMetricsWhenClosedTwice() {
+    // Given:
+    final TimedMetrics closed = metricsCreator.create();
+    closed.close();
+    final TimedMetrics metrics = metricsCreator.create();
+
+    // When:
+    try {
+      closed.close();
+      fail("Closed metrics should not be closed again");
+    } catch (IllegalStateException ignored) {
+      // expected
+    }
+    try {
+      closed.put("id", 1);
+      fail("Closed metrics should not be writable");
+    } catch (IllegalStateException ignored) {
+      // expected
+    }
+
+    // Then:
+    assertEquals(1, records.size());
+    metrics.put("id", 2);
+    metrics.close();
+    assertEquals(2, records.size());
+    assertEquals(2, records.get(1).get("id"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotCloseMetricsTwice() {
+    final TimedMetrics metrics = metricsCreator.create();
+    metrics.close();
+    metrics.close();
+  }
+}
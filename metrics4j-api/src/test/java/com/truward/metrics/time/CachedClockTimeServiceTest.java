@@ -0,0 +1,44 @@
+package com.truward.metrics.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.time.CachedClockTimeService}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class CachedClockTimeServiceTest {
+
+  @Test
+  public void shouldUpdateTime() throws InterruptedException {
+    // Given:
+    final long start = System.currentTimeMillis();
+    final CachedClockTimeService timeService = new CachedClockTimeService(1L);
+
+    try {
+      // When:
+      final long first = timeService.now();
+      Thread.sleep(50L);
+      final long second = timeService.now();
+
+      // Then:
+      assertTrue(first >= start);
+      assertTrue("first=" + first + ", second=" + second, second - first >= 30L);
+      assertTrue(second <= System.currentTimeMillis());
+    } finally {
+      timeService.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectTooHighResolution() {
+    new CachedClockTimeService(100L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectTooLowResolution() {
+    new CachedClockTimeService(0L);
+  }
+}
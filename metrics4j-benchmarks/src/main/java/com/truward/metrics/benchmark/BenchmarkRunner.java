@@ -0,0 +1,46 @@
+package com.truward.metrics.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar, runs the selected benchmarks with GC profiler once per each thread count
+ * and writes results of each run to the separate JSON file, so that allocation rate and throughput can be compared
+ * between the builds.
+ * <p>
+ * Usage: {@code java [-Dbenchmark.threads=1,8] -jar benchmarks.jar [JMH options] [benchmark regexp]}.
+ * Default thread counts are 1, 2, 4, 8, 16, 32 and 64.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class BenchmarkRunner {
+  private BenchmarkRunner() {} // Hidden
+
+  public static final String THREADS_PROPERTY = "benchmark.threads";
+  public static final String DEFAULT_THREADS = "1,2,4,8,16,32,64";
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    final String[] threadCounts = System.getProperty(THREADS_PROPERTY, DEFAULT_THREADS).split(",");
+
+    for (final String threadCount : threadCounts) {
+      final int threads = Integer.parseInt(threadCount.trim());
+      final Options options = new OptionsBuilder()
+          .parent(commandLineOptions)
+          .threads(threads)
+          .addProfiler(GCProfiler.class)
+          .resultFormat(ResultFormatType.JSON)
+          .result("jmh-result-threads-" + threads + ".json")
+          .build();
+
+      new Runner(options).run();
+    }
+  }
+}
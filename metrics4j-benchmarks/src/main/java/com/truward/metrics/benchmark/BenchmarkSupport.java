@@ -0,0 +1,189 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.JsonLogMetricsCreator;
+import com.truward.metrics.json.internal.cache.EmptyRecordCache;
+import com.truward.metrics.json.internal.cache.RecordCache;
+import com.truward.metrics.json.internal.cache.SharedRecordCache;
+import com.truward.metrics.json.internal.cache.ThreadLocalRecordCache;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Helpers, shared by the benchmarks.
+ *
+ * @author Alexander Shabanov
+ */
+public final class BenchmarkSupport {
+  private BenchmarkSupport() {} // Hidden
+
+  /**
+   * Maximum count of the entries in the generated records.
+   */
+  public static final int MAX_RECORD_SIZE = 64;
+
+  /**
+   * Count of predefined entries, written to each generated record.
+   */
+  public static final int PREDEFINED_ENTRY_COUNT = 4;
+
+  private static final String[] KEYS = new String[MAX_RECORD_SIZE];
+
+  static {
+    for (int i = 0; i < KEYS.length; ++i) {
+      KEYS[i] = "key" + i;
+    }
+  }
+
+  /**
+   * Types of record caches, used by the benchmarks.
+   */
+  public enum RecordCacheType {
+    EMPTY {
+      @Nonnull @Override public RecordCache newRecordCache() {
+        return EmptyRecordCache.getInstance();
+      }
+    },
+
+    SHARED {
+      @Nonnull @Override public RecordCache newRecordCache() {
+        return new SharedRecordCache();
+      }
+    },
+
+    THREAD_LOCAL {
+      @Nonnull @Override public RecordCache newRecordCache() {
+        return new ThreadLocalRecordCache();
+      }
+    };
+
+    @Nonnull public abstract RecordCache newRecordCache();
+  }
+
+  /**
+   * @param index Key index, should be less than {@link #MAX_RECORD_SIZE}
+   * @return Pre-allocated key name
+   */
+  @Nonnull public static String key(int index) {
+    return KEYS[index];
+  }
+
+  /**
+   * Fills metrics with the predefined entries and then with the generated ones, so that the resultant record
+   * looks like a typical one.
+   *
+   * @param metrics    Target metrics
+   * @param recordSize Total count of the entries, should not exceed {@link #MAX_RECORD_SIZE}
+   * @param seed       Value, that is used to generate entry values
+   */
+  public static void fillRecord(@Nonnull Metrics metrics, int recordSize, long seed) {
+    metrics.put(PredefinedMetricNames.ORIGIN, "BenchmarkService.handleRequest");
+    metrics.put(PredefinedMetricNames.START_TIME, seed);
+    metrics.put(PredefinedMetricNames.TIME_DELTA, seed & 0xffL);
+    metrics.put(PredefinedMetricNames.SUCCEEDED, (seed & 1L) == 0L);
+
+    for (int i = PREDEFINED_ENTRY_COUNT; i < recordSize; ++i) {
+      switch (i % 4) {
+        case 0:
+          metrics.put(KEYS[i], (int) seed + i);
+          break;
+        case 1:
+          metrics.put(KEYS[i], seed * i);
+          break;
+        case 2:
+          metrics.put(KEYS[i], seed * 0.5d);
+          break;
+        default:
+          metrics.put(KEYS[i], "value");
+      }
+    }
+  }
+
+  /**
+   * Writes metrics log file, that consists of the similar records.
+   *
+   * @param file        Target file, should not exist
+   * @param entryCount  Count of the entries in the each record
+   * @param valueLength Length of the string values in the generated records
+   * @param fileSize    Approximate size of the file to be generated
+   * @return Count of the records written
+   * @throws IOException On I/O error
+   */
+  public static int writeLogFile(@Nonnull File file, int entryCount, int valueLength, long fileSize)
+      throws IOException {
+    final StringBuilder valueBuilder = new StringBuilder(valueLength);
+    for (int i = 0; i < valueLength; ++i) {
+      valueBuilder.append((char) ('a' + (i % 26)));
+    }
+    final String value = valueBuilder.toString();
+
+    int recordCount = 0;
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(file)) {
+      while (file.length() < fileSize) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.ORIGIN, "BenchmarkService.handleRequest");
+          metrics.put(PredefinedMetricNames.START_TIME, 1400000000000L + recordCount);
+          metrics.put(PredefinedMetricNames.TIME_DELTA, recordCount % 100);
+          metrics.put(PredefinedMetricNames.SUCCEEDED, true);
+          for (int i = PREDEFINED_ENTRY_COUNT; i < entryCount; ++i) {
+            if ((i & 1) == 0) {
+              metrics.put("field" + i, recordCount * 31L + i);
+            } else {
+              metrics.put("field" + i, value);
+            }
+          }
+        }
+        ++recordCount;
+      }
+    }
+    return recordCount;
+  }
+
+  /**
+   * @return Newly created temporary directory for the benchmark logs
+   * @throws IOException On I/O error
+   */
+  @Nonnull public static File createTempDirectory() throws IOException {
+    return Files.createTempDirectory("metrics4j-benchmark").toFile();
+  }
+
+  /**
+   * Deletes the given directory along with the files in it.
+   *
+   * @param directory Directory to delete
+   */
+  public static void deleteDirectory(@Nonnull File directory) {
+    final File[] files = directory.listFiles();
+    if (files != null) {
+      for (final File file : files) {
+        if (!file.delete()) {
+          file.deleteOnExit();
+        }
+      }
+    }
+
+    if (!directory.delete()) {
+      directory.deleteOnExit();
+    }
+  }
+
+  /**
+   * Output stream, that discards all the written bytes.
+   */
+  public static final class NullOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {
+      // do nothing
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) {
+      // do nothing
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.json.JsonLogMetricsCreator;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures complete record lifecycle: create, put entries and close, which serializes the record through either
+ * {@link com.truward.metrics.json.internal.appender.JacksonMapAppender}, that writes to the output stream, which
+ * discards the data, or through {@link com.truward.metrics.json.internal.appender.RollingJacksonMapAppender},
+ * that writes to the files in the temporary directory.
+ *
+ * @author Alexander Shabanov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CloseBenchmark {
+
+  public enum AppenderType {
+    STREAM,
+    ROLLING
+  }
+
+  @Param({"STREAM", "ROLLING"})
+  public AppenderType appenderType;
+
+  @Param({"EMPTY", "SHARED", "THREAD_LOCAL"})
+  public BenchmarkSupport.RecordCacheType recordCacheType;
+
+  @Param({"4", "16", "64"})
+  public int recordSize;
+
+  private final AtomicLong seed = new AtomicLong();
+  private JsonLogMetricsCreator metricsCreator;
+  private File logDirectory;
+
+  @Setup
+  public void setUp() throws IOException {
+    switch (appenderType) {
+      case STREAM:
+        metricsCreator = new JsonLogMetricsCreator(new BenchmarkSupport.NullOutputStream(),
+            recordCacheType.newRecordCache());
+        break;
+
+      case ROLLING:
+        logDirectory = BenchmarkSupport.createTempDirectory();
+        metricsCreator = new JsonLogMetricsCreator(TimeBasedRollingLogSettings.newBuilder()
+            .setFileNameBase(new File(logDirectory, "metrics").getPath())
+            .setTimeDeltaMillis(TimeUnit.MINUTES.toMillis(1L))
+            .setCompressionType(CompressionType.NONE)
+            .build(), recordCacheType.newRecordCache());
+        break;
+
+      default:
+        throw new IllegalStateException("Unknown appenderType=" + appenderType);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    metricsCreator.close();
+    if (logDirectory != null) {
+      BenchmarkSupport.deleteDirectory(logDirectory);
+      logDirectory = null;
+    }
+  }
+
+  @Benchmark
+  public void createPutClose() {
+    try (final Metrics metrics = metricsCreator.create()) {
+      BenchmarkSupport.fillRecord(metrics, recordSize, seed.incrementAndGet());
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.json.JsonLogMetricsCreator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cost of {@link JsonLogMetricsCreator#create()} alone, created instances are never closed and thus
+ * properties maps are not returned to the record cache, i.e. each call is a cache miss.
+ *
+ * @author Alexander Shabanov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CreateBenchmark {
+
+  @Param({"EMPTY", "SHARED", "THREAD_LOCAL"})
+  public BenchmarkSupport.RecordCacheType recordCacheType;
+
+  private JsonLogMetricsCreator metricsCreator;
+
+  @Setup
+  public void setUp() {
+    metricsCreator = new JsonLogMetricsCreator(new BenchmarkSupport.NullOutputStream(),
+        recordCacheType.newRecordCache());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    metricsCreator.close();
+  }
+
+  @Benchmark
+  public Metrics create() {
+    return metricsCreator.create();
+  }
+}
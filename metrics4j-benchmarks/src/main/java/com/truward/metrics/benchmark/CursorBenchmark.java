@@ -0,0 +1,53 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.JsonMetricsCursor;
+import com.truward.metrics.reader.MetricsCursor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of {@link JsonMetricsCursor} over the same log files as {@link ReadBenchmark}, each operation
+ * advances cursor to the next record and reads its predefined entries.
+ *
+ * @author Alexander Shabanov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CursorBenchmark {
+
+  private MetricsCursor cursor;
+
+  @TearDown
+  public void tearDown() throws IOException {
+    if (cursor != null) {
+      cursor.close();
+      cursor = null;
+    }
+  }
+
+  @Benchmark
+  public long next(ReadBenchmark.LogFile logFile, ReadBenchmark.ReadCounters counters) throws IOException {
+    if (cursor == null) {
+      cursor = new JsonMetricsCursor(new FileInputStream(logFile.getFile()));
+    }
+
+    if (!cursor.next()) {
+      // whole file has been read, start over
+      counters.megabytes += logFile.getFile().length() / (1024.0d * 1024.0d);
+      cursor.close();
+      cursor = new JsonMetricsCursor(new FileInputStream(logFile.getFile()));
+      cursor.next();
+    }
+
+    return cursor.getLong(PredefinedMetricNames.TIME_DELTA, 0L) +
+        (cursor.getBoolean(PredefinedMetricNames.SUCCEEDED, false) ? 1L : 0L);
+  }
+}
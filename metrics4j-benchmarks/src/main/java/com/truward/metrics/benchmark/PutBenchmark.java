@@ -0,0 +1,126 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.support.StandardMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StandardMetrics} put operations: each operation puts {@code recordSize} entries of the same type
+ * into the metrics instance and closes it into the appender, that discards records, so that serialization
+ * does not contribute to the results.
+ *
+ * @author Alexander Shabanov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PutBenchmark {
+
+  @Param({"4", "16", "64"})
+  public int recordSize;
+
+  private final Map<String, Object> properties = new HashMap<>(BenchmarkSupport.MAX_RECORD_SIZE * 2);
+  private final MapAppender appender = new DiscardingMapAppender();
+  private final List<String> listValue = Arrays.asList("a", "b", "c");
+  private final Map<String, String> mapValue = Collections.singletonMap("a", "b");
+  private int counter;
+
+  @Benchmark
+  public void putBoolean() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    final boolean value = (++counter & 1) == 0;
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), value);
+    }
+    metrics.close();
+  }
+
+  @Benchmark
+  public void putInt() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    final int value = ++counter;
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), value + i);
+    }
+    metrics.close();
+  }
+
+  @Benchmark
+  public void putLong() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    final long value = System.nanoTime(); // outside of the boxing cache
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), value + i);
+    }
+    metrics.close();
+  }
+
+  @Benchmark
+  public void putDouble() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    final double value = ++counter * 0.5d;
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), value + i);
+    }
+    metrics.close();
+  }
+
+  @Benchmark
+  public void putString() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), "value");
+    }
+    metrics.close();
+  }
+
+  @Benchmark
+  public void putCollection() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), listValue);
+    }
+    metrics.close();
+  }
+
+  @Benchmark
+  public void putMap() {
+    final StandardMetrics metrics = new StandardMetrics(properties, appender);
+    for (int i = 0; i < recordSize; ++i) {
+      metrics.put(BenchmarkSupport.key(i), mapValue);
+    }
+    metrics.close();
+  }
+
+  //
+  // Private
+  //
+
+  private static final class DiscardingMapAppender implements MapAppender {
+    @Override
+    public void write(@Nonnull Map<String, Object> properties) {
+      properties.clear(); // map is reused by the next operation
+    }
+
+    @Override
+    public void reportDuplicateEntry(@Nonnull Map<String, Object> source, @Nonnull String key) {
+      throw new IllegalStateException("Duplicate entry " + key);
+    }
+
+    @Override
+    public void close() {
+      // do nothing
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.AbstractJsonMetricsReader;
+import com.truward.metrics.json.reader.MappedJsonMetricsReader;
+import com.truward.metrics.json.reader.ParallelJsonMetricsReader;
+import com.truward.metrics.json.reader.ProjectingJsonMetricsReader;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.reader.MetricsReader;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of the metrics readers over the generated log file.
+ * <p>
+ * Each operation reads one record, so the primary score is records per second and GC profiler's
+ * {@code gc.alloc.rate.norm} is bytes allocated per record. Read volume is reported by the {@code megabytes}
+ * counter as MB per second. {@code LARGE} records exceed
+ * {@link com.truward.metrics.json.reader.AbstractJsonMetricsReader#DEFAULT_BUFFER_SIZE}, so that reader has to grow
+ * its buffer.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReadBenchmark {
+
+  /**
+   * Shapes of the generated records.
+   */
+  public enum RecordShape {
+    SMALL(8, 8),        // ~200 bytes
+    MEDIUM(64, 16),     // ~2 kilobytes
+    LARGE(256, 100);    // ~16 kilobytes, larger than the default buffer size
+
+    private final int entryCount;
+    private final int valueLength;
+
+    RecordShape(int entryCount, int valueLength) {
+      this.entryCount = entryCount;
+      this.valueLength = valueLength;
+    }
+  }
+
+  /**
+   * Reader implementations.
+   */
+  public enum ReaderType {
+    STANDARD {
+      @Nonnull @Override public MetricsReader open(@Nonnull File file) throws IOException {
+        return new StandardJsonMetricsReader(new FileInputStream(file));
+      }
+    },
+
+    STANDARD_NEWLINE {
+      @Nonnull @Override public MetricsReader open(@Nonnull File file) throws IOException {
+        return new StandardJsonMetricsReader(new FileInputStream(file), AbstractJsonMetricsReader.DEFAULT_BUFFER_SIZE,
+            AbstractJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE, RecordFramingMode.NEWLINE);
+      }
+    },
+
+    PROJECTING {
+      @Nonnull @Override public MetricsReader open(@Nonnull File file) throws IOException {
+        return new ProjectingJsonMetricsReader(new FileInputStream(file), AbstractJsonMetricsReader.DEFAULT_BUFFER_SIZE,
+            AbstractJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE, RecordFramingMode.NEWLINE,
+            Arrays.asList(PredefinedMetricNames.ORIGIN, PredefinedMetricNames.TIME_DELTA,
+                PredefinedMetricNames.SUCCEEDED), true); // generated records have no repeated fields
+      }
+    },
+
+    MAPPED {
+      @Nonnull @Override public MetricsReader open(@Nonnull File file) throws IOException {
+        return new MappedJsonMetricsReader(file);
+      }
+    },
+
+    PARALLEL {
+      @Nonnull @Override public MetricsReader open(@Nonnull File file) throws IOException {
+        return new ParallelJsonMetricsReader(file);
+      }
+    };
+
+    @Nonnull public abstract MetricsReader open(@Nonnull File file) throws IOException;
+  }
+
+  /**
+   * Log file, shared by all the benchmark threads.
+   */
+  @State(Scope.Benchmark)
+  public static class LogFile {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public RecordShape recordShape;
+
+    @Param({"16777216"})
+    public long fileSize;
+
+    private File directory;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+      directory = BenchmarkSupport.createTempDirectory();
+      file = new File(directory, "metrics.log");
+      BenchmarkSupport.writeLogFile(file, recordShape.entryCount, recordShape.valueLength, fileSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+      BenchmarkSupport.deleteDirectory(directory);
+    }
+
+    @Nonnull public File getFile() {
+      return file;
+    }
+  }
+
+  /**
+   * Volume of the read data, reported as rate.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class ReadCounters {
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      megabytes = 0.0d;
+    }
+  }
+
+  @Param({"STANDARD", "STANDARD_NEWLINE", "PROJECTING", "MAPPED", "PARALLEL"})
+  public ReaderType readerType;
+
+  private MetricsReader reader;
+
+  @TearDown
+  public void tearDown() throws IOException {
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
+  }
+
+  @Benchmark
+  public Map<String, ?> readNext(LogFile logFile, ReadCounters counters) throws IOException {
+    if (reader == null) {
+      reader = readerType.open(logFile.file);
+    }
+
+    Map<String, ?> result = reader.readNext();
+    if (result == null) {
+      // whole file has been read, start over
+      counters.megabytes += logFile.file.length() / (1024.0d * 1024.0d);
+      reader.close();
+      reader = readerType.open(logFile.file);
+      result = reader.readNext();
+    }
+    return result;
+  }
+}
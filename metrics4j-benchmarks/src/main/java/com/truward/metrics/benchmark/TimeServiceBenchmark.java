@@ -0,0 +1,59 @@
+package com.truward.metrics.benchmark;
+
+import com.truward.metrics.time.CachedClockTimeService;
+import com.truward.metrics.time.TimeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares cost of reading current time from {@link TimeService#DEFAULT} and {@link CachedClockTimeService}.
+ *
+ * @author Alexander Shabanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeServiceBenchmark {
+
+  public enum TimeServiceType {
+    DEFAULT,
+    CACHED
+  }
+
+  @Param({"DEFAULT", "CACHED"})
+  public TimeServiceType timeServiceType;
+
+  private TimeService timeService;
+
+  @Setup
+  public void setUp() {
+    switch (timeServiceType) {
+      case DEFAULT:
+        timeService = TimeService.DEFAULT;
+        break;
+
+      case CACHED:
+        timeService = new CachedClockTimeService(1L);
+        break;
+
+      default:
+        throw new IllegalStateException("Unknown timeServiceType=" + timeServiceType);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (timeService instanceof CachedClockTimeService) {
+      ((CachedClockTimeService) timeService).close();
+    }
+  }
+
+  @Benchmark
+  public long now() {
+    return timeService.now();
+  }
+}
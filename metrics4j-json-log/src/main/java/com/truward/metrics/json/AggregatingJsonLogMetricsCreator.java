@@ -0,0 +1,68 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.aggregate.AggregatingMetricsCreator;
+import com.truward.metrics.json.internal.cache.EmptyRecordCache;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.time.TimeService;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Metrics creator, that writes one JSON summary record per origin per the given interval instead of writing
+ * each metrics record, see {@link AggregatingMetricsCreator} for the summary structure.
+ *
+ * @author Alexander Shabanov
+ */
+public class AggregatingJsonLogMetricsCreator extends JsonLogMetricsCreator {
+  private final AggregatingMetricsCreator aggregator;
+  private boolean closed = false;
+
+  public AggregatingJsonLogMetricsCreator(@Nonnull OutputStream outputStream, long intervalMillis) {
+    super(outputStream, EmptyRecordCache.getInstance());
+    this.aggregator = new AggregatingMetricsCreator(getMapAppender(), intervalMillis, TimeService.DEFAULT);
+  }
+
+  public AggregatingJsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings, long intervalMillis) {
+    super(settings, EmptyRecordCache.getInstance());
+    this.aggregator = new AggregatingMetricsCreator(getMapAppender(), intervalMillis, settings.getTimeService());
+  }
+
+  public AggregatingJsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings,
+                                          @Nonnull AsyncAppenderSettings asyncSettings,
+                                          long intervalMillis) {
+    super(settings, EmptyRecordCache.getInstance(), asyncSettings);
+    this.aggregator = new AggregatingMetricsCreator(getMapAppender(), intervalMillis, settings.getTimeService());
+  }
+
+  @Nonnull
+  @Override
+  public Metrics create() {
+    getMapAppender(); // throws if closed
+    return aggregator.create();
+  }
+
+  /**
+   * Writes summary records of the current interval up to the current time.
+   */
+  public void flush() {
+    aggregator.flush();
+  }
+
+  /**
+   * Writes summary records of the current interval and closes underlying output stream.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      aggregator.flush();
+    }
+    super.close();
+  }
+}
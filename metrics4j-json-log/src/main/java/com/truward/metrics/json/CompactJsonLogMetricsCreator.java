@@ -0,0 +1,62 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.appender.RecordAppender;
+import com.truward.metrics.json.internal.cache.EmptyRecordCache;
+import com.truward.metrics.json.internal.cache.MetricsRecordPool;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.support.CompactMetrics;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+
+/**
+ * Metrics creator that dumps metrics as UTF-8 encoded JSON, just like {@link JsonLogMetricsCreator} does, but
+ * creates {@link com.truward.metrics.support.CompactMetrics} instances which record primitive values without boxing
+ * and are serialized without building an intermediate map.
+ * Records are pooled, so that steady-state metrics creation does not allocate record storage.
+ *
+ * @author Alexander Shabanov
+ */
+public class CompactJsonLogMetricsCreator extends JsonLogMetricsCreator {
+  private final MetricsRecordPool recordPool = new MetricsRecordPool();
+
+  public CompactJsonLogMetricsCreator(@Nonnull OutputStream outputStream) {
+    super(outputStream, EmptyRecordCache.getInstance());
+  }
+
+  public CompactJsonLogMetricsCreator(@Nonnull OutputStream outputStream,
+                                      @Nonnull AsyncAppenderSettings asyncSettings) {
+    super(outputStream, EmptyRecordCache.getInstance(), asyncSettings);
+  }
+
+  public CompactJsonLogMetricsCreator(@Nonnull File file) throws FileNotFoundException {
+    this(new BufferedOutputStream(new FileOutputStream(file, true), 4096));
+  }
+
+  public CompactJsonLogMetricsCreator(@Nonnull String fileName) throws FileNotFoundException {
+    this(new File(fileName));
+  }
+
+  public CompactJsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings) {
+    super(settings, EmptyRecordCache.getInstance());
+  }
+
+  public CompactJsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings,
+                                      @Nonnull AsyncAppenderSettings asyncSettings) {
+    super(settings, EmptyRecordCache.getInstance(), asyncSettings);
+  }
+
+  @Nonnull
+  @Override
+  public Metrics create() {
+    final MapAppender mapAppender = getMapAppender();
+    if (mapAppender instanceof RecordAppender) {
+      return new CompactMetrics(recordPool.fetch(), (RecordAppender) mapAppender);
+    }
+
+    return super.create(); // shouldn't happen unless appender is overridden
+  }
+}
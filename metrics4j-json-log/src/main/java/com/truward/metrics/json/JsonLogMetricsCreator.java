@@ -3,10 +3,13 @@ package com.truward.metrics.json;
 import com.truward.metrics.Metrics;
 import com.truward.metrics.MetricsCreator;
 import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.json.internal.appender.AsyncMapAppender;
 import com.truward.metrics.json.internal.appender.JacksonMapAppender;
 import com.truward.metrics.json.internal.appender.RollingJacksonMapAppender;
 import com.truward.metrics.json.internal.cache.EmptyRecordCache;
 import com.truward.metrics.json.internal.cache.RecordCache;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.json.settings.RecordFormat;
 import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
 import com.truward.metrics.support.StandardMetrics;
 
@@ -16,6 +19,7 @@ import java.util.Map;
 
 /**
  * Metrics creator that dumps metrics as UTF-8 encoded JSON into the given output stream.
+ * Binary JSON format can be used instead, see {@link RecordFormat}.
  *
  * @author Alexander Shabanov
  */
@@ -29,6 +33,35 @@ public class JsonLogMetricsCreator implements MetricsCreator, Closeable {
     this.recordCache = recordCache;
   }
 
+  /**
+   * Creates metrics creator, that writes metrics into the given output stream from the dedicated writer thread,
+   * so that threads closing metrics instances do not wait for I/O to complete.
+   *
+   * @param outputStream  Target output stream
+   * @param recordCache   Cache of the metrics properties
+   * @param asyncSettings Settings of the asynchronous appender
+   */
+  public JsonLogMetricsCreator(@Nonnull OutputStream outputStream,
+                               @Nonnull RecordCache recordCache,
+                               @Nonnull AsyncAppenderSettings asyncSettings) {
+    this.mapAppender = new AsyncMapAppender(createMapDumper(outputStream, recordCache), recordCache, asyncSettings);
+    this.recordCache = recordCache;
+  }
+
+  /**
+   * Creates metrics creator, that writes metrics into the given output stream in the given format.
+   *
+   * @param outputStream Target output stream
+   * @param recordCache  Cache of the metrics properties
+   * @param recordFormat Encoding of the records
+   */
+  public JsonLogMetricsCreator(@Nonnull OutputStream outputStream,
+                               @Nonnull RecordCache recordCache,
+                               @Nonnull RecordFormat recordFormat) {
+    this.mapAppender = new JacksonMapAppender(outputStream, recordCache, recordFormat);
+    this.recordCache = recordCache;
+  }
+
   public JsonLogMetricsCreator(@Nonnull OutputStream outputStream) {
     this(outputStream, EmptyRecordCache.getInstance());
   }
@@ -50,12 +83,25 @@ public class JsonLogMetricsCreator implements MetricsCreator, Closeable {
     this(settings, EmptyRecordCache.getInstance());
   }
 
+  /**
+   * Creates metrics creator, that writes metrics into the rolling log files from the dedicated writer thread.
+   *
+   * @param settings      Rolling log settings
+   * @param recordCache   Cache of the metrics properties
+   * @param asyncSettings Settings of the asynchronous appender
+   */
+  public JsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings,
+                               @Nonnull RecordCache recordCache,
+                               @Nonnull AsyncAppenderSettings asyncSettings) {
+    this.mapAppender = new AsyncMapAppender(new RollingJacksonMapAppender(settings, recordCache), recordCache,
+        asyncSettings);
+    this.recordCache = recordCache;
+  }
+
   @Nonnull
   @Override
   public Metrics create() {
-    if (mapAppender == null) {
-      throw new IllegalStateException("Can't create metric instance: output stream has been closed");
-    }
+    final MapAppender mapAppender = getMapAppender();
     if (recordCache == null) {
       throw new IllegalStateException("Can't create metric instance: record cache has been discarded");
     }
@@ -70,6 +116,20 @@ public class JsonLogMetricsCreator implements MetricsCreator, Closeable {
     return new StandardMetrics(mapAppender);
   }
 
+  /**
+   * Returns count of metrics records, that have been discarded by the asynchronous appender because of
+   * its back pressure policy.
+   *
+   * @return Count of dropped records, always zero if this metrics creator writes records synchronously
+   */
+  public long getDroppedRecordCount() {
+    final MapAppender appender = mapAppender;
+    if (appender instanceof AsyncMapAppender) {
+      return ((AsyncMapAppender) appender).getDroppedRecordCount();
+    }
+    return 0L;
+  }
+
   /**
    * Closes underlying output stream and writes nulls to all the internal fields.
    * No metrics should be written from any other thread when this object is closed.
@@ -88,6 +148,19 @@ public class JsonLogMetricsCreator implements MetricsCreator, Closeable {
     recordCache = null;
   }
 
+  /**
+   * @return Appender, that writes metrics created by this object
+   * @throws IllegalStateException If this object has been closed
+   */
+  @Nonnull
+  protected final MapAppender getMapAppender() {
+    final MapAppender result = mapAppender;
+    if (result == null) {
+      throw new IllegalStateException("Can't create metric instance: output stream has been closed");
+    }
+    return result;
+  }
+
   // Visible For Tests
   @Nonnull
   protected MapAppender createMapDumper(@Nonnull OutputStream outputStream, @Nonnull RecordCache recordCache) {
@@ -0,0 +1,83 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.json.internal.appender.RawRecordAppender;
+import com.truward.metrics.json.internal.cache.EmptyRecordCache;
+import com.truward.metrics.json.internal.streaming.StreamingJsonMetrics;
+import com.truward.metrics.json.internal.streaming.StreamingRecordWriterPool;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.json.settings.RecordFormat;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+
+/**
+ * Metrics creator that dumps metrics as UTF-8 encoded JSON, just like {@link JsonLogMetricsCreator} does, but
+ * creates metrics which serialize each entry right when it is put into the per-thread byte buffer, so that
+ * no intermediate map is built and closing metrics only appends the ready bytes to the log.
+ * <p>
+ * Unlike map-based metrics, an entry with duplicate name does not replace the previous one: both are written
+ * and the readers keep the last one. Duplicates are still reported.
+ * </p>
+ * <p>
+ * When used with asynchronous appender, serialized record is copied before it is handed over to the writer thread.
+ * Only {@link RecordFormat#JSON} format is supported.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class StreamingJsonLogMetricsCreator extends JsonLogMetricsCreator {
+  private final StreamingRecordWriterPool writerPool = new StreamingRecordWriterPool();
+
+  public StreamingJsonLogMetricsCreator(@Nonnull OutputStream outputStream) {
+    super(outputStream, EmptyRecordCache.getInstance());
+  }
+
+  public StreamingJsonLogMetricsCreator(@Nonnull OutputStream outputStream,
+                                        @Nonnull AsyncAppenderSettings asyncSettings) {
+    super(outputStream, EmptyRecordCache.getInstance(), asyncSettings);
+  }
+
+  public StreamingJsonLogMetricsCreator(@Nonnull File file) throws FileNotFoundException {
+    this(new BufferedOutputStream(new FileOutputStream(file, true), 4096));
+  }
+
+  public StreamingJsonLogMetricsCreator(@Nonnull String fileName) throws FileNotFoundException {
+    this(new File(fileName));
+  }
+
+  public StreamingJsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings) {
+    super(checkRecordFormat(settings), EmptyRecordCache.getInstance());
+  }
+
+  public StreamingJsonLogMetricsCreator(@Nonnull TimeBasedRollingLogSettings settings,
+                                        @Nonnull AsyncAppenderSettings asyncSettings) {
+    super(checkRecordFormat(settings), EmptyRecordCache.getInstance(), asyncSettings);
+  }
+
+  @Nonnull
+  @Override
+  public Metrics create() {
+    final MapAppender mapAppender = getMapAppender();
+    if (mapAppender instanceof RawRecordAppender) {
+      return new StreamingJsonMetrics(writerPool, (RawRecordAppender) mapAppender);
+    }
+
+    return super.create(); // shouldn't happen unless appender is overridden
+  }
+
+  //
+  // Private
+  //
+
+  @Nonnull
+  private static TimeBasedRollingLogSettings checkRecordFormat(@Nonnull TimeBasedRollingLogSettings settings) {
+    if (settings.getRecordFormat() != RecordFormat.JSON) {
+      throw new IllegalArgumentException("Streaming metrics can't be written in " + settings.getRecordFormat() +
+          " format");
+    }
+    return settings;
+  }
+}
@@ -2,33 +2,50 @@ package com.truward.metrics.json.internal.appender;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.truward.metrics.appender.MapAppender;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.truward.metrics.appender.RecordAppender;
 import com.truward.metrics.json.internal.cache.RecordCache;
+import com.truward.metrics.json.settings.RecordFormat;
+import com.truward.metrics.support.MetricsRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
 
 /**
  * @author Alexander Shabanov
  */
-public abstract class AbstractJacksonMapAppender implements MapAppender {
-  protected final JsonFactory factory = new JsonFactory();
+public abstract class AbstractJacksonMapAppender implements RecordAppender, RawRecordAppender {
+  protected final JsonFactory factory;
+  protected final RecordFormat recordFormat;
   protected final RecordCache recordCache;
   protected final Object lock = new Object();
   protected final Logger log = LoggerFactory.getLogger(getClass());
   private volatile boolean closed = false;
 
-  public AbstractJacksonMapAppender(@Nonnull RecordCache recordCache) {
+  // serialization state, access is synchronized
+  private final RecordBuffer recordBuffer = new RecordBuffer();
+  private final JacksonValueWriter valueWriter = new JacksonValueWriter();
+  private JsonGenerator generator;
+  private boolean segmentWritten; // true, if Smile segment has been written into the current stream
+
+  public AbstractJacksonMapAppender(@Nonnull RecordCache recordCache, @Nonnull RecordFormat recordFormat) {
+    this.recordFormat = recordFormat;
+    this.factory = createFactory(recordFormat);
     this.factory.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false); // do not automatically close output stream
     this.recordCache = recordCache;
   }
 
+  public AbstractJacksonMapAppender(@Nonnull RecordCache recordCache) {
+    this(recordCache, RecordFormat.JSON);
+  }
+
   @Nonnull
   protected abstract OutputStream getOutputStream();
 
@@ -43,8 +60,49 @@ public abstract class AbstractJacksonMapAppender implements MapAppender {
 
   protected abstract void onClose() throws IOException;
 
+  /**
+   * Called under lock after each record is written into the output stream.
+   * Flushes the stream by default, appenders, that buffer output, might defer flushing.
+   *
+   * @param outputStream Stream, returned by {@link #getOutputStream()}
+   * @throws IOException On I/O error
+   */
+  protected void onRecordWritten(@Nonnull OutputStream outputStream) throws IOException {
+    outputStream.flush();
+  }
+
+  /**
+   * Discards current generator, so that the next record is written by the new one. In {@link RecordFormat#SMILE}
+   * format the next record starts new segment, that doesn't reference names and values of the preceding records.
+   * Should be called under lock.
+   *
+   * @param newStream True, if the next record is written into the new output stream
+   */
+  protected final void resetGenerator(boolean newStream) {
+    generator = null;
+    if (newStream) {
+      segmentWritten = false;
+    }
+  }
+
   @Override
   public final void write(@Nonnull Map<String, Object> properties) {
+    writeEntry(properties, null);
+    recordCache.take(properties);
+  }
+
+  @Override
+  public final void write(@Nonnull MetricsRecord record) {
+    writeEntry(null, record);
+    record.recycle();
+  }
+
+  @Override
+  public final void writeRaw(@Nonnull byte[] buffer, int offset, int length) {
+    if (recordFormat != RecordFormat.JSON) {
+      throw new IllegalStateException("Raw JSON records can't be written in " + recordFormat + " format");
+    }
+
     onWritePrepare();
     synchronized (lock) {
       if (closed) {
@@ -54,21 +112,14 @@ public abstract class AbstractJacksonMapAppender implements MapAppender {
       onWriteStart();
       try {
         final OutputStream outputStream = getOutputStream();
-
-        // write json and close json generator
-        try (final JsonGenerator generator = factory.createGenerator(outputStream)) {
-          writeValue(generator, properties);
-        }
-        // write newline separator after written json entry, must be done after json generator is closed
-        outputStream.write('\n');
+        outputStream.write(buffer, offset, length);
+        onRecordWritten(outputStream);
       } catch (IOException e) {
-        log.error("Error while writing map={}", properties, e);
+        log.error("Error while writing record of {} byte(s)", length, e);
       } finally {
         onWriteEnd();
       }
     }
-
-    recordCache.take(properties);
   }
 
   @Override
@@ -94,94 +145,87 @@ public abstract class AbstractJacksonMapAppender implements MapAppender {
     }
   }
 
-  private static void writeMap(@Nonnull JsonGenerator jg, @Nonnull Map<String, Object> map) throws IOException {
-    jg.writeStartObject();
-
-    for (final Map.Entry<String, Object> entry : map.entrySet()) {
-      final String key = entry.getKey();
-      final Object value = entry.getValue();
-      if (entry.getKey() == null) {
-        throw new IllegalStateException("Metric key name is null");
+  /**
+   * Writes either properties map or metrics record, exactly one of these arguments should be non-null.
+   */
+  private void writeEntry(@Nullable Map<String, Object> properties, @Nullable MetricsRecord record) {
+    onWritePrepare();
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("Unable to write: object has been already closed");
       }
 
-      if (value == null) {
-        continue;
-      }
+      onWriteStart();
+      boolean recordWritten = false;
+      try {
+        final OutputStream outputStream = getOutputStream();
 
-      jg.writeFieldName(key);
-      writeValue(jg, value);
+        // serialize json into the record buffer and write it along with newline separator by using single call
+        final JsonGenerator jg = getGenerator();
+        if (record != null) {
+          valueWriter.writeRecord(jg, record);
+        } else {
+          assert properties != null;
+          valueWriter.writeMap(jg, properties);
+        }
+        jg.flush();
+        if (recordFormat == RecordFormat.JSON) {
+          recordBuffer.write('\n');
+        }
+        recordBuffer.writeTo(outputStream);
+        onRecordWritten(outputStream);
+        recordWritten = true;
+      } catch (IOException e) {
+        log.error("Error while writing map={}", record != null ? record : properties, e);
+      } finally {
+        if (!recordWritten) {
+          generator = null; // generator state is undefined, discard it
+        }
+        recordBuffer.reset();
+        onWriteEnd();
+      }
     }
-
-    jg.writeEndObject();
   }
 
-  private static void writeValue(@Nonnull JsonGenerator jg, @Nonnull Object val) throws IOException {
-    if (val instanceof String) {
-      jg.writeString((String) val);
-      return;
-    }
-
-    if (val instanceof Long) {
-      jg.writeNumber((Long) val);
-      return;
-    }
-
-    if (val instanceof Integer) {
-      jg.writeNumber((Integer) val);
-      return;
-    }
-
-    if (val instanceof Boolean) {
-      jg.writeBoolean((Boolean) val);
-      return;
-    }
-
-    if (val instanceof Short) {
-      jg.writeNumber((Short) val);
-      return;
-    }
-
-    if (val instanceof Float) {
-      jg.writeNumber((Float) val);
-      return;
-    }
-
-    if (val instanceof Double) {
-      jg.writeNumber((Double) val);
-      return;
-    }
-
-    if (val instanceof BigDecimal) {
-      jg.writeNumber((BigDecimal) val);
-      return;
-    }
-
-    final Class<?> valClass = val.getClass();
-
-    if (Map.class.isAssignableFrom(valClass)) {
-      // make sure keys are all strings
-      final Map<?, ?> valMap = (Map<?, ?>) val;
-      for (final Object keyObject : valMap.keySet()) {
-        if (keyObject instanceof String) {
-          continue;
+  /**
+   * Returns long-lived generator, which writes into the record buffer.
+   * Generator is reused for subsequent records, so its internal buffers and state are not allocated per record.
+   */
+  @Nonnull
+  private JsonGenerator getGenerator() throws IOException {
+    JsonGenerator result = generator;
+    if (result == null) {
+      if (recordFormat == RecordFormat.SMILE) {
+        if (segmentWritten) {
+          recordBuffer.write(SmileConstants.BYTE_MARKER_END_OF_CONTENT); // end of the previous segment
         }
-        throw new IllegalArgumentException("Map " + valMap + " contains non-string key");
+        segmentWritten = true;
+        result = factory.createGenerator(recordBuffer); // writes header of the new segment
+      } else {
+        result = factory.createGenerator(recordBuffer);
+        result.setRootValueSeparator(null); // records are separated by newline which is written explicitly
       }
-
-      //noinspection unchecked
-      writeMap(jg, (Map<String, Object>) val);
-      return;
+      generator = result;
     }
+    return result;
+  }
 
-    if (List.class.isAssignableFrom(valClass)) {
-      jg.writeStartArray();
-      for (final Object value : (List<?>) val) {
-        writeValue(jg, value);
-      }
-      jg.writeEndArray();
-      return;
+  @Nonnull
+  private static JsonFactory createFactory(@Nonnull RecordFormat recordFormat) {
+    switch (recordFormat) {
+      case JSON:
+        return new JsonFactory();
+
+      case SMILE:
+        final SmileFactory smileFactory = new SmileFactory();
+        // back-references may contain 0xFF byte, which is reserved for the end of the segment, see SmileMetricsReader
+        smileFactory.configure(SmileGenerator.Feature.CHECK_SHARED_NAMES, false);
+        smileFactory.configure(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES, false);
+        smileFactory.configure(SmileGenerator.Feature.WRITE_END_MARKER, false); // written explicitly
+        return smileFactory;
+
+      default:
+        throw new IllegalArgumentException("Unknown recordFormat=" + recordFormat);
     }
-
-    throw new UnsupportedOperationException("Unsupported value: " + val);
   }
 }
@@ -0,0 +1,298 @@
+package com.truward.metrics.json.internal.appender;
+
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.appender.RecordAppender;
+import com.truward.metrics.json.internal.cache.RecordCache;
+import com.truward.metrics.json.internal.concurrent.BoundedRingBuffer;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.json.settings.BackPressurePolicy;
+import com.truward.metrics.support.MetricsRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appender, that puts records into the bounded lock-free buffer which is drained by the dedicated writer thread,
+ * so threads that write metrics never wait for the underlying appender to complete I/O.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class AsyncMapAppender implements RecordAppender, RawRecordAppender {
+  private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+  private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50L);
+  private static final int WRITER_SPIN_COUNT = 100;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final MapAppender delegate;
+  private final RecordCache recordCache;
+  private final BoundedRingBuffer<Object> buffer; // holds properties maps, metrics records or serialized records
+  private final BackPressurePolicy backPressurePolicy;
+  private final long shutdownTimeoutMillis;
+  private final Thread writerThread;
+  private final AtomicLong droppedRecordCount = new AtomicLong();
+
+  private volatile boolean closed = false;
+  private volatile boolean stopped = false; // writer thread should not write pending records
+  private volatile boolean writerParked = false;
+
+  public AsyncMapAppender(@Nonnull MapAppender delegate,
+                          @Nonnull RecordCache recordCache,
+                          @Nonnull AsyncAppenderSettings settings) {
+    this.delegate = delegate;
+    this.recordCache = recordCache;
+    this.buffer = new BoundedRingBuffer<>(settings.getBufferSize());
+    this.backPressurePolicy = settings.getBackPressurePolicy();
+    this.shutdownTimeoutMillis = settings.getShutdownTimeoutMillis();
+
+    this.writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        drainLoop();
+      }
+    }, settings.getThreadName());
+    this.writerThread.setDaemon(true);
+    this.writerThread.start();
+  }
+
+  /**
+   * @return Count of records discarded because of the back pressure policy or because of close timeout
+   */
+  public long getDroppedRecordCount() {
+    return droppedRecordCount.get();
+  }
+
+  /**
+   * @return Approximate count of records waiting to be written
+   */
+  public int getPendingRecordCount() {
+    return buffer.size();
+  }
+
+  @Override
+  public void write(@Nonnull Map<String, Object> properties) {
+    enqueue(properties);
+  }
+
+  /**
+   * Enqueues the given record. If underlying appender is not a {@link RecordAppender}, record is converted to map
+   * by the writer thread.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(@Nonnull MetricsRecord record) {
+    enqueue(record);
+  }
+
+  /**
+   * Enqueues a copy of the given record bytes, as the caller is free to reuse the given array.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeRaw(@Nonnull byte[] buffer, int offset, int length) {
+    enqueue(Arrays.copyOfRange(buffer, offset, offset + length));
+  }
+
+  @Override
+  public void reportDuplicateEntry(@Nonnull Map<String, Object> source, @Nonnull String key) {
+    delegate.reportDuplicateEntry(source, key);
+  }
+
+  /**
+   * Stops accepting new records, waits until writer thread writes pending records and then closes
+   * the underlying appender. If pending records are not written in the shutdown timeout, writer thread is stopped
+   * and records, that are not written yet, are counted as dropped.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Already closed");
+    }
+    closed = true;
+
+    LockSupport.unpark(writerThread);
+    joinWriterThread();
+
+    if (writerThread.isAlive()) {
+      log.error("Writer thread has not completed in {} msec, pending records will be discarded",
+          shutdownTimeoutMillis);
+      stopped = true;
+      writerThread.interrupt();
+      for (Object entry = buffer.poll(); entry != null; entry = buffer.poll()) {
+        drop(entry);
+      }
+
+      joinWriterThread(); // let writer thread complete the record it is writing
+      if (writerThread.isAlive()) {
+        log.error("Writer thread has not stopped in {} msec, underlying appender is closed anyway",
+            shutdownTimeoutMillis);
+      }
+    }
+
+    // records, enqueued by the producers, which have passed closed check before the writer thread has exited
+    for (Object entry = buffer.poll(); entry != null; entry = buffer.poll()) {
+      if (stopped) {
+        drop(entry);
+      } else {
+        writeToDelegate(entry);
+      }
+    }
+
+    delegate.close();
+  }
+
+  //
+  // Private
+  //
+
+  private void joinWriterThread() {
+    try {
+      writerThread.join(shutdownTimeoutMillis);
+    } catch (InterruptedException e) {
+      log.error("Waiting for writer thread to complete has been interrupted", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void enqueue(@Nonnull Object entry) {
+    if (closed) {
+      throw new IllegalStateException("Unable to write: object has been already closed");
+    }
+
+    if (!buffer.offer(entry)) {
+      switch (backPressurePolicy) {
+        case BLOCK:
+          offerBlocking(entry);
+          break;
+
+        case DROP_OLDEST:
+          offerDroppingOldest(entry);
+          break;
+
+        case DROP_NEWEST:
+          drop(entry);
+          return;
+
+        default:
+          throw new IllegalStateException("Unknown backPressurePolicy=" + backPressurePolicy); // shouldn't happen
+      }
+    }
+
+    if (closed && (stopped || !writerThread.isAlive())) {
+      // entry might have been enqueued after appender has been closed, so that nobody would write it
+      for (Object pending = buffer.poll(); pending != null; pending = buffer.poll()) {
+        drop(pending);
+      }
+      return;
+    }
+
+    if (writerParked) {
+      LockSupport.unpark(writerThread);
+    }
+  }
+
+  private void offerBlocking(@Nonnull Object entry) {
+    while (!buffer.offer(entry)) {
+      if (closed) {
+        drop(entry);
+        return;
+      }
+
+      LockSupport.unpark(writerThread);
+      LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+    }
+  }
+
+  private void offerDroppingOldest(@Nonnull Object entry) {
+    while (!buffer.offer(entry)) {
+      final Object oldest = buffer.poll();
+      if (oldest != null) {
+        drop(oldest);
+      }
+    }
+  }
+
+  private void drop(@Nonnull Object entry) {
+    droppedRecordCount.incrementAndGet();
+    if (entry instanceof MetricsRecord) {
+      ((MetricsRecord) entry).recycle();
+    } else if (entry instanceof Map) {
+      @SuppressWarnings("unchecked") final Map<String, Object> properties = (Map<String, Object>) entry;
+      recordCache.take(properties);
+    } // serialized records are not reused
+  }
+
+  private void drainLoop() {
+    int idleCount = 0;
+    // interruption flag might be cleared by the underlying appender, so that stop flag is checked as well
+    while (!stopped && !Thread.currentThread().isInterrupted()) {
+      final Object entry = buffer.poll();
+      if (entry != null) {
+        idleCount = 0;
+        writeToDelegate(entry);
+        continue;
+      }
+
+      if (closed) {
+        if (buffer.isEmpty()) {
+          return; // all the pending records have been written
+        }
+        continue;
+      }
+
+      if (++idleCount < WRITER_SPIN_COUNT) {
+        Thread.yield();
+        continue;
+      }
+
+      // nothing to write, wait until producer wakes up this thread
+      writerParked = true;
+      if (buffer.isEmpty() && !closed) {
+        LockSupport.parkNanos(this, WRITER_PARK_NANOS);
+      }
+      writerParked = false;
+    }
+
+    // writer thread has been stopped, count records that won't be written
+    for (Object entry = buffer.poll(); entry != null; entry = buffer.poll()) {
+      drop(entry);
+    }
+  }
+
+  private void writeToDelegate(@Nonnull Object entry) {
+    try {
+      if (entry instanceof MetricsRecord) {
+        final MetricsRecord record = (MetricsRecord) entry;
+        if (delegate instanceof RecordAppender) {
+          ((RecordAppender) delegate).write(record);
+        } else {
+          delegate.write(record.toMap());
+          record.recycle();
+        }
+      } else if (entry instanceof byte[]) {
+        final byte[] bytes = (byte[]) entry;
+        if (delegate instanceof RawRecordAppender) {
+          ((RawRecordAppender) delegate).writeRaw(bytes, 0, bytes.length);
+        } else {
+          log.error("Unable to write serialized record: appender {} doesn't accept serialized records", delegate);
+        }
+      } else {
+        @SuppressWarnings("unchecked") final Map<String, Object> properties = (Map<String, Object>) entry;
+        delegate.write(properties);
+      }
+    } catch (RuntimeException e) {
+      log.error("Error while writing map={}", entry, e);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.truward.metrics.json.internal.appender;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.truward.metrics.PredefinedMetricNames;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of pre-encoded field names, so that JSON generator does not need to quote and encode the same names
+ * over and over again.
+ * Cache is bounded, names which do not fit into the cache are not cached.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class FieldNameCache {
+  /**
+   * Default maximum count of cached names.
+   */
+  public static final int DEFAULT_MAX_SIZE = 512;
+
+  /**
+   * Names longer than this are not cached, it is unlikely that such names are repeated.
+   */
+  private static final int MAX_NAME_LENGTH = 64;
+
+  private final Map<String, SerializableString> names;
+  private final int maxSize;
+
+  public FieldNameCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize should be greater than zero");
+    }
+
+    this.maxSize = maxSize;
+    this.names = new HashMap<>(Math.min(maxSize, 64) * 2);
+
+    // predefined names are used in almost every record
+    get(PredefinedMetricNames.ORIGIN);
+    get(PredefinedMetricNames.START_TIME);
+    get(PredefinedMetricNames.TIME_DELTA);
+    get(PredefinedMetricNames.SUCCEEDED);
+  }
+
+  public FieldNameCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Returns pre-encoded field name.
+   *
+   * @param name Field name
+   * @return Cached pre-encoded name or null if this name can't be put into the cache
+   */
+  @Nullable
+  public SerializableString get(@Nonnull String name) {
+    SerializableString result = names.get(name);
+    if (result == null && names.size() < maxSize && name.length() <= MAX_NAME_LENGTH) {
+      result = new SerializedString(name);
+      names.put(name, result);
+    }
+    return result;
+  }
+}
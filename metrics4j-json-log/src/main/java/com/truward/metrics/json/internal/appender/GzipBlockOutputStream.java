@@ -0,0 +1,163 @@
+package com.truward.metrics.json.internal.appender;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream, that buffers written bytes and writes them to the target stream as independent gzip members, when
+ * {@link #finishBlock()} is called. Concatenation of the members is a valid gzip stream, each member can be
+ * decompressed on its own. Each member is written to the target stream by the single call.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class GzipBlockOutputStream extends OutputStream {
+  private static final byte[] GZIP_HEADER = {
+      0x1f, (byte) 0x8b, // magic
+      Deflater.DEFLATED, // compression method
+      0, // flags
+      0, 0, 0, 0, // modification time
+      0, // extra flags
+      (byte) 0xff // unknown OS
+  };
+  private static final int GZIP_TRAILER_SIZE = 8;
+
+  private final OutputStream target;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final CRC32 crc = new CRC32();
+  private byte[] block;
+  private int blockLength;
+  private byte[] member;
+  private long compressedLength;
+  private boolean closed;
+
+  public GzipBlockOutputStream(@Nonnull OutputStream target, int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("blockSize should be greater than zero");
+    }
+
+    this.target = target;
+    this.block = new byte[blockSize];
+    this.member = new byte[blockSize / 2 + GZIP_HEADER.length + GZIP_TRAILER_SIZE];
+  }
+
+  /**
+   * @return Count of bytes in the current block
+   */
+  public int getBlockLength() {
+    return blockLength;
+  }
+
+  /**
+   * @return Count of bytes written to the target stream, i.e. offset of the next gzip member
+   */
+  public long getCompressedLength() {
+    return compressedLength;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureCapacity(1);
+    block[blockLength++] = (byte) b;
+  }
+
+  @Override
+  public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+    ensureCapacity(len);
+    System.arraycopy(b, off, block, blockLength, len);
+    blockLength += len;
+  }
+
+  /**
+   * Compresses current block and writes it as gzip member to the target stream, does nothing if block is empty.
+   *
+   * @throws IOException On I/O error
+   */
+  public void finishBlock() throws IOException {
+    if (blockLength == 0) {
+      return;
+    }
+
+    crc.reset();
+    crc.update(block, 0, blockLength);
+    deflater.reset();
+    deflater.setInput(block, 0, blockLength);
+    deflater.finish();
+
+    System.arraycopy(GZIP_HEADER, 0, member, 0, GZIP_HEADER.length);
+    int memberLength = GZIP_HEADER.length;
+    while (!deflater.finished()) {
+      if (memberLength == member.length) {
+        member = Arrays.copyOf(member, member.length * 2);
+      }
+      memberLength += deflater.deflate(member, memberLength, member.length - memberLength);
+    }
+
+    if (memberLength + GZIP_TRAILER_SIZE > member.length) {
+      member = Arrays.copyOf(member, memberLength + GZIP_TRAILER_SIZE);
+    }
+    memberLength = writeIntLE(member, memberLength, (int) crc.getValue());
+    memberLength = writeIntLE(member, memberLength, blockLength); // uncompressed size
+
+    target.write(member, 0, memberLength);
+    compressedLength += memberLength;
+    blockLength = 0;
+  }
+
+  /**
+   * Flushes target stream, current block is not compressed.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void flush() throws IOException {
+    target.flush();
+  }
+
+  /**
+   * Writes the last block and closes target stream.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    try {
+      finishBlock();
+    } finally {
+      deflater.end();
+      target.close();
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void ensureCapacity(int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+
+    if (blockLength + len > block.length) {
+      block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + len)); // record is larger than block
+    }
+  }
+
+  private static int writeIntLE(@Nonnull byte[] arr, int pos, int value) {
+    arr[pos] = (byte) value;
+    arr[pos + 1] = (byte) (value >>> 8);
+    arr[pos + 2] = (byte) (value >>> 16);
+    arr[pos + 3] = (byte) (value >>> 24);
+    return pos + 4;
+  }
+}
@@ -1,6 +1,7 @@
 package com.truward.metrics.json.internal.appender;
 
 import com.truward.metrics.json.internal.cache.RecordCache;
+import com.truward.metrics.json.settings.RecordFormat;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -8,7 +9,7 @@ import java.io.OutputStream;
 
 /**
  * Jackson-based map appender.
- * UTF-8 encoding is used to write JSON values to the underlying output stream.
+ * UTF-8 encoding is used to write JSON values to the underlying output stream, unless binary format is used.
  * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
  *
  * @author Alexander Shabanov
@@ -16,11 +17,16 @@ import java.io.OutputStream;
 public final class JacksonMapAppender extends AbstractJacksonMapAppender {
   private OutputStream outputStream;
 
-  public JacksonMapAppender(@Nonnull OutputStream outputStream, @Nonnull RecordCache recordCache) {
-    super(recordCache);
+  public JacksonMapAppender(@Nonnull OutputStream outputStream, @Nonnull RecordCache recordCache,
+                            @Nonnull RecordFormat recordFormat) {
+    super(recordCache, recordFormat);
     this.outputStream = outputStream;
   }
 
+  public JacksonMapAppender(@Nonnull OutputStream outputStream, @Nonnull RecordCache recordCache) {
+    this(outputStream, recordCache, RecordFormat.JSON);
+  }
+
   @Nonnull
   @Override
   protected OutputStream getOutputStream() {
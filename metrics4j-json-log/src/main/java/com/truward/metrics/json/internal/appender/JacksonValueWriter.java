@@ -0,0 +1,201 @@
+package com.truward.metrics.json.internal.appender;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.truward.metrics.support.MetricsRecord;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes metrics values by using the given JSON generator.
+ * Field names are written by using pre-encoded names from the associated {@link FieldNameCache}.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class JacksonValueWriter {
+  private final FieldNameCache fieldNames = new FieldNameCache();
+  private final char[] charBuffer = new char[1];
+
+  /**
+   * Writes metrics record directly from its primitive slots, without boxing its values.
+   */
+  public void writeRecord(@Nonnull JsonGenerator jg, @Nonnull MetricsRecord record) throws IOException {
+    jg.writeStartObject();
+
+    for (int i = 0; i < record.size(); ++i) {
+      final byte type = record.getType(i);
+      if (type == MetricsRecord.TYPE_OBJECT && record.getObject(i) == null) {
+        continue;
+      }
+
+      writeFieldName(jg, record.getName(i));
+      switch (type) {
+        case MetricsRecord.TYPE_BOOLEAN:
+          jg.writeBoolean(record.getLong(i) != 0L);
+          break;
+
+        case MetricsRecord.TYPE_CHAR:
+          writeChar(jg, (char) record.getLong(i));
+          break;
+
+        case MetricsRecord.TYPE_INT:
+          jg.writeNumber((int) record.getLong(i));
+          break;
+
+        case MetricsRecord.TYPE_LONG:
+          jg.writeNumber(record.getLong(i));
+          break;
+
+        case MetricsRecord.TYPE_FLOAT:
+          jg.writeNumber((float) record.getDouble(i));
+          break;
+
+        case MetricsRecord.TYPE_DOUBLE:
+          jg.writeNumber(record.getDouble(i));
+          break;
+
+        default:
+          final Object value = record.getObject(i);
+          assert value != null;
+          writeValue(jg, value);
+      }
+    }
+
+    jg.writeEndObject();
+  }
+
+  /**
+   * Writes field name, pre-encoded name is used if it is available in the cache.
+   */
+  public void writeFieldName(@Nonnull JsonGenerator jg, @Nonnull String name) throws IOException {
+    final SerializableString encodedName = fieldNames.get(name);
+    if (encodedName != null) {
+      jg.writeFieldName(encodedName);
+    } else {
+      jg.writeFieldName(name);
+    }
+  }
+
+  /**
+   * Writes char as a single-character string.
+   */
+  public void writeChar(@Nonnull JsonGenerator jg, char value) throws IOException {
+    charBuffer[0] = value;
+    jg.writeString(charBuffer, 0, 1);
+  }
+
+  /**
+   * Writes map as JSON object, entries with null values are skipped.
+   */
+  public void writeMap(@Nonnull JsonGenerator jg, @Nonnull Map<String, Object> map) throws IOException {
+    jg.writeStartObject();
+
+    for (final Map.Entry<String, Object> entry : map.entrySet()) {
+      final String key = entry.getKey();
+      final Object value = entry.getValue();
+      if (entry.getKey() == null) {
+        throw new IllegalStateException("Metric key name is null");
+      }
+
+      if (value == null) {
+        continue;
+      }
+
+      writeFieldName(jg, key);
+      writeValue(jg, value);
+    }
+
+    jg.writeEndObject();
+  }
+
+  /**
+   * Writes value of any type, supported by {@link com.truward.metrics.Metrics}.
+   *
+   * @throws UnsupportedOperationException If value type is not supported
+   */
+  public void writeValue(@Nonnull JsonGenerator jg, @Nonnull Object val) throws IOException {
+    if (val instanceof String) {
+      jg.writeString((String) val);
+      return;
+    }
+
+    if (val instanceof Long) {
+      jg.writeNumber((Long) val);
+      return;
+    }
+
+    if (val instanceof Integer) {
+      jg.writeNumber((Integer) val);
+      return;
+    }
+
+    if (val instanceof Boolean) {
+      jg.writeBoolean((Boolean) val);
+      return;
+    }
+
+    if (val instanceof Short) {
+      jg.writeNumber((Short) val);
+      return;
+    }
+
+    if (val instanceof Float) {
+      jg.writeNumber((Float) val);
+      return;
+    }
+
+    if (val instanceof Double) {
+      jg.writeNumber((Double) val);
+      return;
+    }
+
+    if (val instanceof BigDecimal) {
+      jg.writeNumber((BigDecimal) val);
+      return;
+    }
+
+    if (val instanceof Character) {
+      writeChar(jg, (Character) val);
+      return;
+    }
+
+    if (val instanceof CharSequence) {
+      jg.writeString(val.toString());
+      return;
+    }
+
+    final Class<?> valClass = val.getClass();
+
+    if (Map.class.isAssignableFrom(valClass)) {
+      // make sure keys are all strings
+      final Map<?, ?> valMap = (Map<?, ?>) val;
+      for (final Object keyObject : valMap.keySet()) {
+        if (keyObject instanceof String) {
+          continue;
+        }
+        throw new IllegalArgumentException("Map " + valMap + " contains non-string key");
+      }
+
+      //noinspection unchecked
+      writeMap(jg, (Map<String, Object>) val);
+      return;
+    }
+
+    if (List.class.isAssignableFrom(valClass)) {
+      jg.writeStartArray();
+      for (final Object value : (List<?>) val) {
+        writeValue(jg, value);
+      }
+      jg.writeEndArray();
+      return;
+    }
+
+    throw new UnsupportedOperationException("Unsupported value: " + val);
+  }
+}
@@ -0,0 +1,24 @@
+package com.truward.metrics.json.internal.appender;
+
+import com.truward.metrics.appender.MapAppender;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents an appender, that accepts metrics records which have already been serialized.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public interface RawRecordAppender extends MapAppender {
+
+  /**
+   * Writes bytes of a single serialized record as is.
+   * Appender does not retain the given array, so the caller may reuse it once this method returns.
+   *
+   * @param buffer Array, that holds serialized record, including trailing newline separator
+   * @param offset Offset of the record in the given array
+   * @param length Count of bytes in the record
+   */
+  void writeRaw(@Nonnull byte[] buffer, int offset, int length);
+}
@@ -0,0 +1,111 @@
+package com.truward.metrics.json.internal.appender;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Unsynchronized, reusable in-memory output stream that accumulates bytes of a single record.
+ * Unlike {@link java.io.ByteArrayOutputStream} it gives direct access to the accumulated bytes and releases
+ * the internal array once it grows too large, so that a single huge record does not pin memory forever.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class RecordBuffer extends OutputStream {
+  /**
+   * Default initial size of the buffer, 1 Kilobyte.
+   */
+  public static final int DEFAULT_INITIAL_SIZE = 1024;
+
+  /**
+   * Default maximum size of the buffer retained between the records, 64 Kilobytes.
+   */
+  public static final int DEFAULT_MAX_RETAINED_SIZE = 64 * 1024;
+
+  private final int initialSize;
+  private final int maxRetainedSize;
+  private byte[] buffer;
+  private int count;
+
+  public RecordBuffer(int initialSize, int maxRetainedSize) {
+    if (initialSize <= 0) {
+      throw new IllegalArgumentException("initialSize should be greater than zero");
+    }
+
+    if (maxRetainedSize < initialSize) {
+      throw new IllegalArgumentException("maxRetainedSize can't be less than initialSize");
+    }
+
+    this.initialSize = initialSize;
+    this.maxRetainedSize = maxRetainedSize;
+    this.buffer = new byte[initialSize];
+  }
+
+  public RecordBuffer() {
+    this(DEFAULT_INITIAL_SIZE, DEFAULT_MAX_RETAINED_SIZE);
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(count + 1);
+    buffer[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(@Nonnull byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    ensureCapacity(count + len);
+    System.arraycopy(b, off, buffer, count, len);
+    count += len;
+  }
+
+  /**
+   * Writes accumulated bytes to the given stream with a single write call.
+   *
+   * @param outputStream Target output stream
+   * @throws IOException On I/O error
+   */
+  public void writeTo(@Nonnull OutputStream outputStream) throws IOException {
+    outputStream.write(buffer, 0, count);
+  }
+
+  /**
+   * @return Internal array, that holds {@link #size()} accumulated bytes
+   */
+  @Nonnull
+  public byte[] array() {
+    return buffer;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Discards accumulated bytes and releases internal array if it has grown beyond maximum retained size.
+   */
+  public void reset() {
+    count = 0;
+    if (buffer.length > maxRetainedSize) {
+      buffer = new byte[initialSize];
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void ensureCapacity(int minCapacity) {
+    if (minCapacity > buffer.length) {
+      if (minCapacity < 0) {
+        throw new OutOfMemoryError("Record is too large");
+      }
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, minCapacity));
+    }
+  }
+}
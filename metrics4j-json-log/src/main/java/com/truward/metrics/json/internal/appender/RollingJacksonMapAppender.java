@@ -1,8 +1,13 @@
 package com.truward.metrics.json.internal.appender;
 
 import com.truward.metrics.json.internal.cache.RecordCache;
+import com.truward.metrics.json.internal.index.LogIndexFormat;
+import com.truward.metrics.json.internal.index.LogIndexWriter;
+import com.truward.metrics.json.reader.LogIndex;
+import com.truward.metrics.json.reader.RolledLogFile;
 import com.truward.metrics.time.TimeService;
 import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.RecordFormat;
 import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
 
 import javax.annotation.Nonnull;
@@ -11,7 +16,19 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -19,70 +36,178 @@ import java.util.zip.ZipOutputStream;
 /**
  * Appender, that takes into an account time-based rolling settings,
  * see {@link com.truward.metrics.json.settings.TimeBasedRollingLogSettings}.
+ * <p>
+ * If enabled in settings, sparse index is written alongside each log file, see {@link LogIndex}. When indexed file
+ * is compressed by gzip, each indexed part of the file is compressed as a separate gzip member and index of
+ * the compressed file is written, so that compressed file can be read starting from any index entry.
+ * </p>
+ * <p>
+ * If block compression is enabled, log file is compressed while being written, block by block, see
+ * {@link GzipBlockOutputStream}, and index entry is written for each block.
+ * </p>
+ * <p>
+ * If rolling is aligned, the end of the current interval is precomputed, so that writer only compares it with
+ * the current time. Logs are rolled by the scheduler thread at the interval end, which also resolves the name of
+ * the next file in advance, writer rolls log itself only if the scheduler is late.
+ * </p>
+ * <p>
+ * Log is also rolled, if its size or count of records exceeds the limit given in settings. If retention policy
+ * is set, the oldest rolled files are deleted in the background after each roll.
+ * </p>
+ * <p>
+ * If output buffering is enabled, records are not flushed one by one, but are accumulated in the buffer,
+ * which is written into the file when it is full or by the flusher thread after the flush interval, so that
+ * many records are written by a single system call.
+ * </p>
  * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
  *
  * @author Alexander Shabanov
  */
 public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender {
   public static final int DEFAULT_BUFFER_SIZE = 4096;
-  private static final String DEFAULT_DATE_TIME_SUFFIX = "yyyy-MM-dd_HH_mm_ss";
-  private static final long MAX_COMPRESSION_THREAD_WAIT_TIME = 500L;
 
   // mutable class state
   private volatile File currentFile;
   private volatile OutputStream currentStream;
-  private volatile Thread currentCompressingThread;
   private long now;
   private volatile long lastTimeMillis;
 
+  // index state of the current file, index writer is null if index is not written
+  private volatile LogIndexWriter currentIndexWriter;
+  private CountingOutputStream countingStream; // null if block compression is used
+  private GzipBlockOutputStream blockStream; // null if block compression is not used
+  private long maxWriteTimeMillis;
+  private int recordsInFile;
+  private boolean flushPending; // true, if buffered records have not been flushed yet
+  private int recordsSinceIndexEntry;
+  private long lastIndexEntryOffset;
+
+  // aligned rolling state
+  private volatile long nextRollTimeMillis;
+  private File nextFile; // file of the current interval, resolved by the scheduler, access is synchronized
+
   // immutable variables
   private final TimeBasedRollingLogSettings settings;
+  private final int indexRecordInterval;
+  private final long indexByteInterval;
+  private final int compressionBlockSize;
   private final long maxTimeDeltaMillis;
   private final Compressor compressor;
   private final String compressedFileSuffix;
   private final String tempCompressedFileSuffix;
   private final TimeService timeService;
   private final DateFormat dateFormat; // access is synchronized
+  private final ExecutorService compressionExecutor; // null if compression is not needed
+  private final ScheduledExecutorService rollScheduler; // null if rolling is not aligned
+  private final TimeZone timeZone;
+  private final DateFormat schedulerDateFormat; // accessed by the scheduler thread only
+  private final ExecutorService retentionExecutor; // null if retention is disabled, might be compression executor
+  private final Object retentionLock = new Object();
+  private final ScheduledExecutorService flushScheduler; // null if output is not buffered
 
   public RollingJacksonMapAppender(@Nonnull TimeBasedRollingLogSettings settings,
                                    @Nonnull RecordCache recordCache) {
-    super(recordCache);
+    super(recordCache, settings.getRecordFormat());
     this.settings = settings;
-    this.dateFormat = new SimpleDateFormat(DEFAULT_DATE_TIME_SUFFIX);
+    this.dateFormat = new SimpleDateFormat(TimeBasedRollingLogSettings.FILE_NAME_DATE_TIME_PATTERN);
     this.maxTimeDeltaMillis = settings.getTimeDeltaMillis();
+    this.indexRecordInterval = settings.getIndexRecordInterval();
+    this.indexByteInterval = settings.getIndexByteInterval();
+    this.compressionBlockSize = settings.getCompressionBlockSize();
     this.timeService = settings.getTimeService();
-    this.compressor = getCompressor(settings.getCompressionType());
+    // files are not compressed when rolled, if they are compressed while being written
+    this.compressor = settings.isBlockCompressionEnabled() ? null : getCompressor(settings.getCompressionType());
     if (compressor != null) {
       compressedFileSuffix = '.' + compressor.getExtension();
       tempCompressedFileSuffix = compressedFileSuffix + ".temp";
+      compressionExecutor = newCompressionExecutor(settings.getCompressionThreadCount());
+      recoverTempFiles();
     } else {
       compressedFileSuffix = null;
       tempCompressedFileSuffix = null;
+      compressionExecutor = null;
+    }
+
+    this.timeZone = dateFormat.getTimeZone();
+    if (settings.isRetentionEnabled()) {
+      retentionExecutor = compressionExecutor != null ? compressionExecutor :
+          newSingleThreadExecutor("metrics4j-log-retention");
+      scheduleRetention(); // files left by the previous runs
+    } else {
+      retentionExecutor = null;
+    }
+
+    if (settings.isOutputBufferingEnabled()) {
+      flushScheduler = newScheduler("metrics4j-log-flusher");
+      final long flushIntervalMillis = settings.getFlushIntervalMillis();
+      flushScheduler.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          onFlushTime();
+        }
+      }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      flushScheduler = null;
+    }
+
+    if (settings.isAlignedRolling()) {
+      schedulerDateFormat = new SimpleDateFormat(TimeBasedRollingLogSettings.FILE_NAME_DATE_TIME_PATTERN);
+      nextRollTimeMillis = getIntervalStart(timeService.now()) + maxTimeDeltaMillis;
+      rollScheduler = newScheduler("metrics4j-log-roller");
+      scheduleRoll();
+    } else {
+      schedulerDateFormat = null;
+      rollScheduler = null;
     }
   }
 
   @Override protected void onClose() throws IOException {
+    if (rollScheduler != null) {
+      rollScheduler.shutdownNow(); // roll in progress waits for the lock and then finds scheduler shut down
+    }
+    if (flushScheduler != null) {
+      flushScheduler.shutdownNow(); // buffered records are flushed when stream is closed
+    }
+
     OutputStream stream = currentStream;
     // remove reference to current stream
     currentStream = null;
+    countingStream = null;
+    blockStream = null;
 
     if (stream != null) {
       stream.close();
     }
 
+    final LogIndexWriter indexWriter = currentIndexWriter;
+    currentIndexWriter = null;
+    if (indexWriter != null) {
+      indexWriter.close();
+    }
+
     // remove reference to current file
     currentFile = null;
 
-    // wait compressing thread to stop and remove reference to it
-    final Thread thread = currentCompressingThread;
-    if (thread != null) {
+    if (retentionExecutor != null && retentionExecutor != compressionExecutor) {
+      scheduleRetention(); // closed file is rolled as well
+      retentionExecutor.shutdown(); // pending deletion is completed in the background
+    }
+
+    // let compression threads complete pending files
+    if (compressionExecutor != null) {
+      compressionExecutor.shutdown();
+      final long timeoutMillis = settings.getCompressionShutdownTimeoutMillis();
       try {
-        thread.join(MAX_COMPRESSION_THREAD_WAIT_TIME);
+        if (!compressionExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+          log.error("Compression of rolled logs has not completed in {} msec", timeoutMillis);
+          compressionExecutor.shutdownNow();
+        }
       } catch (InterruptedException e) {
-        log.error("Waiting for compression thread to close has been interrupted", e);
+        log.error("Waiting for compression threads to complete has been interrupted", e);
+        compressionExecutor.shutdownNow();
+        Thread.currentThread().interrupt();
       }
     }
-    currentCompressingThread = null;
   }
 
   @Nonnull @Override protected OutputStream getOutputStream() {
@@ -98,7 +223,11 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
   }
 
   @Override protected void onWriteStart() {
-    if (lastTimeMillis == 0) {
+    if (rollScheduler != null) {
+      if (now >= nextRollTimeMillis) {
+        rollAligned(now); // scheduler is late
+      }
+    } else if (lastTimeMillis == 0) {
       lastTimeMillis = now; // just update current time
     } else if ((now - lastTimeMillis) >= maxTimeDeltaMillis) {
       // roll log and update time
@@ -106,23 +235,307 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
       rollLog();
     }
 
+    if (currentFile != null && isFileFull()) {
+      lastTimeMillis = now;
+      rollLog();
+    }
+
     if (currentFile == null) {
       startNewFile();
     }
+    ++recordsInFile;
 
     assert currentFile != null && currentStream != null;
+
+    if (blockStream != null) {
+      maxWriteTimeMillis = Math.max(maxWriteTimeMillis, now);
+    } else if (currentIndexWriter != null) {
+      updateIndex();
+    }
+  }
+
+  @Override protected void onWriteEnd() {
+    final GzipBlockOutputStream stream = blockStream;
+    if (stream != null && stream.getBlockLength() >= compressionBlockSize) {
+      finishBlock(stream);
+    }
+  }
+
+  @Override protected void onRecordWritten(@Nonnull OutputStream outputStream) throws IOException {
+    if (flushScheduler != null) {
+      flushPending = true; // flushed by the flusher thread
+    } else {
+      outputStream.flush();
+    }
+  }
+
+  private boolean isFileFull() {
+    if (settings.getMaxFileRecordCount() > 0 && recordsInFile >= settings.getMaxFileRecordCount()) {
+      return true;
+    }
+
+    final long maxFileSize = settings.getMaxFileSize();
+    if (maxFileSize > 0L) {
+      if (blockStream != null) {
+        return blockStream.getCompressedLength() >= maxFileSize;
+      }
+      return countingStream != null && countingStream.getCount() >= maxFileSize;
+    }
+    return false;
   }
 
   private void startNewFile() {
-    currentFile = findNewFile(settings.getFileNameBase() + '_' + dateFormat.format(new Date(now)),
-        settings.getSuffix());
+    resetGenerator(true);
+    recordsInFile = 0;
+    flushPending = false;
+    final boolean blockCompression = settings.isBlockCompressionEnabled();
+    if (nextFile != null) {
+      currentFile = nextFile; // resolved by the scheduler
+      nextFile = null;
+    } else {
+      final long fileTime = rollScheduler != null ? getIntervalStart(now) : now;
+      currentFile = findNewFile(settings.getFileNameBase() + '_' + dateFormat.format(new Date(fileTime)),
+          getFileSuffix());
+    }
 
     // Open stream
     try {
       currentStream = new FileOutputStream(currentFile, false);
+      if (settings.isOutputBufferingEnabled()) {
+        currentStream = new BufferedOutputStream(currentStream, settings.getOutputBufferSize());
+      }
     } catch (IOException e) {
       log.error("Unable to write into a file {}", currentFile.getAbsolutePath(), e);
       currentStream = NullOutputStream.INSTANCE; // write won't make any effect
+      return;
+    }
+
+    if (blockCompression) {
+      blockStream = new GzipBlockOutputStream(currentStream, compressionBlockSize);
+      currentStream = blockStream;
+      startIndex();
+      return;
+    }
+
+    if (settings.isIndexEnabled() || settings.getMaxFileSize() > 0L) {
+      countingStream = new CountingOutputStream(currentStream);
+      currentStream = countingStream;
+    }
+    if (settings.isIndexEnabled()) {
+      startIndex();
+    }
+  }
+
+  @Nonnull private String getFileSuffix() {
+    return settings.isBlockCompressionEnabled() ? settings.getSuffix() + ".gz" : settings.getSuffix();
+  }
+
+  /**
+   * @return Start of the aligned interval, that contains the given time
+   */
+  private long getIntervalStart(long time) {
+    final long localTime = time + timeZone.getOffset(time);
+    return time - ((localTime % maxTimeDeltaMillis) + maxTimeDeltaMillis) % maxTimeDeltaMillis;
+  }
+
+  /**
+   * Rolls log, if any, and starts the interval, that contains the given time. Should be called under lock.
+   */
+  private void rollAligned(long time) {
+    if (currentFile != null) {
+      rollLog();
+    }
+    nextFile = null;
+    nextRollTimeMillis = getIntervalStart(time) + maxTimeDeltaMillis;
+  }
+
+  private void scheduleRoll() {
+    final long delay = Math.max(0L, nextRollTimeMillis - timeService.now());
+    try {
+      rollScheduler.schedule(new Runnable() {
+        @Override
+        public void run() {
+          onRollTime();
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      log.trace("Roll is not scheduled, appender is being closed", e);
+    }
+  }
+
+  /**
+   * Rolls log at the end of the interval, called by the scheduler thread. Name of the next file is formatted and
+   * resolved before taking the lock, so that writers wait only for the previous file to be closed.
+   */
+  private void onRollTime() {
+    final long time = timeService.now();
+    if (time >= nextRollTimeMillis) {
+      final long intervalStart = getIntervalStart(time);
+      final File file = findNewFile(settings.getFileNameBase() + '_' +
+          schedulerDateFormat.format(new Date(intervalStart)), getFileSuffix());
+      synchronized (lock) {
+        if (rollScheduler.isShutdown()) {
+          return; // appender is closed
+        }
+
+        if (time >= nextRollTimeMillis) {
+          rollAligned(time);
+        }
+        if (currentFile == null && getIntervalStart(time) == getIntervalStart(nextRollTimeMillis - 1L)) {
+          nextFile = file; // no record has been written into this interval yet
+        }
+      }
+    }
+
+    scheduleRoll(); // also reschedules early wake-up
+  }
+
+  /**
+   * Flushes buffered records, called by the flusher thread.
+   */
+  private void onFlushTime() {
+    synchronized (lock) {
+      final OutputStream stream = currentStream;
+      if (!flushPending || stream == null || flushScheduler.isShutdown()) {
+        return; // nothing to flush or appender is closed
+      }
+
+      flushPending = false;
+      try {
+        stream.flush();
+      } catch (IOException e) {
+        log.error("Unable to flush output stream of target file={}", currentFile, e);
+      }
+    }
+  }
+
+  @Nonnull private static ExecutorService newSingleThreadExecutor(@Nonnull final String threadName) {
+    return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+      @Override
+      public Thread newThread(@Nonnull Runnable runnable) {
+        final Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  @Nonnull private static ScheduledExecutorService newScheduler(@Nonnull final String threadName) {
+    final ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(@Nonnull Runnable runnable) {
+        final Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    result.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    return result;
+  }
+
+  private void startIndex() {
+    maxWriteTimeMillis = now;
+    final File indexFile = LogIndexFormat.getIndexFile(currentFile);
+    try {
+      currentIndexWriter = new LogIndexWriter(indexFile);
+    } catch (IOException e) {
+      log.error("Unable to write into an index file {}", indexFile.getAbsolutePath(), e);
+      return; // file is written without index
+    }
+
+    recordsSinceIndexEntry = 0;
+    lastIndexEntryOffset = 0L;
+  }
+
+  /**
+   * Adds index entry pointing to the record being written, if enough records or bytes have been written since
+   * the previous entry.
+   */
+  private void updateIndex() {
+    final long offset = countingStream.getCount();
+    if ((indexRecordInterval > 0 && recordsSinceIndexEntry >= indexRecordInterval) ||
+        (indexByteInterval > 0L && offset - lastIndexEntryOffset >= indexByteInterval)) {
+      try {
+        currentIndexWriter.add(maxWriteTimeMillis, offset);
+      } catch (IOException e) {
+        log.error("Unable to write index entry of file {}, index is no longer written", currentFile, e);
+        closeIndexWriter(currentIndexWriter, currentFile);
+        currentIndexWriter = null;
+      }
+      recordsSinceIndexEntry = 0;
+      lastIndexEntryOffset = offset;
+      if (recordFormat == RecordFormat.SMILE) {
+        resetGenerator(false); // record at the index entry starts new segment, so it can be read independently
+      }
+    }
+
+    ++recordsSinceIndexEntry;
+    maxWriteTimeMillis = Math.max(maxWriteTimeMillis, now);
+  }
+
+  /**
+   * Compresses current block and adds index entry pointing to the next one.
+   */
+  private void finishBlock(@Nonnull GzipBlockOutputStream stream) {
+    try {
+      stream.finishBlock();
+    } catch (IOException e) {
+      log.error("Unable to write compressed block into a file {}", currentFile, e);
+      return;
+    }
+
+    if (currentIndexWriter != null) {
+      try {
+        currentIndexWriter.add(maxWriteTimeMillis, stream.getCompressedLength());
+      } catch (IOException e) {
+        log.error("Unable to write index entry of file {}, index is no longer written", currentFile, e);
+        closeIndexWriter(currentIndexWriter, currentFile);
+        currentIndexWriter = null;
+      }
+    }
+
+    if (recordFormat == RecordFormat.SMILE) {
+      resetGenerator(false); // the next block starts new segment, so it can be read independently
+    }
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    CountingOutputStream(@Nonnull OutputStream out) {
+      super(out);
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    @Override public void write(int b) throws IOException {
+      out.write(b);
+      ++count;
+    }
+
+    @Override public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+
+  /**
+   * Stream, that doesn't close the target stream, so that several gzip members can be written to the same file.
+   */
+  private static final class NonClosingOutputStream extends FilterOutputStream {
+    NonClosingOutputStream(@Nonnull OutputStream out) {
+      super(out);
+    }
+
+    @Override public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override public void close() throws IOException {
+      flush();
     }
   }
 
@@ -149,38 +562,202 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
     if (stream == null) {
       throw new IllegalStateException("currentStream is null"); // shouldn't happen
     }
+    final LogIndexWriter indexWriter = currentIndexWriter;
 
     // reset class members
     this.currentFile = null;
     this.currentStream = null;
+    this.currentIndexWriter = null;
+    this.countingStream = null;
+    this.blockStream = null;
 
     // compress file, if needed
-    if (compressor == null) {
+    if (compressionExecutor == null) {
+      closeStream(stream, file);
+      closeIndexWriter(indexWriter, file);
+      scheduleRetention();
       return; // compression is not needed
     }
 
-    // start new compression thread
-    final Thread compressingThread = new Thread(new Runnable() {
+    // closing and compressing is done in the background thread, so writer doesn't wait for it
+    compressionExecutor.execute(new Runnable() {
       @Override
       public void run() {
-        log.trace("Closing output stream of target file={}", file);
+        closeStream(stream, file);
+        closeIndexWriter(indexWriter, file);
+        compressFileContents(compressor, file);
+        if (retentionExecutor != null) {
+          enforceRetention();
+        }
+      }
+    });
+  }
+
+  private void scheduleRetention() {
+    if (retentionExecutor == null) {
+      return;
+    }
 
-        // close old stream
-        try {
-          stream.close();
-        } catch (IOException e) {
-          log.error("Unable to properly close output stream", e);
+    try {
+      retentionExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          enforceRetention();
         }
+      });
+    } catch (RejectedExecutionException e) {
+      log.trace("Retention is not enforced, appender is being closed", e);
+    }
+  }
 
-        // compress file contents
-        compressFileContents(compressor, file);
+  /**
+   * Deletes the oldest rolled files, until the rest of them meet the retention policy. If rolled files are
+   * compressed, only compressed files are deleted, the file being written is never deleted.
+   */
+  private void enforceRetention() {
+    synchronized (retentionLock) {
+      final File current = currentFile;
+      final List<RolledLogFile> files = new ArrayList<>();
+      long totalBytes = 0L;
+      for (final RolledLogFile file : RolledLogFile.list(settings, timeZone)) {
+        if ((compressor != null && file.getCompressionType() == CompressionType.NONE) ||
+            (current != null && file.getFile().equals(current.getAbsoluteFile()))) {
+          continue; // being written or compressed
+        }
+        files.add(file);
+        totalBytes += file.getFile().length();
+      }
+
+      final int maxFileCount = settings.getMaxRetainedFileCount();
+      final long maxBytes = settings.getMaxRetainedBytes();
+      final long maxAgeMillis = settings.getMaxRetainedAgeMillis();
+      final long now = System.currentTimeMillis(); // compared with file modification time
+      int fileCount = files.size();
+      for (final RolledLogFile file : files) { // the oldest files first
+        final File logFile = file.getFile();
+        final long length = logFile.length();
+        if ((maxFileCount <= 0 || fileCount <= maxFileCount) && (maxBytes <= 0L || totalBytes <= maxBytes) &&
+            (maxAgeMillis <= 0L || now - logFile.lastModified() <= maxAgeMillis)) {
+          break;
+        }
+
+        log.trace("Deleting log file={} according to the retention policy", logFile);
+        if (!logFile.delete()) {
+          log.error("Unable to delete log file={}", logFile.getAbsolutePath());
+          continue;
+        }
+        final File indexFile = LogIndexFormat.getIndexFile(logFile);
+        if (indexFile.exists() && !indexFile.delete()) {
+          log.error("Unable to delete index file={}", indexFile.getAbsolutePath());
+        }
+        --fileCount;
+        totalBytes -= length;
+      }
+    }
+  }
+
+  private void closeStream(@Nonnull OutputStream stream, @Nonnull File file) {
+    log.trace("Closing output stream of target file={}", file);
+    try {
+      stream.close();
+    } catch (IOException e) {
+      log.error("Unable to properly close output stream", e);
+    }
+  }
+
+  private void closeIndexWriter(@Nullable LogIndexWriter indexWriter, @Nonnull File file) {
+    if (indexWriter == null) {
+      return;
+    }
+
+    try {
+      indexWriter.close();
+    } catch (IOException e) {
+      log.error("Unable to properly close index of file={}", file, e);
+    }
+  }
+
+  /**
+   * Removes temporary files, left by compression which has been interrupted, e.g. because of the application crash,
+   * and compresses the corresponding source files again.
+   */
+  private void recoverTempFiles() {
+    final File baseFile = new File(settings.getFileNameBase()).getAbsoluteFile();
+    final File dir = baseFile.getParentFile();
+    final String baseName = baseFile.getName();
+    final File[] tempFiles = dir != null ? dir.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith(baseName) && name.endsWith(tempCompressedFileSuffix);
+      }
+    }) : null;
+    if (tempFiles == null) {
+      return;
+    }
+
+    for (final File tempFile : tempFiles) {
+      log.info("Removing temporary file={}, left by the interrupted compression", tempFile);
+      if (!tempFile.delete()) {
+        log.error("Unable to remove temp file {}", tempFile.getAbsolutePath());
+        continue;
+      }
+
+      final File sourceFile = getSourceFileOfTempFile(tempFile);
+      if (sourceFile != null) {
+        compressionExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            compressFileContents(compressor, sourceFile);
+          }
+        });
+      }
+    }
+  }
+
+  @Nullable private File getSourceFileOfTempFile(@Nonnull File tempFile) {
+    final String path = tempFile.getPath();
+    final String sourcePath = path.substring(0, path.length() - tempCompressedFileSuffix.length());
+    File result = new File(sourcePath);
+    if (result.exists()) {
+      return result;
+    }
+
+    // temp file name might have an index suffix, see findNewFile
+    final int indexStart = sourcePath.lastIndexOf('_');
+    if (indexStart > 0 && isDigits(sourcePath, indexStart + 1)) {
+      result = new File(sourcePath.substring(0, indexStart));
+      if (result.exists()) {
+        return result;
+      }
+    }
 
-        // mark current thread as null
-        currentCompressingThread = null;
+    return null;
+  }
+
+  private static boolean isDigits(@Nonnull String str, int startPos) {
+    if (startPos >= str.length()) {
+      return false;
+    }
+
+    for (int i = startPos; i < str.length(); ++i) {
+      if (!Character.isDigit(str.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nonnull private static ExecutorService newCompressionExecutor(int threadCount) {
+    final AtomicInteger threadIndex = new AtomicInteger();
+    return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      @Override
+      public Thread newThread(@Nonnull Runnable runnable) {
+        final Thread thread = new Thread(runnable, "metrics4j-log-compressor-" + threadIndex.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
       }
     });
-    compressingThread.run();
-    currentCompressingThread = compressingThread;
   }
 
   private void compressFileContents(@Nonnull Compressor compressor, @Nonnull File file) {
@@ -189,19 +766,26 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
     final File targetFile = findNewFile(file.getAbsolutePath(), compressedFileSuffix);
     final File tempFile = findNewFile(file.getAbsolutePath(), tempCompressedFileSuffix);
 
+    final File sourceIndexFile = LogIndexFormat.getIndexFile(file);
+    LogIndex sourceIndex = null;
+    if (compressor.isConcatenable()) {
+      try {
+        sourceIndex = LogIndex.read(file);
+      } catch (IOException e) {
+        log.error("Unable to read index of file={}, it is compressed without index", file, e);
+      }
+    }
+    long[] compressedOffsets = null;
+
     // compress source file contents and write result to the temp file
     try (final InputStream sourceStream = new FileInputStream(file)) {
-      try (final OutputStream tempFileStream = new FileOutputStream(tempFile)) {
-        try (final OutputStream compressionStream = compressor.openOutputStream(tempFileStream, file.getName())) {
-          final byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-
-          for (;;) {
-            int read = sourceStream.read(buffer);
-            if (read < 0) {
-              break;
-            }
-
-            compressionStream.write(buffer, 0, read);
+      try (final FileOutputStream tempFileStream = new FileOutputStream(tempFile)) {
+        if (sourceIndex != null) {
+          compressedOffsets = compressIndexedParts(compressor, sourceStream, tempFileStream, sourceIndex,
+              file.getName());
+        } else {
+          try (final OutputStream compressionStream = compressor.openOutputStream(tempFileStream, file.getName())) {
+            copy(sourceStream, compressionStream, Long.MAX_VALUE);
           }
         }
       }
@@ -221,15 +805,78 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
       return;
     }
 
+    if (sourceIndex != null) {
+      writeIndex(LogIndexFormat.getIndexFile(targetFile), sourceIndex, compressedOffsets);
+    }
+
     // now remove old file
     if (!file.delete()) {
       log.error("Unable to remove uncompressed log file={}", file.getAbsolutePath());
     }
 
+    if (sourceIndexFile.exists() && !sourceIndexFile.delete()) {
+      log.error("Unable to remove index file={}", sourceIndexFile.getAbsolutePath());
+    }
+
     // rename succeeded
     log.trace("Compressed log file has been successfully created: {}", targetFile);
   }
 
+  /**
+   * Compresses each part of the source file, that starts at the index entry, as a separate compressed stream,
+   * so that compressed file can be decompressed starting from any of these parts.
+   *
+   * @return Offsets of the compressed parts, that correspond to the index entries
+   */
+  @Nonnull private static long[] compressIndexedParts(@Nonnull Compressor compressor,
+                                                      @Nonnull InputStream sourceStream,
+                                                      @Nonnull FileOutputStream targetStream,
+                                                      @Nonnull LogIndex sourceIndex,
+                                                      @Nonnull String fileName) throws IOException {
+    final long[] result = new long[sourceIndex.size()];
+    long sourcePos = 0L;
+    for (int i = 0; i <= sourceIndex.size(); ++i) {
+      final long partEnd = i < sourceIndex.size() ? sourceIndex.getOffset(i) : Long.MAX_VALUE;
+      if (i > 0) {
+        result[i - 1] = targetStream.getChannel().position();
+      }
+
+      try (final OutputStream compressionStream = compressor.openOutputStream(
+          new NonClosingOutputStream(targetStream), fileName)) {
+        sourcePos += copy(sourceStream, compressionStream, partEnd - sourcePos);
+      }
+    }
+    return result;
+  }
+
+  private static long copy(@Nonnull InputStream source, @Nonnull OutputStream target, long limit) throws IOException {
+    final byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+    long copied = 0L;
+    while (copied < limit) {
+      final int read = source.read(buffer, 0, (int) Math.min(buffer.length, limit - copied));
+      if (read < 0) {
+        break;
+      }
+
+      target.write(buffer, 0, read);
+      copied += read;
+    }
+    return copied;
+  }
+
+  private void writeIndex(@Nonnull File indexFile, @Nonnull LogIndex sourceIndex, @Nonnull long[] offsets) {
+    try (final LogIndexWriter indexWriter = new LogIndexWriter(indexFile)) {
+      for (int i = 0; i < offsets.length; ++i) {
+        indexWriter.add(sourceIndex.getTime(i), offsets[i]);
+      }
+    } catch (IOException e) {
+      log.error("Unable to write index file={}", indexFile.getAbsolutePath(), e);
+      if (indexFile.exists() && !indexFile.delete()) {
+        log.error("Unable to remove index file={}", indexFile.getAbsolutePath());
+      }
+    }
+  }
+
   @Nonnull private static File findNewFile(@Nonnull String leadingFileNamePart, @Nonnull String suffix) {
     final StringBuilder builder = new StringBuilder(leadingFileNamePart.length() + 30);
     builder.append(leadingFileNamePart);
@@ -270,6 +917,12 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
 
   private interface Compressor {
     @Nonnull String getExtension();
+
+    /**
+     * @return True, if concatenation of the compressed streams is decompressed as concatenation of their contents
+     */
+    boolean isConcatenable();
+
     @Nonnull OutputStream openOutputStream(@Nonnull OutputStream outputStream,
                                            @Nonnull String fileName) throws IOException;
   }
@@ -281,6 +934,10 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
       return "gz";
     }
 
+    @Override public boolean isConcatenable() {
+      return true;
+    }
+
     @Nonnull @Override public OutputStream openOutputStream(@Nonnull OutputStream outputStream,
                                                             @Nonnull String fileName) throws IOException {
       return new GZIPOutputStream(outputStream, 4096);
@@ -294,6 +951,10 @@ public final class RollingJacksonMapAppender extends AbstractJacksonMapAppender
       return "zip";
     }
 
+    @Override public boolean isConcatenable() {
+      return false;
+    }
+
     @Nonnull @Override public OutputStream openOutputStream(@Nonnull OutputStream outputStream,
                                                             @Nonnull String fileName) throws IOException {
       final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
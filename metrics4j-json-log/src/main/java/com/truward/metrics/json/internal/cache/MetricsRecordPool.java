@@ -0,0 +1,66 @@
+package com.truward.metrics.json.internal.cache;
+
+import com.truward.metrics.json.internal.concurrent.BoundedRingBuffer;
+import com.truward.metrics.support.MetricsRecord;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Bounded lock-free pool of {@link MetricsRecord} instances.
+ * Records are returned to this pool by appenders once they are written, records that have grown beyond
+ * the given capacity are not retained.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class MetricsRecordPool implements MetricsRecord.Recycler {
+  /**
+   * Default count of records, that can be retained in the pool.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /**
+   * Default maximum capacity of the record to be retained in the pool.
+   */
+  public static final int DEFAULT_MAX_RETAINED_RECORD_CAPACITY = 64;
+
+  private final BoundedRingBuffer<MetricsRecord> pool;
+  private final int maxRetainedRecordCapacity;
+
+  /**
+   * @param capacity                  Maximum count of retained records, should be a power of two
+   * @param maxRetainedRecordCapacity Maximum capacity of the record to be retained
+   */
+  public MetricsRecordPool(int capacity, int maxRetainedRecordCapacity) {
+    if (maxRetainedRecordCapacity < MetricsRecord.DEFAULT_CAPACITY) {
+      throw new IllegalArgumentException("maxRetainedRecordCapacity can't be less than default record capacity");
+    }
+
+    this.pool = new BoundedRingBuffer<>(capacity);
+    this.maxRetainedRecordCapacity = maxRetainedRecordCapacity;
+  }
+
+  public MetricsRecordPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_RETAINED_RECORD_CAPACITY);
+  }
+
+  /**
+   * @return Empty record, taken from the pool or newly created one
+   */
+  @Nonnull
+  public MetricsRecord fetch() {
+    final MetricsRecord result = pool.poll();
+    if (result != null) {
+      return result;
+    }
+    return new MetricsRecord(MetricsRecord.DEFAULT_CAPACITY, this);
+  }
+
+  @Override
+  public void recycle(@Nonnull MetricsRecord record) {
+    if (record.capacity() > maxRetainedRecordCapacity) {
+      return; // let this record be garbage collected
+    }
+    pool.offer(record); // if pool is full, record is simply discarded
+  }
+}
@@ -0,0 +1,93 @@
+package com.truward.metrics.json.internal.cache;
+
+import com.truward.metrics.json.internal.concurrent.BoundedRingBuffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record cache, that keeps discarded maps in the bounded lock-free pool shared by all the threads.
+ * Maps are cleared when they are put into the pool, maps that held more than the given count of entries
+ * are not retained, so that the pool does not hold bloated hash tables.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class SharedRecordCache implements RecordCache {
+  /**
+   * Default count of maps, that can be retained in the pool.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /**
+   * Default maximum count of entries the map may have to be retained in the pool.
+   */
+  public static final int DEFAULT_MAX_RETAINED_MAP_SIZE = 64;
+
+  private final BoundedRingBuffer<Map<String, Object>> pool;
+  private final int maxRetainedMapSize;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * @param capacity           Maximum count of retained maps, should be a power of two
+   * @param maxRetainedMapSize Maximum count of entries the map may have to be retained
+   */
+  public SharedRecordCache(int capacity, int maxRetainedMapSize) {
+    if (maxRetainedMapSize <= 0) {
+      throw new IllegalArgumentException("maxRetainedMapSize should be greater than zero");
+    }
+
+    this.pool = new BoundedRingBuffer<>(capacity);
+    this.maxRetainedMapSize = maxRetainedMapSize;
+  }
+
+  public SharedRecordCache() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_RETAINED_MAP_SIZE);
+  }
+
+  @Override
+  public void take(@Nonnull Map<String, Object> value) {
+    if (value.size() > maxRetainedMapSize) {
+      return; // let this map be garbage collected
+    }
+
+    value.clear();
+    pool.offer(value); // if pool is full, map is simply discarded
+  }
+
+  @Nullable
+  @Override
+  public Map<String, Object> fetch() {
+    final Map<String, Object> result = pool.poll();
+    if (result != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * @return Count of {@link #fetch()} calls, that returned pooled map
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return Count of {@link #fetch()} calls, that found no map in the pool
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return Approximate count of maps, currently retained in the pool
+   */
+  public int getPooledCount() {
+    return pool.size();
+  }
+}
@@ -0,0 +1,166 @@
+package com.truward.metrics.json.internal.cache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Record cache, that keeps discarded maps in the small per-thread stack and passes maps that do not fit into
+ * this stack to the fallback cache, which is usually {@link SharedRecordCache}.
+ * Fetching and taking maps on the same thread involves no locking, hit and miss counters are striped by thread,
+ * so that threads rarely update the same cache line.
+ * <p>
+ * If maps are discarded on the thread other than the one which creates metrics, e.g. when asynchronous appender
+ * is used, the fallback cache is what makes maps travel back to the creating threads.
+ * </p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class ThreadLocalRecordCache implements RecordCache {
+  /**
+   * Default count of maps, that can be retained per thread.
+   */
+  public static final int DEFAULT_PER_THREAD_CAPACITY = 8;
+
+  private static final int STRIPE_COUNT = getStripeCount(Runtime.getRuntime().availableProcessors());
+  private static final int PADDING = 8; // 64 bytes per stripe, hit count is followed by miss count
+
+  private final int perThreadCapacity;
+  private final int maxRetainedMapSize;
+  private final RecordCache fallback;
+  private final AtomicLongArray counters = new AtomicLongArray(STRIPE_COUNT * PADDING);
+  private final ThreadLocal<LocalPool> localPool = new ThreadLocal<LocalPool>() {
+    @Override
+    protected LocalPool initialValue() {
+      return new LocalPool(perThreadCapacity);
+    }
+  };
+
+  /**
+   * @param perThreadCapacity  Maximum count of maps, retained per thread
+   * @param maxRetainedMapSize Maximum count of entries the map may have to be retained
+   * @param fallback           Cache, that takes maps which do not fit into the per-thread stack and provides maps
+   *                           when per-thread stack is empty
+   */
+  public ThreadLocalRecordCache(int perThreadCapacity, int maxRetainedMapSize, @Nonnull RecordCache fallback) {
+    if (perThreadCapacity <= 0) {
+      throw new IllegalArgumentException("perThreadCapacity should be greater than zero");
+    }
+
+    if (maxRetainedMapSize <= 0) {
+      throw new IllegalArgumentException("maxRetainedMapSize should be greater than zero");
+    }
+
+    //noinspection ConstantConditions
+    if (fallback == null) {
+      throw new NullPointerException("fallback can't be null");
+    }
+
+    this.perThreadCapacity = perThreadCapacity;
+    this.maxRetainedMapSize = maxRetainedMapSize;
+    this.fallback = fallback;
+  }
+
+  /**
+   * Creates thread local cache, backed by the {@link SharedRecordCache} with default settings.
+   */
+  public ThreadLocalRecordCache() {
+    this(DEFAULT_PER_THREAD_CAPACITY, SharedRecordCache.DEFAULT_MAX_RETAINED_MAP_SIZE, new SharedRecordCache());
+  }
+
+  @Override
+  public void take(@Nonnull Map<String, Object> value) {
+    if (value.size() > maxRetainedMapSize) {
+      return; // let this map be garbage collected
+    }
+
+    value.clear();
+    if (!localPool.get().push(value)) {
+      fallback.take(value);
+    }
+  }
+
+  @Nullable
+  @Override
+  public Map<String, Object> fetch() {
+    final LocalPool pool = localPool.get();
+    Map<String, Object> result = pool.pop();
+    if (result == null) {
+      result = fallback.fetch();
+    }
+
+    final int stripe = (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+    counters.incrementAndGet(stripe * PADDING + (result != null ? 0 : 1));
+    return result;
+  }
+
+  /**
+   * @return Count of {@link #fetch()} calls, that returned cached map
+   */
+  public long getHitCount() {
+    return sum(0);
+  }
+
+  /**
+   * @return Count of {@link #fetch()} calls, that found no map neither in the per-thread stack nor
+   * in the fallback cache
+   */
+  public long getMissCount() {
+    return sum(1);
+  }
+
+  //
+  // Private
+  //
+
+  private long sum(int offset) {
+    long result = 0L;
+    for (int i = 0; i < STRIPE_COUNT; ++i) {
+      result += counters.get(i * PADDING + offset);
+    }
+    return result;
+  }
+
+  /**
+   * @return Power of two not less than the count of available processors, but not greater than 64
+   */
+  private static int getStripeCount(int processors) {
+    int result = 1;
+    while (result < processors && result < 64) {
+      result <<= 1;
+    }
+    return result;
+  }
+
+  /**
+   * Per-thread stack of maps, which is garbage collected along with its thread.
+   */
+  private static final class LocalPool {
+    final Object[] maps;
+    int size;
+
+    LocalPool(int capacity) {
+      this.maps = new Object[capacity];
+    }
+
+    boolean push(@Nonnull Map<String, Object> map) {
+      if (size == maps.length) {
+        return false;
+      }
+      maps[size++] = map;
+      return true;
+    }
+
+    @Nullable
+    Map<String, Object> pop() {
+      if (size == 0) {
+        return null;
+      }
+      @SuppressWarnings("unchecked") final Map<String, Object> result = (Map<String, Object>) maps[--size];
+      maps[size] = null;
+      return result;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.truward.metrics.json.internal.concurrent;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue, based on the array of sequenced slots.
+ * Each slot carries a sequence number which tells whether the slot is ready to be written or read at the
+ * given position, so producers and consumers only contend on CAS of the corresponding position counter.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class BoundedRingBuffer<E> {
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong enqueuePos = new AtomicLong();
+  private final AtomicLong dequeuePos = new AtomicLong();
+
+  /**
+   * @param capacity Capacity of the buffer, should be a power of two
+   */
+  public BoundedRingBuffer(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity should be a positive power of two");
+    }
+
+    this.mask = capacity - 1;
+    this.elements = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; ++i) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Tries to put the given element to the tail of this buffer.
+   *
+   * @param element Element to put
+   * @return True, if element has been added, false if buffer is full
+   */
+  public boolean offer(@Nonnull E element) {
+    long pos = enqueuePos.get();
+    int index;
+    for (;;) {
+      index = (int) (pos & mask);
+      final long diff = sequences.get(index) - pos;
+      if (diff == 0) {
+        if (enqueuePos.compareAndSet(pos, pos + 1)) {
+          break;
+        }
+        pos = enqueuePos.get();
+      } else if (diff < 0) {
+        return false; // slot has not been consumed yet - buffer is full
+      } else {
+        pos = enqueuePos.get(); // other producer has taken this position
+      }
+    }
+
+    elements.lazySet(index, element);
+    sequences.set(index, pos + 1); // publish element
+    return true;
+  }
+
+  /**
+   * Tries to take an element from the head of this buffer.
+   *
+   * @return Element or null if buffer is empty
+   */
+  @Nullable
+  public E poll() {
+    long pos = dequeuePos.get();
+    int index;
+    for (;;) {
+      index = (int) (pos & mask);
+      final long diff = sequences.get(index) - (pos + 1);
+      if (diff == 0) {
+        if (dequeuePos.compareAndSet(pos, pos + 1)) {
+          break;
+        }
+        pos = dequeuePos.get();
+      } else if (diff < 0) {
+        return null; // slot has not been published yet - buffer is empty
+      } else {
+        pos = dequeuePos.get(); // other consumer has taken this position
+      }
+    }
+
+    final E result = elements.get(index);
+    elements.lazySet(index, null);
+    sequences.lazySet(index, pos + mask + 1); // release slot for the next round
+    return result;
+  }
+
+  /**
+   * @return Approximate count of elements in this buffer
+   */
+  public int size() {
+    final long size = enqueuePos.get() - dequeuePos.get();
+    return size < 0 ? 0 : (int) Math.min(size, mask + 1);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+}
@@ -0,0 +1,48 @@
+package com.truward.metrics.json.internal.index;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Format of the sparse index, written alongside the metrics log file.
+ * <p>
+ * Index file starts with the header, composed of {@link #MAGIC} and {@link #VERSION}, followed by the entries of
+ * {@link #ENTRY_SIZE} bytes: time in milliseconds and byte offset of the record in the indexed file, both written as
+ * big-endian longs. Time of the entry is not less than the time, when any of the preceding records
+ * has been written. Index is appended while the log file is being written, so incomplete trailing entry is ignored.
+ * </p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class LogIndexFormat {
+  private LogIndexFormat() {} // Hidden
+
+  /**
+   * Suffix, that is appended to the name of the indexed file to get the name of its index file.
+   */
+  public static final String FILE_SUFFIX = ".idx";
+
+  public static final int MAGIC = 0x4D494458; // "MIDX"
+
+  public static final int VERSION = 1;
+
+  public static final int HEADER_SIZE = 8;
+
+  public static final int ENTRY_SIZE = 16;
+
+  @Nonnull
+  public static File getIndexFile(@Nonnull File file) {
+    return new File(file.getPath() + FILE_SUFFIX);
+  }
+
+  @Nonnull
+  public static byte[] encodeHeader() {
+    return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).array();
+  }
+
+  public static void encodeEntry(@Nonnull byte[] buffer, long time, long offset) {
+    ByteBuffer.wrap(buffer, 0, ENTRY_SIZE).putLong(time).putLong(offset);
+  }
+}
@@ -0,0 +1,50 @@
+package com.truward.metrics.json.internal.index;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes sparse index of the metrics log file, see {@link LogIndexFormat}.
+ * Each entry is written by the single call to the underlying file stream, so that index can be read while it
+ * is being written.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class LogIndexWriter implements Closeable {
+  private final OutputStream outputStream;
+  private final byte[] entry = new byte[LogIndexFormat.ENTRY_SIZE];
+
+  public LogIndexWriter(@Nonnull File indexFile) throws IOException {
+    this.outputStream = new FileOutputStream(indexFile, false);
+    try {
+      outputStream.write(LogIndexFormat.encodeHeader());
+    } catch (IOException e) {
+      outputStream.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Adds index entry.
+   *
+   * @param time   Time, that is not less than the time, when any of the preceding records has been written,
+   *               and not less than the time of the previous entry
+   * @param offset Offset of the record in the indexed file
+   * @throws IOException On I/O error
+   */
+  public void add(long time, long offset) throws IOException {
+    LogIndexFormat.encodeEntry(entry, time, offset);
+    outputStream.write(entry);
+  }
+
+  @Override
+  public void close() throws IOException {
+    outputStream.close();
+  }
+}
@@ -0,0 +1,67 @@
+package com.truward.metrics.json.internal.reader;
+
+import javax.annotation.Nonnull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream, that reads no more than the given count of bytes from the underlying stream.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class BoundedInputStream extends FilterInputStream {
+  private long remaining;
+
+  public BoundedInputStream(@Nonnull InputStream in, long limit) {
+    super(in);
+    if (limit < 0L) {
+      throw new IllegalArgumentException("limit can't be negative");
+    }
+    this.remaining = limit;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (remaining <= 0L) {
+      return -1;
+    }
+
+    final int result = super.read();
+    if (result >= 0) {
+      --remaining;
+    }
+    return result;
+  }
+
+  @Override
+  public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+    if (remaining <= 0L) {
+      return -1;
+    }
+
+    final int read = super.read(b, off, (int) Math.min(len, remaining));
+    if (read > 0) {
+      remaining -= read;
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    final long skipped = super.skip(Math.min(n, remaining));
+    remaining -= skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int) Math.min(super.available(), remaining);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+}
@@ -0,0 +1,74 @@
+package com.truward.metrics.json.internal.reader;
+
+import javax.annotation.Nonnull;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream, that reads the region of the given byte buffer without copying the buffer itself.
+ * Instances are reusable: {@link #reset(java.nio.ByteBuffer, int, int)} points this stream to the another region.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class ByteBufferInputStream extends InputStream {
+  private ByteBuffer buffer;
+  private int pos;
+  private int limit;
+
+  /**
+   * Points this stream to the given region.
+   *
+   * @param buffer Source buffer, its position and limit are not modified
+   * @param offset Start of the region
+   * @param length Length of the region
+   */
+  public void reset(@Nonnull ByteBuffer buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.pos = offset;
+    this.limit = offset + length;
+  }
+
+  @Override
+  public int read() {
+    if (pos >= limit) {
+      return -1;
+    }
+    return buffer.get(pos++) & 0xff;
+  }
+
+  @Override
+  public int read(@Nonnull byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+
+    final int count = Math.min(len, limit - pos);
+    if (count <= 0) {
+      return -1;
+    }
+
+    final ByteBuffer view = buffer.duplicate();
+    view.position(pos);
+    view.get(b, off, count);
+    pos += count;
+    return count;
+  }
+
+  @Override
+  public long skip(long n) {
+    final int count = (int) Math.max(0L, Math.min(n, limit - pos));
+    pos += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return Math.max(0, limit - pos);
+  }
+
+  @Override
+  public void close() {
+    buffer = null; // region is no longer needed
+  }
+}
@@ -0,0 +1,119 @@
+package com.truward.metrics.json.internal.reader;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts JSON metrics records into maps, lists and boxed primitives.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class JsonRecordParser {
+  private JsonRecordParser() {} // Hidden
+
+  /**
+   * Parses metrics record, that starts at the next token of the given parser.
+   *
+   * @param jp Parser, positioned before the record
+   * @return Parsed record
+   * @throws IOException On I/O or JSON parsing error
+   */
+  @Nonnull
+  public static Map<String, ?> parseRecord(@Nonnull JsonParser jp) throws IOException {
+    jp.nextToken();
+    return parseMap(jp);
+  }
+
+  @Nonnull
+  public static Map<String, ?> parseMap(@Nonnull JsonParser jp) throws IOException {
+    JsonToken token = jp.getCurrentToken();
+    if (token != JsonToken.START_OBJECT) {
+      throw new JsonParseException("Map expected", jp.getCurrentLocation());
+    }
+
+    final Map<String, Object> result = new HashMap<>(20);
+    for (token = jp.nextToken(); token != JsonToken.END_OBJECT; token = jp.nextToken()) {
+      if (token != JsonToken.FIELD_NAME) {
+        throw new JsonParseException("Field name expected", jp.getCurrentLocation());
+      }
+
+      final String fieldName = jp.getText();
+      jp.nextToken();
+      result.put(fieldName, parseObject(jp));
+    }
+    return result.isEmpty() ? Collections.<String, Object>emptyMap() : result;
+  }
+
+  @Nonnull
+  public static List<?> parseArray(@Nonnull JsonParser jp) throws IOException {
+    JsonToken token = jp.getCurrentToken();
+    if (token != JsonToken.START_ARRAY) {
+      throw new JsonParseException("Array expected", jp.getCurrentLocation());
+    }
+
+    final List<Object> result = new ArrayList<>();
+    for (token = jp.nextToken(); token != JsonToken.END_ARRAY; token = jp.nextToken()) {
+      result.add(parseObject(jp));
+    }
+    return result.isEmpty() ? Collections.emptyList() : result;
+  }
+
+  @Nullable
+  public static Object parseObject(@Nonnull JsonParser jp) throws IOException {
+    JsonToken token = jp.getCurrentToken();
+    if (token == null) {
+      throw new JsonParseException("Unexpected end of input", jp.getCurrentLocation());
+    }
+
+    switch (token) {
+      case VALUE_NULL:
+        return null;
+
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return jp.getBooleanValue();
+
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        switch (jp.getNumberType()) {
+          case INT:
+            return jp.getIntValue();
+          case LONG:
+            return jp.getLongValue();
+          case FLOAT:
+            return jp.getFloatValue();
+          case DOUBLE:
+            return jp.getDoubleValue();
+          case BIG_DECIMAL:
+            return jp.getDecimalValue();
+          case BIG_INTEGER:
+            return jp.getBigIntegerValue();
+          default:
+            throw new JsonParseException("Unknown numberType=" + jp.getNumberType(), jp.getCurrentLocation());
+        }
+
+      case VALUE_STRING:
+        return jp.getText();
+
+      case START_OBJECT:
+        return parseMap(jp);
+
+      case START_ARRAY:
+        return parseArray(jp);
+
+      default:
+        throw new JsonParseException("Unexpected token=" + token, jp.getCurrentLocation());
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.truward.metrics.json.internal.reader;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream, that reads the given source stream on the dedicated thread into one of two buffers, while
+ * the caller reads another one, so that reading the source, e.g. decompressing, overlaps with processing
+ * of the data read.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class ReadAheadInputStream extends InputStream {
+  /**
+   * Default size of the each of two buffers, 256 Kilobytes.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+  private final InputStream source;
+  private final BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<>(2);
+  private final BlockingQueue<Chunk> filledChunks = new ArrayBlockingQueue<>(2);
+  private final Thread readerThread;
+
+  private Chunk current;
+  private int pos;
+  private boolean closed;
+
+  public ReadAheadInputStream(@Nonnull InputStream source, int bufferSize, @Nonnull String threadName) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("bufferSize should be greater than zero");
+    }
+
+    this.source = source;
+    freeChunks.add(new Chunk(bufferSize));
+    freeChunks.add(new Chunk(bufferSize));
+
+    this.readerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        readLoop();
+      }
+    }, threadName);
+    this.readerThread.setDaemon(true);
+    this.readerThread.start();
+  }
+
+  public ReadAheadInputStream(@Nonnull InputStream source) {
+    this(source, DEFAULT_BUFFER_SIZE, "metrics4j-read-ahead");
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensureAvailable()) {
+      return -1;
+    }
+    return current.data[pos++] & 0xff;
+  }
+
+  @Override
+  public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!ensureAvailable()) {
+      return -1;
+    }
+
+    final int count = Math.min(len, current.length - pos);
+    System.arraycopy(current.data, pos, b, off, count);
+    pos += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return current != null && current.length > 0 ? current.length - pos : 0;
+  }
+
+  /**
+   * Stops reader thread and closes source stream.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    readerThread.interrupt();
+    try {
+      readerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    source.close();
+  }
+
+  //
+  // Private
+  //
+
+  /**
+   * @return False, if end of the source stream has been reached
+   */
+  private boolean ensureAvailable() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+
+    while (current == null || pos >= current.length) {
+      if (current != null) {
+        if (current.length < 0) {
+          if (current.error != null) {
+            throw new IOException("Error while reading source stream", current.error);
+          }
+          return false; // end of the stream, keep returning -1
+        }
+        freeChunks.add(current); // buffer has been consumed, let reader thread to fill it again
+      }
+
+      try {
+        current = filledChunks.take();
+      } catch (InterruptedException e) {
+        current = null;
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for data");
+      }
+      pos = 0;
+    }
+    return true;
+  }
+
+  private void readLoop() {
+    try {
+      for (;;) {
+        Chunk chunk = freeChunks.take();
+        chunk.length = 0;
+        IOException error = null;
+        try {
+          // fill the whole chunk unless end of the stream is reached
+          while (chunk.length < chunk.data.length) {
+            final int read = source.read(chunk.data, chunk.length, chunk.data.length - chunk.length);
+            if (read < 0) {
+              break;
+            }
+            chunk.length += read;
+          }
+        } catch (IOException e) {
+          error = e;
+        }
+
+        if (chunk.length > 0) {
+          filledChunks.put(chunk);
+          if (error == null && chunk.length == chunk.data.length) {
+            continue;
+          }
+          chunk = freeChunks.take(); // there is no more data or error happened, report it with a separate chunk
+        }
+
+        chunk.error = error;
+        chunk.length = -1;
+        filledChunks.put(chunk);
+        return;
+      }
+    } catch (InterruptedException ignored) {
+      // stream has been closed
+    }
+  }
+
+  private static final class Chunk {
+    final byte[] data;
+    int length;
+    IOException error;
+
+    Chunk(int size) {
+      this.data = new byte[size];
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.truward.metrics.json.internal.reader;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Helpers for finding newline-separated metrics records.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class RecordFraming {
+  private RecordFraming() {} // Hidden
+
+  /**
+   * Byte, that separates metrics records.
+   */
+  public static final byte RECORD_SEPARATOR = '\n';
+
+  private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+  private static final long SEPARATOR_WORD = 0x0101010101010101L * RECORD_SEPARATOR;
+
+  /**
+   * Finds record separator by testing eight bytes at a time.
+   *
+   * @param buffer Source buffer
+   * @param from   Start position, inclusive
+   * @param to     End position, exclusive
+   * @return Position of the record separator in the given region or -1 if there is no separator
+   */
+  public static int indexOfSeparator(@Nonnull ByteBuffer buffer, int from, int to) {
+    final boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+    int i = from;
+    for (; i + 8 <= to; i += 8) {
+      // bytes equal to separator become zero, then high bit is set exactly in each zero byte
+      final long word = buffer.getLong(i) ^ SEPARATOR_WORD;
+      final long zeroBytes = ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+      if (zeroBytes != 0L) {
+        final int bitIndex = littleEndian ? Long.numberOfTrailingZeros(zeroBytes) :
+            Long.numberOfLeadingZeros(zeroBytes);
+        return i + (bitIndex >>> 3);
+      }
+    }
+
+    for (; i < to; ++i) {
+      if (buffer.get(i) == RECORD_SEPARATOR) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param buffer Source buffer
+   * @param from   Start position, inclusive
+   * @param to     End position, exclusive
+   * @return True, if the given region contains nothing but whitespace
+   */
+  public static boolean isBlank(@Nonnull ByteBuffer buffer, int from, int to) {
+    for (int i = from; i < to; ++i) {
+      final byte ch = buffer.get(i);
+      if (ch != ' ' && ch != '\t' && ch != '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,122 @@
+package com.truward.metrics.json.internal.reader;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream, that splits the source stream into segments, separated by one or more marker bytes, e.g.
+ * Smile end-of-content markers. End of the each segment is reported as the end of the stream, reading of the next
+ * segment is started by calling {@link #nextSegment()}, so that each segment can be read by the separate parser.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class SegmentInputStream extends InputStream {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final InputStream source;
+  private final byte marker;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int pos;
+  private int limit;
+  private boolean segmentEnd = true; // nextSegment should be called first
+  private boolean sourceEnd;
+
+  public SegmentInputStream(@Nonnull InputStream source, byte marker) {
+    this.source = source;
+    this.marker = marker;
+  }
+
+  /**
+   * Skips the rest of the current segment, if any, and the following markers.
+   *
+   * @return True, if the next segment has been started, false if there are no more segments
+   * @throws IOException On I/O error
+   */
+  public boolean nextSegment() throws IOException {
+    for (;;) {
+      if (pos == limit && !fill()) {
+        return false;
+      }
+
+      if (segmentEnd && buffer[pos] != marker) {
+        segmentEnd = false;
+        return true;
+      }
+
+      segmentEnd = buffer[pos++] == marker; // skip the rest of the segment and markers
+    }
+  }
+
+  /**
+   * @return True, if the source stream has been read completely
+   */
+  public boolean isEndOfInput() {
+    return sourceEnd && pos == limit;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (segmentEnd || (pos == limit && !fill())) {
+      return -1;
+    }
+
+    if (buffer[pos] == marker) {
+      segmentEnd = true;
+      return -1;
+    }
+    return buffer[pos++] & 0xFF;
+  }
+
+  @Override
+  public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (segmentEnd || (pos == limit && !fill())) {
+      return -1;
+    }
+
+    final int start = pos;
+    final int end = start + Math.min(len, limit - start);
+    int i = start;
+    while (i < end && buffer[i] != marker) {
+      ++i;
+    }
+
+    if (i == start) {
+      segmentEnd = true;
+      return -1;
+    }
+
+    System.arraycopy(buffer, start, b, off, i - start);
+    pos = i;
+    return i - start;
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+
+  //
+  // Private
+  //
+
+  private boolean fill() throws IOException {
+    while (!sourceEnd) {
+      final int read = source.read(buffer, 0, buffer.length);
+      if (read < 0) {
+        sourceEnd = true;
+      } else if (read > 0) {
+        pos = 0;
+        limit = read;
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,85 @@
+package com.truward.metrics.json.internal.streaming;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Small open-addressing hash set of field names, used to detect duplicate entries in the record being written.
+ * Names are compared by identity first, as most of the names are string constants.
+ * <p>Instances of this class are not thread safe.</p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class NameSet {
+  private static final int DEFAULT_CAPACITY = 32;
+
+  private String[] table;
+  private int size;
+
+  public NameSet() {
+    this.table = new String[DEFAULT_CAPACITY];
+  }
+
+  /**
+   * Adds name to this set.
+   *
+   * @param name Name to add
+   * @return True, if name has been added, false if this set already contains the given name
+   */
+  public boolean add(@Nonnull String name) {
+    if ((size + 1) * 2 > table.length) {
+      rehash(table.length * 2);
+    }
+
+    final int mask = table.length - 1;
+    for (int index = spread(name.hashCode()) & mask;; index = (index + 1) & mask) {
+      final String existing = table[index];
+      if (existing == null) {
+        table[index] = name;
+        ++size;
+        return true;
+      }
+
+      if (existing == name || existing.equals(name)) {
+        return false;
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    if (size > 0) {
+      Arrays.fill(table, null);
+      size = 0;
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private void rehash(int newCapacity) {
+    final String[] oldTable = table;
+    table = new String[newCapacity];
+    final int mask = newCapacity - 1;
+    for (final String name : oldTable) {
+      if (name == null) {
+        continue;
+      }
+
+      int index = spread(name.hashCode()) & mask;
+      while (table[index] != null) {
+        index = (index + 1) & mask;
+      }
+      table[index] = name;
+    }
+  }
+}
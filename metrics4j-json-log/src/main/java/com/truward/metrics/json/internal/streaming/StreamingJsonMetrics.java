@@ -0,0 +1,211 @@
+package com.truward.metrics.json.internal.streaming;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.json.internal.appender.RawRecordAppender;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Implementation of {@link com.truward.metrics.Metrics}, that serializes each entry as JSON right when it is put,
+ * so that closing the metrics only passes ready bytes to the appender.
+ * <p>
+ * Duplicate entries are reported, but, unlike map-based metrics, both entries are written and the readers are
+ * expected to keep the last one.
+ * If an entry can't be serialized, e.g. because of an unsupported value type, an exception is thrown from
+ * the corresponding put method and the whole record is discarded.
+ * </p>
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class StreamingJsonMetrics implements Metrics {
+  private final StreamingRecordWriterPool pool;
+  private RawRecordAppender appender;
+  private StreamingRecordWriter writer; // null if record has been discarded or written
+  private boolean failed;
+
+  public StreamingJsonMetrics(@Nonnull StreamingRecordWriterPool pool, @Nonnull RawRecordAppender appender) {
+    this.pool = pool;
+    this.appender = appender;
+    this.writer = pool.acquire();
+    try {
+      writer.startRecord();
+    } catch (IOException e) {
+      throw fail(e);
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, boolean value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getJsonGenerator().writeBoolean(value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, char value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getValueWriter().writeChar(w.getJsonGenerator(), value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, int value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getJsonGenerator().writeNumber(value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, float value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getJsonGenerator().writeNumber(value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, double value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getJsonGenerator().writeNumber(value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, long value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getJsonGenerator().writeNumber(value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull String name, @Nonnull CharSequence value) {
+    putObject(name, value);
+  }
+
+  @Override
+  public <T> void put(@Nonnull String name, @Nonnull Collection<T> value) {
+    putObject(name, value);
+  }
+
+  @Override
+  public <K, V> void put(@Nonnull String name, @Nonnull Map<K, V> value) {
+    putObject(name, value);
+  }
+
+  @Override
+  public void close() {
+    final RawRecordAppender a = appender;
+    if (a == null) {
+      throw new IllegalStateException("Metrics instance has been already closed.");
+    }
+    appender = null;
+
+    final StreamingRecordWriter w = writer;
+    if (w == null) {
+      return; // record has been discarded
+    }
+    writer = null;
+
+    try {
+      w.endRecord(a);
+    } catch (IOException e) {
+      w.discard();
+      throw new IllegalStateException("Unable to serialize metrics record", e);
+    } finally {
+      pool.release(w);
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void putObject(@Nonnull String name, @Nonnull Object value) {
+    final StreamingRecordWriter w = startEntry(name);
+    if (w != null) {
+      try {
+        w.getValueWriter().writeValue(w.getJsonGenerator(), value);
+      } catch (IOException | RuntimeException e) {
+        throw fail(e);
+      }
+    }
+  }
+
+  /**
+   * Writes field name of the new entry.
+   *
+   * @return Writer or null if record has been discarded because of the previous error
+   */
+  private StreamingRecordWriter startEntry(@Nonnull String name) {
+    if (appender == null) {
+      throw new IllegalStateException("Metric object is not writable, it has been closed");
+    }
+
+    final StreamingRecordWriter w = writer;
+    if (w == null) {
+      assert failed;
+      return null; // entries of the discarded record are ignored
+    }
+
+    try {
+      if (w.writeFieldName(name)) {
+        appender.reportDuplicateEntry(w.getPartialRecord(), name);
+      }
+    } catch (IOException | RuntimeException e) {
+      throw fail(e);
+    }
+    return w;
+  }
+
+  /**
+   * Discards current record and returns an exception, that should be thrown to the caller.
+   */
+  @Nonnull
+  private RuntimeException fail(@Nonnull Exception e) {
+    failed = true;
+    final StreamingRecordWriter w = writer;
+    if (w != null) {
+      writer = null;
+      w.discard();
+      pool.release(w);
+    }
+
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    return new IllegalStateException("Unable to serialize metrics entry", e);
+  }
+}
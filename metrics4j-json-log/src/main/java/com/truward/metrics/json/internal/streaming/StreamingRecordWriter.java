@@ -0,0 +1,126 @@
+package com.truward.metrics.json.internal.streaming;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.truward.metrics.json.internal.appender.JacksonValueWriter;
+import com.truward.metrics.json.internal.appender.RawRecordAppender;
+import com.truward.metrics.json.internal.appender.RecordBuffer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Holds state, needed to serialize a single record directly into the UTF-8 byte buffer: the buffer itself,
+ * long-lived JSON generator, that writes into this buffer, cache of pre-encoded names and set of names written
+ * so far.
+ * Writers are owned by {@link StreamingRecordWriterPool} and used by one metrics instance at a time.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class StreamingRecordWriter {
+  private final JsonFactory factory;
+  private final RecordBuffer buffer = new RecordBuffer();
+  private final JacksonValueWriter valueWriter = new JacksonValueWriter();
+  private final NameSet names = new NameSet();
+  private JsonGenerator generator;
+
+  /** Set by the pool when writer is handed over to the metrics instance, reset when record is written. */
+  volatile boolean inUse;
+
+  StreamingRecordWriter(@Nonnull JsonFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Starts a new record.
+   *
+   * @throws IOException On serialization error
+   */
+  public void startRecord() throws IOException {
+    getGenerator().writeStartObject();
+  }
+
+  /**
+   * Writes field name of the next entry.
+   *
+   * @param name Field name
+   * @return True, if record already has an entry with the same name
+   * @throws IOException On serialization error
+   */
+  public boolean writeFieldName(@Nonnull String name) throws IOException {
+    //noinspection ConstantConditions
+    if (name == null) {
+      throw new IllegalArgumentException("name can't be null");
+    }
+
+    final boolean duplicate = !names.add(name);
+    valueWriter.writeFieldName(generator, name);
+    return duplicate;
+  }
+
+  @Nonnull public JsonGenerator getJsonGenerator() {
+    return generator;
+  }
+
+  @Nonnull public JacksonValueWriter getValueWriter() {
+    return valueWriter;
+  }
+
+  /**
+   * Completes current record and passes its bytes, including trailing newline, to the given appender.
+   *
+   * @param appender Target appender
+   * @throws IOException On serialization error
+   */
+  public void endRecord(@Nonnull RawRecordAppender appender) throws IOException {
+    generator.writeEndObject();
+    generator.flush();
+    buffer.write('\n');
+    appender.writeRaw(buffer.array(), 0, buffer.size());
+    reset();
+  }
+
+  /**
+   * @return Partially written record, used for error reporting
+   */
+  @Nonnull public Map<String, Object> getPartialRecord() {
+    try {
+      generator.flush();
+    } catch (IOException ignored) {
+      // shouldn't happen: generator writes into memory buffer
+    }
+    return Collections.<String, Object>singletonMap("partialJson",
+        new String(buffer.array(), 0, buffer.size(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Discards current record along with the generator, state of which might be undefined.
+   */
+  public void discard() {
+    generator = null;
+    reset();
+  }
+
+  //
+  // Private
+  //
+
+  private void reset() {
+    buffer.reset();
+    names.clear();
+  }
+
+  @Nonnull private JsonGenerator getGenerator() throws IOException {
+    JsonGenerator result = generator;
+    if (result == null) {
+      result = factory.createGenerator(buffer);
+      result.setRootValueSeparator(null); // records are separated by newline which is written explicitly
+      generator = result;
+    }
+    return result;
+  }
+}
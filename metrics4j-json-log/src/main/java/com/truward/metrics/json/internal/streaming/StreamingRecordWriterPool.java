@@ -0,0 +1,62 @@
+package com.truward.metrics.json.internal.streaming;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Keeps per-thread {@link StreamingRecordWriter} instances.
+ * Each thread usually needs one writer, but nested metrics, which are open at the same time on the same thread,
+ * need one writer each, so each thread keeps a few writers and hands out the first one which is not in use.
+ * <p>THIS CLASS IS NOT A PART OF THE PUBLIC API.</p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class StreamingRecordWriterPool {
+  /**
+   * Maximum count of writers, retained per thread. Deeper nesting is served by writers which are not retained.
+   */
+  private static final int MAX_WRITERS_PER_THREAD = 8;
+
+  private final JsonFactory factory = new JsonFactory();
+  private final ThreadLocal<StreamingRecordWriter[]> writers = new ThreadLocal<StreamingRecordWriter[]>() {
+    @Override
+    protected StreamingRecordWriter[] initialValue() {
+      return new StreamingRecordWriter[MAX_WRITERS_PER_THREAD];
+    }
+  };
+
+  public StreamingRecordWriterPool() {
+    factory.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+  }
+
+  /**
+   * Returns writer, which is not in use by any other metrics instance.
+   * Writer is released once the record is written or discarded, see {@link #release(StreamingRecordWriter)}.
+   *
+   * @return Writer instance
+   */
+  @Nonnull
+  public StreamingRecordWriter acquire() {
+    final StreamingRecordWriter[] threadWriters = writers.get();
+    for (int i = 0; i < threadWriters.length; ++i) {
+      StreamingRecordWriter writer = threadWriters[i];
+      if (writer == null) {
+        writer = new StreamingRecordWriter(factory);
+        threadWriters[i] = writer;
+      } else if (writer.inUse) {
+        continue;
+      }
+
+      writer.inUse = true;
+      return writer;
+    }
+
+    return new StreamingRecordWriter(factory); // too many nested metrics, this writer won't be reused
+  }
+
+  public void release(@Nonnull StreamingRecordWriter writer) {
+    writer.inUse = false;
+  }
+}
@@ -1,11 +1,13 @@
 package com.truward.metrics.json.reader;
 
+import com.truward.metrics.json.internal.reader.RecordFraming;
 import com.truward.metrics.reader.MetricsReader;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -25,6 +27,10 @@ import java.util.Map;
  * up to the given maxim buffer size. If certain metrics record exceeds maximum buffer size, an exception will
  * be thrown and reader will be reset.
  * </p>
+ * <p>
+ * Records are found according to the given {@link RecordFramingMode}, in {@link RecordFramingMode#NEWLINE} mode
+ * malformed or too large record results in an exception, but subsequent reads continue from the next record.
+ * </p>
  *
  * @author Alexander Shabanov
  */
@@ -43,6 +49,12 @@ public abstract class AbstractJsonMetricsReader implements MetricsReader {
   private int pos = 0;
   private int last = 0;
   private final int maxBufferSize;
+  private final RecordFramingMode framingMode;
+
+  // newline framing state
+  private ByteBuffer bufferView; // wraps buffer, used to scan it by words
+  private int scanPos = 0; // position, up to which the current record has been scanned for separator
+  private boolean skippingRecord = false; // true if the rest of the too large record should be skipped
 
   private InputStream inputStream;
 
@@ -54,8 +66,10 @@ public abstract class AbstractJsonMetricsReader implements MetricsReader {
    * @param initialBufferSize Initial size of the internal buffer, usually {@link #DEFAULT_BUFFER_SIZE}
    * @param maxBufferSize     Maximum size of the internal buffer, that no entry in the given input stream
    *                          should exceed. Usually {@link #DEFAULT_MAX_BUFFER_SIZE}
+   * @param framingMode       Defines, how records are found in the given stream
    */
-  public AbstractJsonMetricsReader(@Nonnull InputStream inputStream, int initialBufferSize, int maxBufferSize) {
+  public AbstractJsonMetricsReader(@Nonnull InputStream inputStream, int initialBufferSize, int maxBufferSize,
+                                   @Nonnull RecordFramingMode framingMode) {
     if (initialBufferSize <= 0) {
       throw new IllegalArgumentException("initialBufferSize should be greater than zero");
     }
@@ -69,9 +83,28 @@ public abstract class AbstractJsonMetricsReader implements MetricsReader {
       throw new NullPointerException("inputStream can't be null");
     }
 
+    //noinspection ConstantConditions
+    if (framingMode == null) {
+      throw new NullPointerException("framingMode can't be null");
+    }
+
     this.inputStream = inputStream;
     this.buffer = new byte[initialBufferSize];
+    this.bufferView = ByteBuffer.wrap(buffer);
     this.maxBufferSize = maxBufferSize;
+    this.framingMode = framingMode;
+  }
+
+  /**
+   * Creates an instance of the metrics reader object, that finds records by balancing curly braces.
+   *
+   * @param inputStream       Source input stream
+   * @param initialBufferSize Initial size of the internal buffer, usually {@link #DEFAULT_BUFFER_SIZE}
+   * @param maxBufferSize     Maximum size of the internal buffer, that no entry in the given input stream
+   *                          should exceed. Usually {@link #DEFAULT_MAX_BUFFER_SIZE}
+   */
+  public AbstractJsonMetricsReader(@Nonnull InputStream inputStream, int initialBufferSize, int maxBufferSize) {
+    this(inputStream, initialBufferSize, maxBufferSize, RecordFramingMode.BRACES);
   }
 
   public AbstractJsonMetricsReader(@Nonnull InputStream inputStream) {
@@ -85,6 +118,9 @@ public abstract class AbstractJsonMetricsReader implements MetricsReader {
       throw new IllegalStateException("Reader closed, can't read another metric");
     }
 
+    if (framingMode == RecordFramingMode.NEWLINE) {
+      return readNewlineFramed();
+    }
     return readFromPos();
   }
 
@@ -115,6 +151,7 @@ public abstract class AbstractJsonMetricsReader implements MetricsReader {
 
     if (buffer != null) {
       buffer = null;
+      bufferView = null;
     }
   }
 
@@ -122,6 +159,91 @@ public abstract class AbstractJsonMetricsReader implements MetricsReader {
   // Private
   //
 
+  @Nullable
+  private Map<String, ?> readNewlineFramed() throws IOException {
+    for (;;) {
+      if (last < 0) {
+        return null; // end of the stream
+      }
+
+      final int end = RecordFraming.indexOfSeparator(bufferView, scanPos, last);
+      if (end < 0) {
+        scanPos = last; // the rest of the buffer won't be scanned again
+        if (!fillNewlineFramed()) {
+          return readLastRecord();
+        }
+        continue;
+      }
+
+      final int start = pos;
+      pos = end + 1;
+      scanPos = pos;
+      if (skippingRecord) {
+        skippingRecord = false; // found end of the too large record
+        continue;
+      }
+
+      if (!RecordFraming.isBlank(bufferView, start, end)) {
+        // position is already after this record, so if it is malformed the next read starts from the next record
+        return parseJson(buffer, start, end - start);
+      }
+    }
+  }
+
+  /**
+   * Reads more data into the buffer, moving current record to the beginning of the buffer or
+   * growing the buffer if needed.
+   *
+   * @return False, if end of the stream has been reached
+   */
+  private boolean fillNewlineFramed() throws IOException {
+    if (skippingRecord) {
+      pos = scanPos = last = 0; // nothing in the buffer belongs to the record being read
+    } else if (pos > 0) {
+      final int count = last - pos;
+      System.arraycopy(buffer, pos, buffer, 0, count);
+      scanPos -= pos;
+      last = count;
+      pos = 0;
+    }
+
+    if (last == buffer.length) {
+      if (buffer.length >= maxBufferSize) {
+        // give up on this record, but continue with the subsequent ones
+        skippingRecord = true;
+        pos = scanPos = last = 0;
+        throw new IOException("Current JSON entry is too large, exceeding maxBufferSize=" + maxBufferSize +
+            " byte(s)");
+      }
+
+      final byte[] newBuffer = new byte[Math.min(buffer.length * 2, maxBufferSize)];
+      System.arraycopy(buffer, 0, newBuffer, 0, last);
+      buffer = newBuffer;
+      bufferView = ByteBuffer.wrap(newBuffer);
+    }
+
+    final int read = inputStream.read(buffer, last, buffer.length - last);
+    if (read <= 0) {
+      return false;
+    }
+
+    last += read;
+    return true;
+  }
+
+  @Nullable
+  private Map<String, ?> readLastRecord() throws IOException {
+    final int start = pos;
+    final int end = last;
+    pos = scanPos = 0;
+    last = -1;
+    if (skippingRecord || RecordFraming.isBlank(bufferView, start, end)) {
+      return null;
+    }
+
+    return parseJson(buffer, start, end - start); // last record is not followed by newline
+  }
+
   @Nullable
   private Map<String, ?> readFromPos() throws IOException {
     assert buffer.length > 0;
@@ -0,0 +1,303 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.truward.metrics.json.internal.reader.JsonRecordParser;
+import com.truward.metrics.reader.MetricsCursor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Represents cursor over JSON-encoded metrics, read from the given UTF-8-encoded input stream.
+ * <p>
+ * Single parser is used for the whole stream and entries of the current record are kept in the reusable arrays:
+ * numbers and booleans are stored unboxed, characters of string values are stored in the reusable character buffer
+ * and strings are created only when requested. Field names are canonicalized by the parser, so that the same name
+ * instances are used for all the records. Only nested objects and arrays are materialized per record.
+ * </p>
+ * <p>
+ * Instances of this class are not thread safe. Reading can't be continued after parsing error.
+ * If the current record contains several entries with the same name, accessors return the last one,
+ * as other readers do.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class JsonMetricsCursor implements MetricsCursor {
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_BOOLEAN = 1;
+  private static final byte TYPE_INT = 2;
+  private static final byte TYPE_LONG = 3;
+  private static final byte TYPE_DOUBLE = 4;
+  private static final byte TYPE_STRING = 5;
+  private static final byte TYPE_OBJECT = 6; // nested maps, lists, big numbers
+
+  private static final int INITIAL_CAPACITY = 32;
+
+  private final JsonParser parser;
+  private boolean closed = false;
+
+  // current record
+  private int size = 0;
+  private String[] names = new String[INITIAL_CAPACITY];
+  private byte[] types = new byte[INITIAL_CAPACITY];
+  private long[] longs = new long[INITIAL_CAPACITY]; // integral and boolean values, offsets of string values
+  private double[] doubles = new double[INITIAL_CAPACITY];
+  private int[] textLengths = new int[INITIAL_CAPACITY];
+  private Object[] objects = new Object[INITIAL_CAPACITY];
+  private char[] text = new char[1024];
+  private int textSize = 0;
+
+  public JsonMetricsCursor(@Nonnull InputStream inputStream) throws IOException {
+    //noinspection ConstantConditions
+    if (inputStream == null) {
+      throw new NullPointerException("inputStream can't be null");
+    }
+
+    this.parser = new JsonFactory().createParser(inputStream);
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Cursor closed, can't read another metric");
+    }
+
+    clear();
+    JsonToken token = parser.nextToken();
+    if (token == null) {
+      return false; // end of the stream
+    }
+
+    if (token != JsonToken.START_OBJECT) {
+      throw new JsonParseException("Map expected", parser.getCurrentLocation());
+    }
+
+    for (token = parser.nextToken(); token != JsonToken.END_OBJECT; token = parser.nextToken()) {
+      if (token != JsonToken.FIELD_NAME) {
+        throw new JsonParseException("Field name expected", parser.getCurrentLocation());
+      }
+
+      final int index = addEntry(parser.getCurrentName());
+      parser.nextToken();
+      readValue(index);
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Nonnull
+  @Override
+  public String getName(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+    }
+    return names[index];
+  }
+
+  @Override
+  public boolean has(@Nonnull String name) {
+    return indexOf(name) >= 0;
+  }
+
+  @Override
+  public long getLong(@Nonnull String name, long defaultValue) {
+    final int index = indexOf(name);
+    if (index >= 0) {
+      switch (types[index]) {
+        case TYPE_INT:
+        case TYPE_LONG:
+          return longs[index];
+        case TYPE_DOUBLE:
+          return (long) doubles[index];
+        case TYPE_OBJECT:
+          if (objects[index] instanceof Number) {
+            return ((Number) objects[index]).longValue();
+          }
+          break;
+      }
+    }
+    return defaultValue;
+  }
+
+  @Override
+  public double getDouble(@Nonnull String name, double defaultValue) {
+    final int index = indexOf(name);
+    if (index >= 0) {
+      switch (types[index]) {
+        case TYPE_INT:
+        case TYPE_LONG:
+          return longs[index];
+        case TYPE_DOUBLE:
+          return doubles[index];
+        case TYPE_OBJECT:
+          if (objects[index] instanceof Number) {
+            return ((Number) objects[index]).doubleValue();
+          }
+          break;
+      }
+    }
+    return defaultValue;
+  }
+
+  @Override
+  public boolean getBoolean(@Nonnull String name, boolean defaultValue) {
+    final int index = indexOf(name);
+    if (index >= 0 && types[index] == TYPE_BOOLEAN) {
+      return longs[index] != 0L;
+    }
+    return defaultValue;
+  }
+
+  @Nullable
+  @Override
+  public String getString(@Nonnull String name) {
+    final int index = indexOf(name);
+    if (index >= 0 && types[index] == TYPE_STRING) {
+      return new String(text, (int) longs[index], textLengths[index]);
+    }
+    return null;
+  }
+
+  @Nullable
+  @Override
+  public Object get(@Nonnull String name) {
+    final int index = indexOf(name);
+    if (index < 0) {
+      return null;
+    }
+
+    switch (types[index]) {
+      case TYPE_BOOLEAN:
+        return longs[index] != 0L;
+      case TYPE_INT:
+        return (int) longs[index];
+      case TYPE_LONG:
+        return longs[index];
+      case TYPE_DOUBLE:
+        return doubles[index];
+      case TYPE_STRING:
+        return new String(text, (int) longs[index], textLengths[index]);
+      case TYPE_OBJECT:
+        return objects[index];
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Closes this cursor with the associated input stream.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      clear();
+      parser.close();
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void clear() {
+    Arrays.fill(objects, 0, size, null);
+    size = 0;
+    textSize = 0;
+  }
+
+  private int indexOf(@Nonnull String name) {
+    for (int i = size - 1; i >= 0; --i) {
+      final String n = names[i];
+      if (n == name || n.equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int addEntry(@Nonnull String name) {
+    if (size == names.length) {
+      final int newCapacity = size * 2;
+      names = Arrays.copyOf(names, newCapacity);
+      types = Arrays.copyOf(types, newCapacity);
+      longs = Arrays.copyOf(longs, newCapacity);
+      doubles = Arrays.copyOf(doubles, newCapacity);
+      textLengths = Arrays.copyOf(textLengths, newCapacity);
+      objects = Arrays.copyOf(objects, newCapacity);
+    }
+
+    names[size] = name;
+    return size++;
+  }
+
+  private void readValue(int index) throws IOException {
+    final JsonToken token = parser.getCurrentToken();
+    switch (token) {
+      case VALUE_NULL:
+        types[index] = TYPE_NULL;
+        break;
+
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        types[index] = TYPE_BOOLEAN;
+        longs[index] = token == JsonToken.VALUE_TRUE ? 1L : 0L;
+        break;
+
+      case VALUE_NUMBER_INT:
+        switch (parser.getNumberType()) {
+          case INT:
+            types[index] = TYPE_INT;
+            longs[index] = parser.getIntValue();
+            break;
+          case LONG:
+            types[index] = TYPE_LONG;
+            longs[index] = parser.getLongValue();
+            break;
+          default:
+            types[index] = TYPE_OBJECT;
+            objects[index] = JsonRecordParser.parseObject(parser);
+        }
+        break;
+
+      case VALUE_NUMBER_FLOAT:
+        types[index] = TYPE_DOUBLE;
+        doubles[index] = parser.getDoubleValue();
+        break;
+
+      case VALUE_STRING:
+        types[index] = TYPE_STRING;
+        appendText(index);
+        break;
+
+      default:
+        types[index] = TYPE_OBJECT;
+        objects[index] = JsonRecordParser.parseObject(parser);
+    }
+  }
+
+  private void appendText(int index) throws IOException {
+    final int length = parser.getTextLength();
+    if (textSize + length > text.length) {
+      text = Arrays.copyOf(text, Math.max(text.length * 2, textSize + length));
+    }
+
+    System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(), text, textSize, length);
+    longs[index] = textSize;
+    textLengths[index] = length;
+    textSize += length;
+  }
+}
@@ -0,0 +1,191 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.truward.metrics.json.internal.reader.ReadAheadInputStream;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.reader.MetricsReader;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Factory methods for the metrics readers, that read metrics log files, including compressed ones.
+ * <p>
+ * Compression type is detected by the file name, see {@link CompressionType#fromFileName(String)}.
+ * Compressed files are decompressed on the dedicated read-ahead thread, so that decompression and parsing
+ * are performed in parallel. Format of the records is detected by the file contents, see
+ * {@link com.truward.metrics.json.settings.RecordFormat}.
+ * </p>
+ * <p>
+ * If the file has sparse index, see {@link LogIndex}, reading can be started from the given time without
+ * reading the preceding part of the file.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class JsonMetricsReaders {
+  private JsonMetricsReaders() {} // Hidden
+
+  private static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+  private static final byte[] SMILE_SIGNATURE = {
+      SmileConstants.HEADER_BYTE_1, SmileConstants.HEADER_BYTE_2, SmileConstants.HEADER_BYTE_3
+  };
+
+  /**
+   * Opens standard metrics reader for the given file, that might be compressed.
+   *
+   * @param file        Metrics log file
+   * @param framingMode Defines, how records are found in the given file
+   * @return Metrics reader
+   * @throws IOException On I/O error
+   */
+  @Nonnull
+  public static MetricsReader open(@Nonnull File file, @Nonnull RecordFramingMode framingMode) throws IOException {
+    return newReader(openInputStream(file), framingMode);
+  }
+
+  @Nonnull
+  public static MetricsReader open(@Nonnull File file) throws IOException {
+    return open(file, RecordFramingMode.BRACES);
+  }
+
+  /**
+   * Opens standard metrics reader for the given file, that might be compressed, skipping records written before
+   * the given time as far as the file index allows. Records written earlier might be still returned.
+   *
+   * @param file              Metrics log file
+   * @param writtenFromMillis Time of writing of the first record to be read
+   * @param framingMode       Defines, how records are found in the given file
+   * @return Metrics reader
+   * @throws IOException On I/O error
+   */
+  @Nonnull
+  public static MetricsReader open(@Nonnull File file, long writtenFromMillis,
+                                   @Nonnull RecordFramingMode framingMode) throws IOException {
+    return newReader(openInputStream(file, writtenFromMillis), framingMode);
+  }
+
+  /**
+   * Creates metrics reader for the given stream, that reads records in the format, detected by the first bytes
+   * of the stream: {@link SmileMetricsReader} if stream starts with Smile header or end-of-content marker,
+   * {@link StandardJsonMetricsReader} otherwise.
+   *
+   * @param inputStream Uncompressed input stream
+   * @param framingMode Defines, how JSON records are found in the given stream
+   * @return Metrics reader
+   * @throws IOException On I/O error
+   */
+  @Nonnull
+  public static MetricsReader newReader(@Nonnull InputStream inputStream,
+                                        @Nonnull RecordFramingMode framingMode) throws IOException {
+    final PushbackInputStream pushbackStream = new PushbackInputStream(inputStream, SMILE_SIGNATURE.length);
+    final byte[] head = new byte[SMILE_SIGNATURE.length];
+    int headLength = 0;
+    while (headLength < head.length) {
+      final int read = pushbackStream.read(head, headLength, head.length - headLength);
+      if (read < 0) {
+        break;
+      }
+      headLength += read;
+    }
+    pushbackStream.unread(head, 0, headLength);
+
+    if (isSmile(head, headLength)) {
+      return new SmileMetricsReader(pushbackStream);
+    }
+    return new StandardJsonMetricsReader(pushbackStream, AbstractJsonMetricsReader.DEFAULT_BUFFER_SIZE,
+        AbstractJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE, framingMode);
+  }
+
+  /**
+   * Opens input stream, that reads uncompressed contents of the given metrics log file.
+   * Zip archive is expected to contain the metrics log as its first entry.
+   *
+   * @param file Metrics log file
+   * @return Input stream
+   * @throws IOException On I/O error
+   */
+  @Nonnull
+  public static InputStream openInputStream(@Nonnull File file) throws IOException {
+    return openInputStreamAt(file, 0L);
+  }
+
+  /**
+   * Opens input stream, that reads uncompressed contents of the given metrics log file, starting from the index
+   * entry, that precedes the given time, see {@link LogIndex#getOffsetBefore(long)}. If file has no index,
+   * the whole contents is read.
+   *
+   * @param file              Metrics log file
+   * @param writtenFromMillis Time of writing of the first record to be read
+   * @return Input stream
+   * @throws IOException On I/O error
+   */
+  @Nonnull
+  public static InputStream openInputStream(@Nonnull File file, long writtenFromMillis) throws IOException {
+    final LogIndex index = LogIndex.read(file);
+    return openInputStreamAt(file, index != null ? index.getOffsetBefore(writtenFromMillis) : 0L);
+  }
+
+  //
+  // Private
+  //
+
+  private static boolean isSmile(@Nonnull byte[] head, int length) {
+    if (length > 0 && head[0] == SmileConstants.BYTE_MARKER_END_OF_CONTENT) {
+      return true; // stream starts at the segment boundary, the byte is not valid in UTF-8
+    }
+
+    if (length < SMILE_SIGNATURE.length) {
+      return false;
+    }
+
+    for (int i = 0; i < SMILE_SIGNATURE.length; ++i) {
+      if (head[i] != SMILE_SIGNATURE[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nonnull
+  private static InputStream openInputStreamAt(@Nonnull File file, long offset) throws IOException {
+    final CompressionType compressionType = CompressionType.fromFileName(file.getName());
+    final FileInputStream fileStream = new FileInputStream(file);
+    try {
+      if (offset > 0L) {
+        if (compressionType == CompressionType.ZIP) {
+          throw new IOException("Zip file " + file + " can't be read starting from offset=" + offset);
+        }
+        fileStream.getChannel().position(offset); // start of the record or independently compressed part
+      }
+
+      switch (compressionType) {
+        case NONE:
+          return fileStream;
+
+        case GZIP:
+          return new ReadAheadInputStream(new GZIPInputStream(fileStream, DECOMPRESSION_BUFFER_SIZE));
+
+        case ZIP:
+          final ZipInputStream zipStream = new ZipInputStream(fileStream);
+          if (zipStream.getNextEntry() == null) {
+            throw new IOException("Zip file " + file + " has no entries");
+          }
+          return new ReadAheadInputStream(zipStream);
+
+        default:
+          throw new IllegalStateException("Unknown compressionType=" + compressionType); // shouldn't happen
+      }
+    } catch (IOException | RuntimeException e) {
+      fileStream.close();
+      throw e;
+    }
+  }
+}
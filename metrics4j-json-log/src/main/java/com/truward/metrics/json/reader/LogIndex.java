@@ -0,0 +1,101 @@
+package com.truward.metrics.json.reader;
+
+import com.truward.metrics.json.internal.index.LogIndexFormat;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Represents sparse index of the metrics log file, written by the rolling log appender alongside the file, if
+ * enabled in {@link com.truward.metrics.json.settings.TimeBasedRollingLogSettings}.
+ * <p>
+ * Each entry of the index points to the start of the record, the time of the entry is not less than the time, when
+ * any of the preceding records has been written. Entries of the compressed file point to the starts of
+ * the independently compressed parts of the file, e.g. gzip members, so that reading can be started from any entry.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class LogIndex {
+  private final long[] times;
+  private final long[] offsets;
+
+  private LogIndex(@Nonnull long[] times, @Nonnull long[] offsets) {
+    this.times = times;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Reads index of the given file.
+   *
+   * @param file Indexed metrics log file
+   * @return Index or null, if the given file has no index
+   * @throws IOException On I/O error or if index file is malformed
+   */
+  @Nullable
+  public static LogIndex read(@Nonnull File file) throws IOException {
+    final File indexFile = LogIndexFormat.getIndexFile(file);
+    final byte[] content;
+    try (final RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "r")) {
+      final long length = randomAccessFile.length();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Index file " + indexFile + " is too large");
+      }
+      content = new byte[(int) length];
+      randomAccessFile.readFully(content);
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+
+    final ByteBuffer buffer = ByteBuffer.wrap(content);
+    if (content.length < LogIndexFormat.HEADER_SIZE || buffer.getInt() != LogIndexFormat.MAGIC ||
+        buffer.getInt() != LogIndexFormat.VERSION) {
+      throw new IOException("Malformed index file " + indexFile);
+    }
+
+    final int size = buffer.remaining() / LogIndexFormat.ENTRY_SIZE; // incomplete entry might be being written
+    final long[] times = new long[size];
+    final long[] offsets = new long[size];
+    for (int i = 0; i < size; ++i) {
+      times[i] = buffer.getLong();
+      offsets[i] = buffer.getLong();
+    }
+    return new LogIndex(times, offsets);
+  }
+
+  public int size() {
+    return times.length;
+  }
+
+  public long getTime(int index) {
+    return times[index];
+  }
+
+  public long getOffset(int index) {
+    return offsets[index];
+  }
+
+  /**
+   * Finds the offset, starting from which all the records written at or after the given time are located.
+   *
+   * @param writtenFromMillis Time of writing of the first record to be read
+   * @return Offset of the last entry with time less than the given one, or zero if there is no such entry
+   */
+  public long getOffsetBefore(long writtenFromMillis) {
+    int pos = Arrays.binarySearch(times, writtenFromMillis);
+    if (pos < 0) {
+      pos = -pos - 1; // insertion point
+    } else {
+      while (pos > 0 && times[pos - 1] == writtenFromMillis) {
+        --pos; // the first of the entries with equal times
+      }
+    }
+    return pos > 0 ? offsets[pos - 1] : 0L;
+  }
+}
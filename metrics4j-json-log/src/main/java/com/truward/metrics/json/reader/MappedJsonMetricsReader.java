@@ -0,0 +1,175 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.truward.metrics.json.internal.reader.ByteBufferInputStream;
+import com.truward.metrics.json.internal.reader.JsonRecordParser;
+import com.truward.metrics.json.internal.reader.RecordFraming;
+import com.truward.metrics.reader.MetricsReader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Represents metrics reader, that memory-maps uncompressed metrics log file and parses records in place.
+ * <p>
+ * File is mapped by windows of the given size, records are expected to be separated by newline, as they are written
+ * by the JSON log appenders. Each record is passed to the parser directly from the mapped window, so
+ * unlike {@link AbstractJsonMetricsReader} this reader neither copies file contents into the heap buffer
+ * nor grows such a buffer. Record, that doesn't fit into the window, is mapped by the window of the larger size.
+ * </p>
+ * <p>
+ * File might be appended while it is read. Unless the file is known to be complete, the last record, that is not
+ * followed by newline, is considered as being written: it is not read until its newline is appended.
+ * </p>
+ * <p>
+ * Instances of this class are not thread safe.
+ * </p>
+ * <p>
+ * Mapped windows are unmapped by the garbage collector, so the file might remain mapped for some time after
+ * this reader is closed.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class MappedJsonMetricsReader implements MetricsReader {
+  /**
+   * Default size of the mapped window, 64 Megabytes.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final JsonFactory factory = new JsonFactory();
+  private final ByteBufferInputStream recordStream = new ByteBufferInputStream();
+  private final int windowSize;
+  private final boolean complete;
+
+  private FileChannel channel;
+  private long fileSize;
+  private MappedByteBuffer window;
+  private long windowStart = 0L;
+  private int pos = 0;
+
+  /**
+   * Creates an instance of the metrics reader object
+   *
+   * @param file       Source file
+   * @param windowSize Size of the mapped window, usually {@link #DEFAULT_WINDOW_SIZE}
+   * @param complete   Whether file is not written anymore, so that the last record is read even if it is not
+   *                   followed by newline
+   * @throws IOException On I/O error
+   */
+  public MappedJsonMetricsReader(@Nonnull File file, int windowSize, boolean complete) throws IOException {
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize should be greater than zero");
+    }
+
+    this.windowSize = windowSize;
+    this.complete = complete;
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.fileSize = channel.size();
+  }
+
+  /**
+   * Creates an instance of the metrics reader object for the file, that might be being written,
+   * so that the last record is not read until it is followed by newline.
+   *
+   * @param file       Source file
+   * @param windowSize Size of the mapped window, usually {@link #DEFAULT_WINDOW_SIZE}
+   * @throws IOException On I/O error
+   */
+  public MappedJsonMetricsReader(@Nonnull File file, int windowSize) throws IOException {
+    this(file, windowSize, false);
+  }
+
+  public MappedJsonMetricsReader(@Nonnull File file) throws IOException {
+    this(file, DEFAULT_WINDOW_SIZE);
+  }
+
+  @Nullable
+  @Override
+  public final Map<String, ?> readNext() throws IOException {
+    if (channel == null) {
+      throw new IllegalStateException("Reader closed, can't read another metric");
+    }
+
+    for (;;) {
+      if (windowStart + pos >= fileSize) {
+        fileSize = channel.size(); // file might be appended since last check
+        if (windowStart + pos >= fileSize) {
+          return null; // end of file
+        }
+      }
+
+      if (window == null || pos >= window.limit()) {
+        map(windowStart + pos, windowSize);
+      }
+
+      final int limit = window.limit();
+      int end = RecordFraming.indexOfSeparator(window, pos, limit);
+      if (end < 0) {
+        if (windowStart + limit >= fileSize) {
+          fileSize = channel.size();
+        }
+
+        if (windowStart + limit < fileSize) {
+          // record crosses the end of the window: map the window, that starts at this record
+          map(windowStart + pos, pos == 0 ? (long) limit * 2L : windowSize);
+          continue;
+        }
+
+        if (!complete) {
+          return null; // last record is being written, it will be read from its start once newline is appended
+        }
+        end = limit; // last record is not followed by newline
+      }
+
+      final int start = pos;
+      pos = Math.min(end + 1, limit); // position after newline, record will be skipped even if it is malformed
+      if (RecordFraming.isBlank(window, start, end)) {
+        continue;
+      }
+
+      recordStream.reset(window, start, end - start);
+      try (final JsonParser jp = factory.createParser(recordStream)) {
+        return JsonRecordParser.parseRecord(jp);
+      }
+    }
+  }
+
+  /**
+   * Closes current metrics reader with the associated file.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+
+    window = null;
+  }
+
+  //
+  // Private
+  //
+
+  private void map(long position, long length) throws IOException {
+    final long mappedLength = Math.min(length, fileSize - position);
+    if (mappedLength > Integer.MAX_VALUE) {
+      throw new IOException("Metrics record at position=" + position + " is too large to be mapped");
+    }
+
+    window = null; // let previous window to be unmapped
+    window = channel.map(FileChannel.MapMode.READ_ONLY, position, mappedLength);
+    windowStart = position;
+    pos = 0;
+  }
+}
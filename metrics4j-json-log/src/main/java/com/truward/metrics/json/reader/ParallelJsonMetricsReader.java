@@ -0,0 +1,418 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.truward.metrics.json.internal.reader.BoundedInputStream;
+import com.truward.metrics.json.internal.reader.ByteBufferInputStream;
+import com.truward.metrics.json.internal.reader.JsonRecordParser;
+import com.truward.metrics.json.internal.reader.RecordFraming;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.reader.MetricsReader;
+import com.truward.metrics.reader.MetricsRecordHandler;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Represents metrics reader, that splits uncompressed metrics log file into byte ranges, aligned on the newline
+ * separating records, and parses these ranges in parallel on the fork-join pool.
+ * <p>
+ * Gzip-compressed file is split into ranges, aligned on the starts of the gzip members listed in its index,
+ * see {@link LogIndex}, so that members are decompressed in parallel as well. Such files are written by the rolling
+ * log appender with block compression or index enabled. Compressed ranges are decompressed and parsed as a stream,
+ * so that decompressed contents are not kept in memory. Compressed file without index can't be split, it is read
+ * sequentially by the calling thread or by a single pool thread.
+ * </p>
+ * <p>
+ * Records can be read either in the file order by using {@link #readNext()}, which parses ranges ahead of
+ * the current one in the background, or without preserving order by using {@link #forEach(MetricsRecordHandler)},
+ * which recursively splits the file into halves and passes records to the handler from the pool threads.
+ * </p>
+ * <p>
+ * Reading fails on the first malformed record.
+ * Instances of this class are not thread safe, with the exception of the record handler, which is invoked
+ * concurrently.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class ParallelJsonMetricsReader implements MetricsReader {
+  /**
+   * Default size of the byte range, that is parsed by the single task, 4 Megabytes.
+   */
+  public static final int DEFAULT_SPLIT_SIZE = 4 * 1024 * 1024;
+
+  private static final int ALIGN_CHUNK_SIZE = 4096;
+
+  private final JsonFactory factory = new JsonFactory();
+  private final ForkJoinPool pool;
+  private final boolean ownPool;
+  private final int splitSize;
+  private final int readAheadCount;
+  private final long fileSize;
+  private final File file;
+  private final long[] blockOffsets; // starts of gzip members, null if file is not compressed
+  private FileChannel channel;
+  private MetricsReader sequentialReader; // reads compressed file without index in the file order
+
+  // ordered reading state
+  private final Deque<Future<List<Map<String, ?>>>> pendingRanges = new ArrayDeque<>();
+  private long nextRangeStart = 0L;
+  private List<Map<String, ?>> currentRange = Collections.emptyList();
+  private int currentIndex = 0;
+
+  /**
+   * Creates an instance of the metrics reader object
+   *
+   * @param file      Source file
+   * @param pool      Pool, that parses byte ranges, it is not shut down when this reader is closed
+   * @param splitSize Approximate size of the byte range, usually {@link #DEFAULT_SPLIT_SIZE}
+   * @throws IOException On I/O error
+   */
+  public ParallelJsonMetricsReader(@Nonnull File file, @Nonnull ForkJoinPool pool, int splitSize) throws IOException {
+    this(file, pool, false, splitSize);
+  }
+
+  /**
+   * Creates an instance of the metrics reader object, that uses its own pool with parallelism equal to count of
+   * available processors.
+   *
+   * @param file Source file
+   * @throws IOException On I/O error
+   */
+  public ParallelJsonMetricsReader(@Nonnull File file) throws IOException {
+    this(file, new ForkJoinPool(), true, DEFAULT_SPLIT_SIZE);
+  }
+
+  private ParallelJsonMetricsReader(File file, ForkJoinPool pool, boolean ownPool, int splitSize) throws IOException {
+    //noinspection ConstantConditions
+    if (pool == null) {
+      throw new NullPointerException("pool can't be null");
+    }
+
+    if (splitSize <= 0) {
+      throw new IllegalArgumentException("splitSize should be greater than zero");
+    }
+
+    this.pool = pool;
+    this.ownPool = ownPool;
+    this.splitSize = splitSize;
+    this.readAheadCount = pool.getParallelism() * 2;
+    this.file = file;
+
+    switch (CompressionType.fromFileName(file.getName())) {
+      case NONE:
+        this.blockOffsets = null;
+        break;
+
+      case GZIP:
+        this.blockOffsets = readBlockOffsets(file);
+        break;
+
+      default:
+        throw new IllegalArgumentException("File " + file + " can't be read in parallel");
+    }
+
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.fileSize = channel.size();
+  }
+
+  /**
+   * Reads next metrics record in the file order.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Nullable
+  @Override
+  public final Map<String, ?> readNext() throws IOException {
+    ensureOpen();
+
+    if (blockOffsets != null && blockOffsets.length == 0) {
+      if (sequentialReader == null) {
+        sequentialReader = newDecompressingReader(new FileInputStream(file)); // file can't be split
+      }
+      return sequentialReader.readNext();
+    }
+
+    for (;;) {
+      if (currentIndex < currentRange.size()) {
+        final Map<String, ?> result = currentRange.get(currentIndex);
+        currentRange.set(currentIndex, null); // let record to be collected as soon as caller releases it
+        ++currentIndex;
+        return result;
+      }
+
+      submitPendingRanges();
+      final Future<List<Map<String, ?>>> next = pendingRanges.poll();
+      if (next == null) {
+        return null; // no more ranges
+      }
+
+      currentRange = Collections.emptyList();
+      currentIndex = 0;
+      currentRange = awaitRange(next);
+    }
+  }
+
+  /**
+   * Reads all the records in the file in parallel and passes them to the given handler without preserving order.
+   * Records are read regardless of those, that have been read by {@link #readNext()}.
+   *
+   * @param handler Handler, that is invoked concurrently from the pool threads
+   * @throws IOException On I/O or JSON parsing error
+   */
+  public void forEach(@Nonnull MetricsRecordHandler handler) throws IOException {
+    ensureOpen();
+
+    try {
+      pool.invoke(new RangeAction(0L, fileSize, handler));
+    } catch (RangeReadException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Closes current metrics reader with the associated file, cancels pending tasks and shuts down the pool
+   * if it is owned by this reader.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    for (final Future<?> future : pendingRanges) {
+      future.cancel(false);
+    }
+    pendingRanges.clear();
+    currentRange = Collections.emptyList();
+
+    if (ownPool) {
+      pool.shutdown();
+    }
+
+    if (sequentialReader != null) {
+      sequentialReader.close();
+      sequentialReader = null;
+    }
+
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void ensureOpen() {
+    if (channel == null) {
+      throw new IllegalStateException("Reader closed, can't read another metric");
+    }
+  }
+
+  private void submitPendingRanges() throws IOException {
+    while (pendingRanges.size() < readAheadCount && nextRangeStart < fileSize) {
+      final long start = nextRangeStart;
+      final long end = alignedPosition(start + splitSize);
+      pendingRanges.add(pool.submit(new Callable<List<Map<String, ?>>>() {
+        @Override
+        public List<Map<String, ?>> call() throws IOException {
+          final List<Map<String, ?>> result = new ArrayList<>();
+          readRange(start, end, new MetricsRecordHandler() {
+            @Override
+            public void handle(@Nonnull Map<String, ?> record) {
+              result.add(record);
+            }
+          });
+          return result;
+        }
+      }));
+      nextRangeStart = end;
+    }
+  }
+
+  @Nonnull
+  private static List<Map<String, ?>> awaitRange(@Nonnull Future<List<Map<String, ?>>> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for metrics records");
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException("Error while reading metrics records", cause);
+    }
+  }
+
+  /**
+   * Returns position, that immediately follows record separator at or after the given position,
+   * so that the returned position is a start of the record.
+   */
+  private long alignedPosition(long position) throws IOException {
+    if (position >= fileSize) {
+      return fileSize;
+    }
+
+    if (blockOffsets != null) {
+      int index = Arrays.binarySearch(blockOffsets, position);
+      if (index < 0) {
+        index = -index - 1; // the first block starting after the given position
+      }
+      return index < blockOffsets.length ? blockOffsets[index] : fileSize;
+    }
+
+    final ByteBuffer chunk = ByteBuffer.allocate(ALIGN_CHUNK_SIZE);
+    long chunkStart = position - 1; // position is aligned if it is preceded by separator
+    while (chunkStart < fileSize) {
+      chunk.clear();
+      final int read = channel.read(chunk, chunkStart);
+      if (read <= 0) {
+        break;
+      }
+
+      final int index = RecordFraming.indexOfSeparator(chunk, 0, read);
+      if (index >= 0) {
+        return chunkStart + index + 1;
+      }
+      chunkStart += read;
+    }
+    return fileSize;
+  }
+
+  private void readRange(long start, long end, @Nonnull MetricsRecordHandler handler) throws IOException {
+    if (blockOffsets != null) {
+      readCompressedRange(start, end, handler);
+      return;
+    }
+
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IOException("Metrics record at position=" + start + " is too large to be mapped");
+    }
+
+    final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    final ByteBufferInputStream recordStream = new ByteBufferInputStream();
+    final int limit = buffer.limit();
+    int pos = 0;
+    while (pos < limit) {
+      int recordEnd = RecordFraming.indexOfSeparator(buffer, pos, limit);
+      if (recordEnd < 0) {
+        recordEnd = limit; // last record is not followed by newline
+      }
+
+      if (!RecordFraming.isBlank(buffer, pos, recordEnd)) {
+        recordStream.reset(buffer, pos, recordEnd - pos);
+        try (final JsonParser jp = factory.createParser(recordStream)) {
+          handler.handle(JsonRecordParser.parseRecord(jp));
+        }
+      }
+      pos = recordEnd + 1;
+    }
+  }
+
+  /**
+   * Decompresses the given range as a stream, so that only the records of the current block are kept in memory.
+   */
+  private void readCompressedRange(long start, long end, @Nonnull MetricsRecordHandler handler) throws IOException {
+    try (final FileInputStream fileStream = new FileInputStream(file)) {
+      fileStream.getChannel().position(start);
+      try (final MetricsReader reader = newDecompressingReader(new BoundedInputStream(fileStream, end - start))) {
+        for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+          handler.handle(record);
+        }
+      }
+    }
+  }
+
+  @Nonnull
+  private static MetricsReader newDecompressingReader(@Nonnull InputStream compressedStream) throws IOException {
+    try {
+      return new StandardJsonMetricsReader(new GZIPInputStream(compressedStream, ALIGN_CHUNK_SIZE),
+          AbstractJsonMetricsReader.DEFAULT_BUFFER_SIZE, AbstractJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE,
+          RecordFramingMode.NEWLINE);
+    } catch (IOException e) {
+      compressedStream.close();
+      throw e;
+    }
+  }
+
+  @Nonnull
+  private static long[] readBlockOffsets(@Nonnull File file) throws IOException {
+    final LogIndex index = LogIndex.read(file);
+    final long[] result = new long[index != null ? index.size() : 0];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = index.getOffset(i);
+    }
+    return result;
+  }
+
+  private final class RangeAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final long start;
+    private final long end;
+    private final MetricsRecordHandler handler;
+
+    RangeAction(long start, long end, MetricsRecordHandler handler) {
+      this.start = start;
+      this.end = end;
+      this.handler = handler;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        if (end - start > splitSize) {
+          final long middle = alignedPosition(start + (end - start) / 2);
+          if (middle > start && middle < end) {
+            invokeAll(new RangeAction(start, middle, handler), new RangeAction(middle, end, handler));
+            return;
+          }
+        }
+
+        readRange(start, end, handler);
+      } catch (IOException e) {
+        throw new RangeReadException(e);
+      }
+    }
+  }
+
+  private static final class RangeReadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    RangeReadException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+}
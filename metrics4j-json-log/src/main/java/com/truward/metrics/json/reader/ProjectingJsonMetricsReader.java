@@ -0,0 +1,173 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.truward.metrics.json.internal.reader.JsonRecordParser;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents JSON-based metrics reader, that materializes only the requested fields of the each record.
+ * <p>
+ * Fields are given as dot-separated paths, e.g. {@code origin} or {@code request.user}, values of all the other
+ * fields are skipped without being converted to maps, lists or boxed values. Requested nested fields are returned
+ * within the nested maps, that contain only these fields. If the field is repeated within the record, e.g. written
+ * by {@link com.truward.metrics.json.StreamingJsonLogMetricsCreator}, the last value is returned.
+ * </p>
+ * <p>
+ * If records are known to have no repeated top-level fields, record is not parsed further once all the requested
+ * top-level fields have been found, see {@link #ProjectingJsonMetricsReader(InputStream, int, int,
+ * RecordFramingMode, Collection, boolean)}.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class ProjectingJsonMetricsReader extends AbstractJsonMetricsReader {
+  private final JsonFactory factory = new JsonFactory();
+  private final Projection projection;
+  private final boolean uniqueFieldNames;
+
+  /**
+   * Creates an instance of the metrics reader object
+   *
+   * @param inputStream       Source input stream
+   * @param initialBufferSize Initial size of the internal buffer, usually {@link #DEFAULT_BUFFER_SIZE}
+   * @param maxBufferSize     Maximum size of the internal buffer, that no entry in the given input stream
+   *                          should exceed. Usually {@link #DEFAULT_MAX_BUFFER_SIZE}
+   * @param framingMode       Defines, how records are found in the given stream
+   * @param fieldPaths        Dot-separated paths of the fields to be read
+   * @param uniqueFieldNames  True, if records have no repeated top-level fields, so that parsing of the record can
+   *                          be stopped once all the requested fields have been found
+   */
+  public ProjectingJsonMetricsReader(@Nonnull InputStream inputStream, int initialBufferSize, int maxBufferSize,
+                                     @Nonnull RecordFramingMode framingMode,
+                                     @Nonnull Collection<String> fieldPaths,
+                                     boolean uniqueFieldNames) {
+    super(inputStream, initialBufferSize, maxBufferSize, framingMode);
+    this.projection = Projection.of(fieldPaths);
+    this.uniqueFieldNames = uniqueFieldNames;
+  }
+
+  /**
+   * Creates an instance of the metrics reader object, that reads each record up to its end
+   *
+   * @param inputStream       Source input stream
+   * @param initialBufferSize Initial size of the internal buffer, usually {@link #DEFAULT_BUFFER_SIZE}
+   * @param maxBufferSize     Maximum size of the internal buffer, that no entry in the given input stream
+   *                          should exceed. Usually {@link #DEFAULT_MAX_BUFFER_SIZE}
+   * @param framingMode       Defines, how records are found in the given stream
+   * @param fieldPaths        Dot-separated paths of the fields to be read
+   */
+  public ProjectingJsonMetricsReader(@Nonnull InputStream inputStream, int initialBufferSize, int maxBufferSize,
+                                     @Nonnull RecordFramingMode framingMode,
+                                     @Nonnull Collection<String> fieldPaths) {
+    this(inputStream, initialBufferSize, maxBufferSize, framingMode, fieldPaths, false);
+  }
+
+  public ProjectingJsonMetricsReader(@Nonnull InputStream inputStream, @Nonnull Collection<String> fieldPaths) {
+    this(inputStream, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFER_SIZE, RecordFramingMode.BRACES, fieldPaths);
+  }
+
+  @Nonnull
+  @Override
+  protected Map<String, ?> parseJson(@Nonnull byte[] arr, int startPos, int len) throws IOException {
+    try (final JsonParser jp = factory.createParser(arr, startPos, len)) {
+      jp.nextToken();
+      return parseProjected(jp, projection, uniqueFieldNames);
+    }
+  }
+
+  //
+  // Private
+  //
+
+  @Nonnull
+  private static Map<String, ?> parseProjected(@Nonnull JsonParser jp, @Nonnull Projection projection,
+                                               boolean stopWhenFound)
+      throws IOException {
+    if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException("Map expected", jp.getCurrentLocation());
+    }
+
+    Map<String, Object> result = null;
+    int foundCount = 0;
+    for (JsonToken token = jp.nextToken(); token != JsonToken.END_OBJECT; token = jp.nextToken()) {
+      if (token != JsonToken.FIELD_NAME) {
+        throw new JsonParseException("Field name expected", jp.getCurrentLocation());
+      }
+
+      final String fieldName = jp.getCurrentName();
+      final Projection child = projection.children.get(fieldName);
+      token = jp.nextToken();
+      if (child == null || (!child.isLeaf() && token != JsonToken.START_OBJECT)) {
+        jp.skipChildren(); // field is not requested, skip its value
+        continue;
+      }
+
+      final Object value = child.isLeaf() ? JsonRecordParser.parseObject(jp) : parseProjected(jp, child, false);
+      if (result == null) {
+        result = new HashMap<>(projection.children.size() * 2);
+      }
+      if (result.put(fieldName, value) != null) {
+        continue; // repeated field, the last value is kept
+      }
+
+      if (stopWhenFound && ++foundCount == projection.children.size()) {
+        break; // all the requested fields have been found, the rest of the record is not needed
+      }
+    }
+
+    return result != null ? result : Collections.<String, Object>emptyMap();
+  }
+
+  /**
+   * Tree of the requested field paths, leaf node means that the whole field value is requested.
+   */
+  private static final class Projection {
+    final Map<String, Projection> children = new HashMap<>();
+    boolean leaf;
+
+    boolean isLeaf() {
+      return leaf;
+    }
+
+    @Nonnull
+    static Projection of(@Nonnull Collection<String> fieldPaths) {
+      if (fieldPaths.isEmpty()) {
+        throw new IllegalArgumentException("fieldPaths can't be empty");
+      }
+
+      final Projection root = new Projection();
+      for (final String path : fieldPaths) {
+        if (path == null || path.isEmpty()) {
+          throw new IllegalArgumentException("fieldPaths can't contain null or empty path");
+        }
+
+        Projection node = root;
+        for (final String name : path.split("\\.")) {
+          Projection child = node.children.get(name);
+          if (child == null) {
+            child = new Projection();
+            node.children.put(name, child);
+          }
+          node = child;
+          if (node.leaf) {
+            break; // the whole value has been already requested by the another path
+          }
+        }
+
+        node.leaf = true;
+        node.children.clear();
+      }
+      return root;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.truward.metrics.json.reader;
+
+/**
+ * Defines, how {@link AbstractJsonMetricsReader} finds boundaries of the metrics records.
+ *
+ * @author Alexander Shabanov
+ */
+public enum RecordFramingMode {
+
+  /**
+   * Record ends at the closing curly brace, that balances the opening one.
+   * Works with records, that are not separated by newline, but may be confused by braces in the string values.
+   */
+  BRACES,
+
+  /**
+   * Record ends at the newline, that appenders write after each record.
+   * Records are scanned eight bytes at a time, no byte is scanned twice and malformed or too large record
+   * is skipped, so that reading can be continued from the next record.
+   */
+  NEWLINE
+}
@@ -0,0 +1,222 @@
+package com.truward.metrics.json.reader;
+
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Represents log file, written by the rolling log appender, name of which is parsed into the time of its
+ * first record, index and compression type.
+ * <p>
+ * Rolled files are named as {@code fileNameBase_yyyy-MM-dd_HH_mm_ss[_n]suffix[.gz|.zip]}, see
+ * {@link TimeBasedRollingLogSettings#FILE_NAME_DATE_TIME_PATTERN}. The date and time is written in the default
+ * time zone of the writing process and truncated to seconds.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class RolledLogFile implements Comparable<RolledLogFile> {
+  private final File file;
+  private final long startTime;
+  private final int index;
+  private final CompressionType compressionType;
+
+  public RolledLogFile(@Nonnull File file, long startTime, int index, @Nonnull CompressionType compressionType) {
+    this.file = file;
+    this.startTime = startTime;
+    this.index = index;
+    this.compressionType = compressionType;
+  }
+
+  @Nonnull public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return Time of the first record in this file, truncated to seconds
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * @return Index of the file among files with the same start time, zero if file name has no index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  @Nonnull public CompressionType getCompressionType() {
+    return compressionType;
+  }
+
+  @Override
+  public int compareTo(@Nonnull RolledLogFile other) {
+    if (startTime != other.startTime) {
+      return startTime < other.startTime ? -1 : 1;
+    }
+    if (index != other.index) {
+      return index < other.index ? -1 : 1;
+    }
+    return compressionType.compareTo(other.compressionType);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RolledLogFile)) {
+      return false;
+    }
+
+    final RolledLogFile other = (RolledLogFile) o;
+    return file.equals(other.file);
+  }
+
+  @Override
+  public int hashCode() {
+    return file.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "RolledLogFile{file=" + file + ", startTime=" + startTime + ", index=" + index +
+        ", compressionType=" + compressionType + '}';
+  }
+
+  /**
+   * Parses the given file name.
+   *
+   * @param file         Rolled log file
+   * @param fileNameBase File name base, without directory
+   * @param suffix       File suffix, e.g. {@code .log}
+   * @param timeZone     Time zone of the process, that has written the file
+   * @return Parsed file or null if file name doesn't match
+   */
+  @Nullable
+  public static RolledLogFile parse(@Nonnull File file, @Nonnull String fileNameBase, @Nonnull String suffix,
+                                    @Nonnull TimeZone timeZone) {
+    final String name = file.getName();
+    final String prefix = fileNameBase + '_';
+    if (!name.startsWith(prefix)) {
+      return null;
+    }
+
+    final SimpleDateFormat dateFormat = new SimpleDateFormat(TimeBasedRollingLogSettings.FILE_NAME_DATE_TIME_PATTERN);
+    dateFormat.setLenient(false);
+    dateFormat.setTimeZone(timeZone);
+    final ParsePosition position = new ParsePosition(prefix.length());
+    final Date startDate = dateFormat.parse(name, position);
+    if (startDate == null ||
+        position.getIndex() != prefix.length() + TimeBasedRollingLogSettings.FILE_NAME_DATE_TIME_PATTERN.length()) {
+      return null;
+    }
+
+    // optional index
+    int pos = position.getIndex();
+    int index = 0;
+    if (pos < name.length() && name.charAt(pos) == '_') {
+      final int indexEnd = skipDigits(name, pos + 1);
+      if (indexEnd == pos + 1 || indexEnd - pos > 10) {
+        return null;
+      }
+      index = Integer.parseInt(name.substring(pos + 1, indexEnd));
+      pos = indexEnd;
+    }
+
+    if (!name.startsWith(suffix, pos)) {
+      return null;
+    }
+    pos += suffix.length();
+
+    // compressor appends index after suffix if compressed file with the same name already exists
+    if (pos < name.length() && name.charAt(pos) == '_') {
+      final int indexEnd = skipDigits(name, pos + 1);
+      if (indexEnd == pos + 1) {
+        return null;
+      }
+      pos = indexEnd;
+    }
+
+    final String extension = name.substring(pos);
+    final CompressionType compressionType;
+    if (extension.isEmpty()) {
+      compressionType = CompressionType.NONE;
+    } else if (extension.equals(".gz")) {
+      compressionType = CompressionType.GZIP;
+    } else if (extension.equals(".zip")) {
+      compressionType = CompressionType.ZIP;
+    } else {
+      return null; // e.g. temporary file
+    }
+
+    return new RolledLogFile(file, startDate.getTime(), index, compressionType);
+  }
+
+  /**
+   * Lists files, written by the rolling log appender with the given settings, in the order they have been written.
+   * If the same log is present both in the uncompressed and compressed form, e.g. because compression is being
+   * completed, only compressed file is returned.
+   *
+   * @param settings Settings of the rolling log appender
+   * @param timeZone Time zone of the process, that has written the files
+   * @return Sorted list of the rolled log files
+   */
+  @Nonnull
+  public static List<RolledLogFile> list(@Nonnull TimeBasedRollingLogSettings settings, @Nonnull TimeZone timeZone) {
+    final File baseFile = new File(settings.getFileNameBase()).getAbsoluteFile();
+    final File directory = baseFile.getParentFile();
+    final File[] files = directory != null ? directory.listFiles() : null;
+    if (files == null) {
+      return Collections.emptyList();
+    }
+
+    final List<RolledLogFile> result = new ArrayList<>();
+    for (final File file : files) {
+      final RolledLogFile rolledLogFile = parse(file, baseFile.getName(), settings.getSuffix(), timeZone);
+      if (rolledLogFile != null) {
+        result.add(rolledLogFile);
+      }
+    }
+    Collections.sort(result); // uncompressed file precedes compressed one with the same start time and index
+    return removeCompressedDuplicates(result);
+  }
+
+  //
+  // Private
+  //
+
+  private static int skipDigits(@Nonnull String str, int pos) {
+    while (pos < str.length() && Character.isDigit(str.charAt(pos))) {
+      ++pos;
+    }
+    return pos;
+  }
+
+  @Nonnull
+  private static List<RolledLogFile> removeCompressedDuplicates(@Nonnull List<RolledLogFile> sorted) {
+    final List<RolledLogFile> result = new ArrayList<>(sorted.size());
+    for (final RolledLogFile current : sorted) {
+      final RolledLogFile prev = result.isEmpty() ? null : result.get(result.size() - 1);
+      if (prev != null && prev.compressionType == CompressionType.NONE &&
+          current.compressionType != CompressionType.NONE &&
+          prev.startTime == current.startTime && prev.index == current.index) {
+        result.set(result.size() - 1, current); // compressed file is complete, uncompressed one is being removed
+        continue;
+      }
+      result.add(current);
+    }
+    return result;
+  }
+}
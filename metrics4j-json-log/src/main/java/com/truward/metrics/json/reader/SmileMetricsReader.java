@@ -0,0 +1,132 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.truward.metrics.json.internal.reader.JsonRecordParser;
+import com.truward.metrics.json.internal.reader.SegmentInputStream;
+import com.truward.metrics.reader.MetricsReader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Represents metrics reader, that reads records written in {@link com.truward.metrics.json.settings.RecordFormat#SMILE}
+ * format from the given input stream.
+ * <p>
+ * Each segment of the log is read by the separate parser, so that reading can be started from any segment.
+ * Segments are separated by {@link SmileConstants#BYTE_MARKER_END_OF_CONTENT} byte, which doesn't appear within
+ * the content only if it is written without shared name and string value back-references, as the appender does.
+ * Instances of this class are not thread safe. Reading can't be continued after parsing error.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class SmileMetricsReader implements MetricsReader {
+  private final SmileFactory factory = new SmileFactory();
+  private final SegmentInputStream inputStream;
+  private final boolean incompleteLastRecordIgnored;
+  private JsonParser parser;
+  private boolean closed = false;
+
+  /**
+   * Creates an instance of the metrics reader object
+   *
+   * @param inputStream                 Source input stream
+   * @param incompleteLastRecordIgnored True, if parsing error at the end of the stream should be treated as the end
+   *                                    of the stream, e.g. if the log file is being written
+   */
+  public SmileMetricsReader(@Nonnull InputStream inputStream, boolean incompleteLastRecordIgnored) {
+    //noinspection ConstantConditions
+    if (inputStream == null) {
+      throw new NullPointerException("inputStream can't be null");
+    }
+
+    this.factory.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false); // segments are read from the same stream
+    this.inputStream = new SegmentInputStream(inputStream, SmileConstants.BYTE_MARKER_END_OF_CONTENT);
+    this.incompleteLastRecordIgnored = incompleteLastRecordIgnored;
+  }
+
+  public SmileMetricsReader(@Nonnull InputStream inputStream) {
+    this(inputStream, false);
+  }
+
+  @Nullable
+  @Override
+  public Map<String, ?> readNext() throws IOException {
+    try {
+      final JsonParser jp = nextRecord();
+      return jp != null ? JsonRecordParser.parseMap(jp) : null;
+    } catch (JsonParseException e) {
+      if (incompleteLastRecordIgnored && inputStream.isEndOfInput()) {
+        closeParser();
+        return null; // the last record is being written
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Closes current metrics reader with the associated input stream.
+   * <p/>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      closeParser();
+      inputStream.close();
+    }
+  }
+
+  /**
+   * Advances to the next record.
+   *
+   * @return Parser positioned at the start of the record or null, if there are no more records
+   * @throws IOException On I/O or parsing error
+   */
+  @Nullable
+  final JsonParser nextRecord() throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Reader closed, can't read another metric");
+    }
+
+    for (;;) {
+      if (parser == null) {
+        if (!inputStream.nextSegment()) {
+          return null; // end of the stream
+        }
+        parser = factory.createParser(inputStream);
+      }
+
+      final JsonToken token = parser.nextToken();
+      if (token == null) {
+        closeParser(); // end of the segment
+        continue;
+      }
+
+      if (token != JsonToken.START_OBJECT) {
+        throw new JsonParseException("Map expected", parser.getCurrentLocation());
+      }
+      return parser;
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void closeParser() throws IOException {
+    final JsonParser jp = parser;
+    parser = null;
+    if (jp != null) {
+      jp.close();
+    }
+  }
+}
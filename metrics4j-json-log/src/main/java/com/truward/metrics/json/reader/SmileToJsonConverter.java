@@ -0,0 +1,73 @@
+package com.truward.metrics.json.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts metrics log written in {@link com.truward.metrics.json.settings.RecordFormat#SMILE} format into
+ * newline-separated JSON records, so that it can be read by humans and JSON tools.
+ * <p>
+ * Can be run from the command line: {@code SmileToJsonConverter <smile log file> [<json file>]}, compressed
+ * input files are decompressed. If output file is not specified, JSON is written to the standard output.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public final class SmileToJsonConverter {
+  private SmileToJsonConverter() {} // Hidden
+
+  /**
+   * Converts the given Smile log into JSON, records are copied without being converted into maps.
+   * Neither of the given streams is closed.
+   *
+   * @param smileStream Source Smile-encoded log
+   * @param jsonStream  Target stream for UTF-8 encoded JSON
+   * @return Count of converted records
+   * @throws IOException On I/O or parsing error
+   */
+  public static long convert(@Nonnull InputStream smileStream, @Nonnull OutputStream jsonStream) throws IOException {
+    final SmileMetricsReader reader = new SmileMetricsReader(smileStream);
+    final JsonFactory jsonFactory = new JsonFactory();
+    jsonFactory.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    final JsonGenerator jg = jsonFactory.createGenerator(jsonStream);
+    jg.setRootValueSeparator(null); // records are separated by newline which is written explicitly
+
+    long count = 0L;
+    for (JsonParser jp = reader.nextRecord(); jp != null; jp = reader.nextRecord()) {
+      jg.copyCurrentStructure(jp);
+      jg.writeRaw('\n');
+      ++count;
+    }
+    jg.close();
+    return count;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: SmileToJsonConverter <smile log file> [<json file>]");
+      System.exit(1);
+      return;
+    }
+
+    try (final InputStream inputStream = JsonMetricsReaders.openInputStream(new File(args[0]))) {
+      if (args.length == 1) {
+        convert(inputStream, System.out);
+        System.out.flush();
+        return;
+      }
+
+      try (final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+        convert(inputStream, outputStream);
+      }
+    }
+  }
+}
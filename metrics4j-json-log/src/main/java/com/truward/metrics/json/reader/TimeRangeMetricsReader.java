@@ -0,0 +1,250 @@
+package com.truward.metrics.json.reader;
+
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.internal.reader.BoundedInputStream;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.RecordFormat;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.reader.MetricsReader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Represents metrics reader, that reads records with {@link PredefinedMetricNames#START_TIME} in the given
+ * {@code [from, to)} range from the files, written by the rolling log appender.
+ * <p>
+ * Files are selected by the time in their names, so that only files, that might contain records written
+ * from {@code from} till {@code to + maxRecordLatency}, are read. Record latency is a time between record's start time
+ * and the moment, when record is written, i.e. the longest time of the metered operations.
+ * Files are read in the order they have been written, compressed files are decompressed.
+ * If uncompressed file is being written, it is read up to its last complete record.
+ * Records without start time are skipped. If file has sparse index, see {@link LogIndex}, records written before
+ * {@code from} are skipped without being read.
+ * </p>
+ * <p>
+ * Instances of this class are not thread safe.
+ * </p>
+ *
+ * @author Alexander Shabanov
+ */
+public class TimeRangeMetricsReader implements MetricsReader {
+  private static final long FILE_NAME_TIME_PRECISION_MILLIS = 1000L; // file names are truncated to seconds
+  private static final int TAIL_SCAN_CHUNK_SIZE = 4096;
+
+  private final List<RolledLogFile> files;
+  private final long fromMillis;
+  private final long toMillis;
+  private final RecordFramingMode framingMode;
+  private final RecordFormat recordFormat;
+
+  private int nextFileIndex = 0;
+  private MetricsReader currentReader;
+  private boolean closed = false;
+
+  /**
+   * Creates an instance of the metrics reader object
+   *
+   * @param settings               Settings of the rolling log appender, that has written the files
+   * @param fromMillis             Start of the time range, inclusive
+   * @param toMillis               End of the time range, exclusive
+   * @param maxRecordLatencyMillis Maximum time between record's start time and the moment it is written
+   * @param timeZone               Time zone of the process, that has written the files
+   * @param framingMode            Defines, how records are found in the files
+   */
+  public TimeRangeMetricsReader(@Nonnull TimeBasedRollingLogSettings settings,
+                                long fromMillis,
+                                long toMillis,
+                                long maxRecordLatencyMillis,
+                                @Nonnull TimeZone timeZone,
+                                @Nonnull RecordFramingMode framingMode) {
+    if (fromMillis > toMillis) {
+      throw new IllegalArgumentException("fromMillis can't be greater than toMillis");
+    }
+
+    if (maxRecordLatencyMillis < 0L) {
+      throw new IllegalArgumentException("maxRecordLatencyMillis can't be negative");
+    }
+
+    this.fromMillis = fromMillis;
+    this.toMillis = toMillis;
+    this.framingMode = framingMode;
+    this.recordFormat = settings.getRecordFormat();
+    this.files = selectFiles(RolledLogFile.list(settings, timeZone), fromMillis, toMillis + maxRecordLatencyMillis);
+  }
+
+  public TimeRangeMetricsReader(@Nonnull TimeBasedRollingLogSettings settings,
+                                long fromMillis,
+                                long toMillis,
+                                long maxRecordLatencyMillis) {
+    this(settings, fromMillis, toMillis, maxRecordLatencyMillis, TimeZone.getDefault(), RecordFramingMode.BRACES);
+  }
+
+  /**
+   * @return Files, that are going to be read, in the reading order
+   */
+  @Nonnull
+  public List<RolledLogFile> getFiles() {
+    return Collections.unmodifiableList(files);
+  }
+
+  @Nullable
+  @Override
+  public Map<String, ?> readNext() throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Reader closed, can't read another metric");
+    }
+
+    for (;;) {
+      if (currentReader == null) {
+        if (nextFileIndex >= files.size()) {
+          return null; // no more files
+        }
+        currentReader = openReader(files.get(nextFileIndex++));
+        continue;
+      }
+
+      final Map<String, ?> record = currentReader.readNext();
+      if (record == null) {
+        currentReader.close();
+        currentReader = null;
+        continue;
+      }
+
+      final Object startTime = record.get(PredefinedMetricNames.START_TIME);
+      if (startTime instanceof Number) {
+        final long startTimeMillis = ((Number) startTime).longValue();
+        if (startTimeMillis >= fromMillis && startTimeMillis < toMillis) {
+          return record;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    if (currentReader != null) {
+      currentReader.close();
+      currentReader = null;
+    }
+  }
+
+  //
+  // Private
+  //
+
+  /**
+   * Selects files, that might contain records, written in the given range. File contains records written
+   * since the time in its name till the time in the name of the next file.
+   */
+  @Nonnull
+  private static List<RolledLogFile> selectFiles(@Nonnull List<RolledLogFile> files, long writtenFrom,
+                                                 long writtenTo) {
+    final List<RolledLogFile> result = new ArrayList<>();
+    for (int i = 0; i < files.size(); ++i) {
+      final RolledLogFile file = files.get(i);
+      if (file.getStartTime() >= writtenTo) {
+        break; // this and subsequent files are written after the range
+      }
+
+      final RolledLogFile next = i + 1 < files.size() ? files.get(i + 1) : null;
+      if (next == null || next.getStartTime() + FILE_NAME_TIME_PRECISION_MILLIS > writtenFrom) {
+        result.add(file);
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  private MetricsReader openReader(@Nonnull RolledLogFile rolledLogFile) throws IOException {
+    final File file = rolledLogFile.getFile();
+    final InputStream inputStream;
+    if (rolledLogFile.getCompressionType() == CompressionType.NONE) {
+      try {
+        return openUncompressed(file, fromMillis);
+      } catch (FileNotFoundException e) {
+        // file has been compressed since it was listed
+        inputStream = openCompressedCounterpart(file, fromMillis, e);
+      }
+    } else {
+      inputStream = JsonMetricsReaders.openInputStream(file, fromMillis); // records are written after start
+    }
+
+    return JsonMetricsReaders.newReader(inputStream, framingMode);
+  }
+
+  /**
+   * Opens file, that might be being written, so that it is read up to the end of the last complete record.
+   */
+  @Nonnull
+  private MetricsReader openUncompressed(@Nonnull File file, long writtenFromMillis) throws IOException {
+    final LogIndex index = LogIndex.read(file); // index is read first, so that its entries precede the end
+    final long offset = index != null ? index.getOffsetBefore(writtenFromMillis) : 0L;
+    final long length;
+    try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      // binary records are not separated by newline, incomplete last record is ignored by the reader
+      length = recordFormat == RecordFormat.JSON ? getCompleteRecordsLength(randomAccessFile) :
+          randomAccessFile.length();
+    }
+
+    final FileInputStream fileStream = new FileInputStream(file);
+    try {
+      fileStream.getChannel().position(offset);
+    } catch (IOException e) {
+      fileStream.close();
+      throw e;
+    }
+    final InputStream inputStream = new BoundedInputStream(fileStream, Math.max(0L, length - offset));
+    if (recordFormat == RecordFormat.SMILE) {
+      return new SmileMetricsReader(inputStream, true);
+    }
+    return new StandardJsonMetricsReader(inputStream, AbstractJsonMetricsReader.DEFAULT_BUFFER_SIZE,
+        AbstractJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE, framingMode);
+  }
+
+  /**
+   * @return Length of the file up to the last record separator or the whole length, if file has no separators,
+   * e.g. records are not separated by newline
+   */
+  private static long getCompleteRecordsLength(@Nonnull RandomAccessFile file) throws IOException {
+    final long length = file.length();
+    final byte[] chunk = new byte[TAIL_SCAN_CHUNK_SIZE];
+    for (long chunkEnd = length; chunkEnd > 0L; ) {
+      final int chunkLength = (int) Math.min(chunk.length, chunkEnd);
+      final long chunkStart = chunkEnd - chunkLength;
+      file.seek(chunkStart);
+      file.readFully(chunk, 0, chunkLength);
+      for (int i = chunkLength - 1; i >= 0; --i) {
+        if (chunk[i] == '\n') {
+          return chunkStart + i + 1;
+        }
+      }
+      chunkEnd = chunkStart;
+    }
+    return length;
+  }
+
+  @Nonnull
+  private static InputStream openCompressedCounterpart(@Nonnull File file, long writtenFromMillis,
+                                                       @Nonnull FileNotFoundException e) throws IOException {
+    for (final String extension : new String[] { ".gz", ".zip" }) {
+      final File compressedFile = new File(file.getPath() + extension);
+      if (compressedFile.exists()) {
+        return JsonMetricsReaders.openInputStream(compressedFile, writtenFromMillis);
+      }
+    }
+    throw e;
+  }
+}
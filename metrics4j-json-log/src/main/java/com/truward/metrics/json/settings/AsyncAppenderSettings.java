@@ -0,0 +1,109 @@
+package com.truward.metrics.json.settings;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents settings for asynchronous metrics appender, which hands records over to the dedicated writer thread.
+ *
+ * @author Alexander Shabanov
+ */
+public final class AsyncAppenderSettings {
+  private final int bufferSize;
+  private final BackPressurePolicy backPressurePolicy;
+  private final long shutdownTimeoutMillis;
+  private final String threadName;
+
+  private AsyncAppenderSettings(int bufferSize, BackPressurePolicy backPressurePolicy, long shutdownTimeoutMillis,
+                                String threadName) {
+    if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+      throw new IllegalArgumentException("bufferSize should be a positive power of two");
+    }
+
+    if (backPressurePolicy == null) {
+      throw new NullPointerException("backPressurePolicy can't be null");
+    }
+
+    if (shutdownTimeoutMillis <= 0L) {
+      throw new IllegalArgumentException("shutdownTimeoutMillis should be greater than zero");
+    }
+
+    if (threadName == null) {
+      throw new NullPointerException("threadName can't be null");
+    }
+
+    this.bufferSize = bufferSize;
+    this.backPressurePolicy = backPressurePolicy;
+    this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    this.threadName = threadName;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  @Nonnull public BackPressurePolicy getBackPressurePolicy() {
+    return backPressurePolicy;
+  }
+
+  public long getShutdownTimeoutMillis() {
+    return shutdownTimeoutMillis;
+  }
+
+  @Nonnull public String getThreadName() {
+    return threadName;
+  }
+
+  //
+  // Builder
+  //
+
+  @Nonnull
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Builder for the hosting class. */
+  public static final class Builder {
+    private int bufferSize = 8192;
+    private BackPressurePolicy backPressurePolicy = BackPressurePolicy.BLOCK;
+    private long shutdownTimeoutMillis = 5000L;
+    private String threadName = "metrics4j-async-appender";
+
+    /** Hidden. */
+    Builder() {
+    }
+
+    /**
+     * @param value Count of records the buffer can hold, should be a power of two
+     * @return This builder
+     */
+    @Nonnull public Builder setBufferSize(int value) {
+      this.bufferSize = value;
+      return this;
+    }
+
+    @Nonnull public Builder setBackPressurePolicy(BackPressurePolicy value) {
+      this.backPressurePolicy = value;
+      return this;
+    }
+
+    /**
+     * @param value Time given to the writer thread to write pending records when appender is being closed,
+     *              should be greater than zero
+     * @return This builder
+     */
+    @Nonnull public Builder setShutdownTimeoutMillis(long value) {
+      this.shutdownTimeoutMillis = value;
+      return this;
+    }
+
+    @Nonnull public Builder setThreadName(String value) {
+      this.threadName = value;
+      return this;
+    }
+
+    @Nonnull public AsyncAppenderSettings build() {
+      return new AsyncAppenderSettings(bufferSize, backPressurePolicy, shutdownTimeoutMillis, threadName);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.truward.metrics.json.settings;
+
+/**
+ * Defines what asynchronous appender does when its record buffer is full.
+ *
+ * @author Alexander Shabanov
+ */
+public enum BackPressurePolicy {
+  /**
+   * Calling thread waits until the writer thread frees a slot in the buffer.
+   */
+  BLOCK,
+
+  /**
+   * Record being written is discarded, buffered records are kept.
+   */
+  DROP_NEWEST,
+
+  /**
+   * Oldest buffered record is discarded to make room for the record being written.
+   */
+  DROP_OLDEST
+}
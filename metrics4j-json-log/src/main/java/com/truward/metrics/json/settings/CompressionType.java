@@ -1,5 +1,7 @@
 package com.truward.metrics.json.settings;
 
+import javax.annotation.Nonnull;
+
 /**
  * Type of logs compression.
  *
@@ -10,5 +12,23 @@ public enum CompressionType {
 
   GZIP,
 
-  ZIP
+  ZIP;
+
+  /**
+   * Detects compression type by the extension of the given file name, as it is produced by the rolling log appender.
+   *
+   * @param fileName File name
+   * @return {@link #GZIP} for {@code .gz} files, {@link #ZIP} for {@code .zip} files and {@link #NONE} otherwise
+   */
+  @Nonnull
+  public static CompressionType fromFileName(@Nonnull String fileName) {
+    final String name = fileName.toLowerCase();
+    if (name.endsWith(".gz")) {
+      return GZIP;
+    }
+    if (name.endsWith(".zip")) {
+      return ZIP;
+    }
+    return NONE;
+  }
 }
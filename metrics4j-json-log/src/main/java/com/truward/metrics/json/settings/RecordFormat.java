@@ -0,0 +1,24 @@
+package com.truward.metrics.json.settings;
+
+/**
+ * Encoding of the metrics records in the log.
+ *
+ * @author Alexander Shabanov
+ */
+public enum RecordFormat {
+  /**
+   * UTF-8 encoded JSON, records are separated by newline.
+   */
+  JSON,
+
+  /**
+   * Binary JSON, see <a href="https://github.com/FasterXML/smile-format-specification">Smile format</a>.
+   * Field names and short string values are written once per segment and then referenced by index.
+   * Log is composed of segments, each of which starts with Smile header and, with the exception of the first one,
+   * is preceded by the end-of-content marker. Rolling log appender starts new segment at each index entry, so that
+   * reading can be started from any of them.
+   * Smile logs can be read by {@link com.truward.metrics.json.reader.SmileMetricsReader} and converted to JSON by
+   * {@link com.truward.metrics.json.reader.SmileToJsonConverter}.
+   */
+  SMILE
+}
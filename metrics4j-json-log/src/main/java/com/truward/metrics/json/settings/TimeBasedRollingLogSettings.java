@@ -10,14 +10,40 @@ import javax.annotation.Nonnull;
  * @author Alexander Shabanov
  */
 public final class TimeBasedRollingLogSettings {
+  /**
+   * Pattern of the date and time of the first record in the file, rolled log file names are composed of
+   * file name base, underscore, the date and time, optional index and suffix,
+   * e.g. {@code metrics-log-_2014-06-01_12_00_00.log}.
+   */
+  public static final String FILE_NAME_DATE_TIME_PATTERN = "yyyy-MM-dd_HH_mm_ss";
+
   private final String fileNameBase;
   private final long timeDeltaMillis;
   private final CompressionType compressionType;
   private final String suffix;
   private final TimeService timeService;
+  private final int compressionThreadCount;
+  private final long compressionShutdownTimeoutMillis;
+  private final int indexRecordInterval;
+  private final long indexByteInterval;
+  private final RecordFormat recordFormat;
+  private final int compressionBlockSize;
+  private final boolean alignedRolling;
+  private final long maxFileSize;
+  private final int maxFileRecordCount;
+  private final int maxRetainedFileCount;
+  private final long maxRetainedBytes;
+  private final long maxRetainedAgeMillis;
+  private final int outputBufferSize;
+  private final long flushIntervalMillis;
 
   private TimeBasedRollingLogSettings(String fileNameBase, long timeDeltaMillis, CompressionType compressionType,
-                                      String suffix, TimeService timeService) {
+                                      String suffix, TimeService timeService, int compressionThreadCount,
+                                      long compressionShutdownTimeoutMillis, int indexRecordInterval,
+                                      long indexByteInterval, RecordFormat recordFormat, int compressionBlockSize,
+                                      boolean alignedRolling, long maxFileSize, int maxFileRecordCount,
+                                      int maxRetainedFileCount, long maxRetainedBytes, long maxRetainedAgeMillis,
+                                      int outputBufferSize, long flushIntervalMillis) {
     if (fileNameBase == null) {
       throw new NullPointerException("fileNameBase can't be null");
     }
@@ -38,11 +64,81 @@ public final class TimeBasedRollingLogSettings {
       throw new NullPointerException("timeService can't be null");
     }
 
+    if (compressionThreadCount <= 0) {
+      throw new IllegalArgumentException("compressionThreadCount should be greater than zero");
+    }
+
+    if (compressionShutdownTimeoutMillis < 0L) {
+      throw new IllegalArgumentException("compressionShutdownTimeoutMillis can't be negative");
+    }
+
+    if (indexRecordInterval < 0) {
+      throw new IllegalArgumentException("indexRecordInterval can't be negative");
+    }
+
+    if (indexByteInterval < 0L) {
+      throw new IllegalArgumentException("indexByteInterval can't be negative");
+    }
+
+    if (recordFormat == null) {
+      throw new NullPointerException("recordFormat can't be null");
+    }
+
+    if (compressionBlockSize < 0) {
+      throw new IllegalArgumentException("compressionBlockSize can't be negative");
+    }
+
+    if (compressionBlockSize > 0 && compressionType != CompressionType.GZIP) {
+      throw new IllegalArgumentException("Block compression is supported for GZIP compressionType only");
+    }
+
+    if (maxFileSize < 0L) {
+      throw new IllegalArgumentException("maxFileSize can't be negative");
+    }
+
+    if (maxFileRecordCount < 0) {
+      throw new IllegalArgumentException("maxFileRecordCount can't be negative");
+    }
+
+    if (maxRetainedFileCount < 0) {
+      throw new IllegalArgumentException("maxRetainedFileCount can't be negative");
+    }
+
+    if (maxRetainedBytes < 0L) {
+      throw new IllegalArgumentException("maxRetainedBytes can't be negative");
+    }
+
+    if (maxRetainedAgeMillis < 0L) {
+      throw new IllegalArgumentException("maxRetainedAgeMillis can't be negative");
+    }
+
+    if (outputBufferSize < 0) {
+      throw new IllegalArgumentException("outputBufferSize can't be negative");
+    }
+
+    if (flushIntervalMillis <= 0L) {
+      throw new IllegalArgumentException("flushIntervalMillis should be greater than zero");
+    }
+
     this.fileNameBase = fileNameBase;
     this.timeDeltaMillis = timeDeltaMillis;
     this.compressionType = compressionType;
     this.suffix = suffix;
     this.timeService = timeService;
+    this.compressionThreadCount = compressionThreadCount;
+    this.compressionShutdownTimeoutMillis = compressionShutdownTimeoutMillis;
+    this.indexRecordInterval = indexRecordInterval;
+    this.indexByteInterval = indexByteInterval;
+    this.recordFormat = recordFormat;
+    this.compressionBlockSize = compressionBlockSize;
+    this.alignedRolling = alignedRolling;
+    this.maxFileSize = maxFileSize;
+    this.maxFileRecordCount = maxFileRecordCount;
+    this.maxRetainedFileCount = maxRetainedFileCount;
+    this.maxRetainedBytes = maxRetainedBytes;
+    this.maxRetainedAgeMillis = maxRetainedAgeMillis;
+    this.outputBufferSize = outputBufferSize;
+    this.flushIntervalMillis = flushIntervalMillis;
   }
 
   @Nonnull public String getFileNameBase() {
@@ -65,6 +161,93 @@ public final class TimeBasedRollingLogSettings {
     return timeService;
   }
 
+  public int getCompressionThreadCount() {
+    return compressionThreadCount;
+  }
+
+  public long getCompressionShutdownTimeoutMillis() {
+    return compressionShutdownTimeoutMillis;
+  }
+
+  public int getIndexRecordInterval() {
+    return indexRecordInterval;
+  }
+
+  public long getIndexByteInterval() {
+    return indexByteInterval;
+  }
+
+  @Nonnull public RecordFormat getRecordFormat() {
+    return recordFormat;
+  }
+
+  public int getCompressionBlockSize() {
+    return compressionBlockSize;
+  }
+
+  /**
+   * @return True, if logs are rolled at the multiples of the time delta by the scheduler thread
+   */
+  public boolean isAlignedRolling() {
+    return alignedRolling;
+  }
+
+  public long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public int getMaxFileRecordCount() {
+    return maxFileRecordCount;
+  }
+
+  public int getMaxRetainedFileCount() {
+    return maxRetainedFileCount;
+  }
+
+  public long getMaxRetainedBytes() {
+    return maxRetainedBytes;
+  }
+
+  public long getMaxRetainedAgeMillis() {
+    return maxRetainedAgeMillis;
+  }
+
+  public int getOutputBufferSize() {
+    return outputBufferSize;
+  }
+
+  public long getFlushIntervalMillis() {
+    return flushIntervalMillis;
+  }
+
+  /**
+   * @return True, if records are buffered in memory and flushed by the background thread
+   */
+  public boolean isOutputBufferingEnabled() {
+    return outputBufferSize > 0;
+  }
+
+  /**
+   * @return True, if old log files are deleted
+   */
+  public boolean isRetentionEnabled() {
+    return maxRetainedFileCount > 0 || maxRetainedBytes > 0L || maxRetainedAgeMillis > 0L;
+  }
+
+  /**
+   * @return True, if log files are compressed while being written
+   */
+  public boolean isBlockCompressionEnabled() {
+    return compressionBlockSize > 0;
+  }
+
+  /**
+   * @return True, if sparse index is written alongside each log file
+   */
+  public boolean isIndexEnabled() {
+    return indexRecordInterval > 0 || indexByteInterval > 0L;
+  }
+
   //
   // Builder
   //
@@ -81,6 +264,20 @@ public final class TimeBasedRollingLogSettings {
     private CompressionType compressionType = CompressionType.GZIP;
     private String suffix = ".log";
     private TimeService timeService = TimeService.DEFAULT;
+    private int compressionThreadCount = 1;
+    private long compressionShutdownTimeoutMillis = 60000L; // 1 minute
+    private int indexRecordInterval = 0; // index is not written by default
+    private long indexByteInterval = 0L;
+    private RecordFormat recordFormat = RecordFormat.JSON;
+    private int compressionBlockSize = 0; // files are compressed when rolled
+    private boolean alignedRolling = false;
+    private long maxFileSize = 0L; // file size doesn't trigger rolling by default
+    private int maxFileRecordCount = 0;
+    private int maxRetainedFileCount = 0; // files are not deleted by default
+    private long maxRetainedBytes = 0L;
+    private long maxRetainedAgeMillis = 0L;
+    private int outputBufferSize = 0; // each record is flushed by default
+    private long flushIntervalMillis = 200L;
 
     /** Hidden. */
     Builder() {
@@ -111,8 +308,167 @@ public final class TimeBasedRollingLogSettings {
       return this;
     }
 
+    /**
+     * @param value Count of background threads, that compress rolled log files
+     * @return This builder
+     */
+    @Nonnull public Builder setCompressionThreadCount(int value) {
+      this.compressionThreadCount = value;
+      return this;
+    }
+
+    /**
+     * @param value Time given to the compression threads to complete pending work when appender is being closed
+     * @return This builder
+     */
+    @Nonnull public Builder setCompressionShutdownTimeoutMillis(long value) {
+      this.compressionShutdownTimeoutMillis = value;
+      return this;
+    }
+
+    /**
+     * @param value Count of records between the entries of the sparse index, written alongside each log file,
+     *              zero means that count of records doesn't trigger index entry
+     * @return This builder
+     * @see com.truward.metrics.json.reader.LogIndex
+     */
+    @Nonnull public Builder setIndexRecordInterval(int value) {
+      this.indexRecordInterval = value;
+      return this;
+    }
+
+    /**
+     * @param value Count of bytes between the entries of the sparse index, written alongside each log file,
+     *              zero means that count of bytes doesn't trigger index entry
+     * @return This builder
+     * @see com.truward.metrics.json.reader.LogIndex
+     */
+    @Nonnull public Builder setIndexByteInterval(long value) {
+      this.indexByteInterval = value;
+      return this;
+    }
+
+    /**
+     * @param value Encoding of the records, binary formats are not supported by the streaming metrics creator
+     * @return This builder
+     */
+    @Nonnull public Builder setRecordFormat(RecordFormat value) {
+      this.recordFormat = value;
+      return this;
+    }
+
+    /**
+     * Enables block compression: log files are written as a sequence of independently compressed gzip members,
+     * each containing records of approximately the given size, instead of being compressed when rolled.
+     * Index entry is written for each block regardless of the index intervals, so that blocks can be
+     * decompressed in parallel, see {@link com.truward.metrics.json.reader.ParallelJsonMetricsReader}.
+     * Records are kept in memory until their block is complete or log is rolled.
+     *
+     * @param value Size of the uncompressed block, zero disables block compression
+     * @return This builder
+     */
+    @Nonnull public Builder setCompressionBlockSize(int value) {
+      this.compressionBlockSize = value;
+      return this;
+    }
+
+    /**
+     * Enables aligned rolling: logs are rolled at the multiples of the time delta in the default time zone, e.g.
+     * at the start of each hour, rather than after the time delta is passed since the first record of the file.
+     * Logs are rolled by the scheduler thread, so that idle files are closed and compressed in time, and file is
+     * named after the start of its interval.
+     *
+     * @param value True, if rolling should be aligned
+     * @return This builder
+     */
+    @Nonnull public Builder setAlignedRolling(boolean value) {
+      this.alignedRolling = value;
+      return this;
+    }
+
+    /**
+     * @param value Size of the log file, after which log is rolled regardless of time, zero means that file size
+     *              doesn't trigger rolling. File might exceed this size by one record. If block compression is enabled,
+     *              compressed size of the complete blocks is compared.
+     * @return This builder
+     */
+    @Nonnull public Builder setMaxFileSize(long value) {
+      this.maxFileSize = value;
+      return this;
+    }
+
+    /**
+     * @param value Count of records in the log file, after which log is rolled regardless of time, zero means that
+     *              count of records doesn't trigger rolling
+     * @return This builder
+     */
+    @Nonnull public Builder setMaxFileRecordCount(int value) {
+      this.maxFileRecordCount = value;
+      return this;
+    }
+
+    /**
+     * Retention policy, which is enforced by the background thread after each roll: the oldest rolled files are
+     * deleted, until the retained files meet all the limits. Only compressed files are deleted, unless rolled files
+     * are not compressed. The file being written and files pending compression are not counted.
+     *
+     * @param value Maximum count of the retained files, zero means no limit
+     * @return This builder
+     */
+    @Nonnull public Builder setMaxRetainedFileCount(int value) {
+      this.maxRetainedFileCount = value;
+      return this;
+    }
+
+    /**
+     * @param value Maximum total size of the retained files, zero means no limit
+     * @return This builder
+     * @see #setMaxRetainedFileCount(int)
+     */
+    @Nonnull public Builder setMaxRetainedBytes(long value) {
+      this.maxRetainedBytes = value;
+      return this;
+    }
+
+    /**
+     * @param value Maximum time since the last modification of the retained file, zero means no limit
+     * @return This builder
+     * @see #setMaxRetainedFileCount(int)
+     */
+    @Nonnull public Builder setMaxRetainedAgeMillis(long value) {
+      this.maxRetainedAgeMillis = value;
+      return this;
+    }
+
+    /**
+     * Enables output buffering: records are written into the in-memory buffer of the given size, which is written
+     * into the file when it is full, when log is rolled or closed and by the background thread every
+     * {@link #setFlushIntervalMillis(long) flush interval}, instead of flushing each record into the file.
+     * Records written within the last flush interval are lost if process crashes.
+     *
+     * @param value Size of the output buffer, zero disables buffering
+     * @return This builder
+     */
+    @Nonnull public Builder setOutputBufferSize(int value) {
+      this.outputBufferSize = value;
+      return this;
+    }
+
+    /**
+     * @param value Maximum time, the written records are kept in the output buffer
+     * @return This builder
+     * @see #setOutputBufferSize(int)
+     */
+    @Nonnull public Builder setFlushIntervalMillis(long value) {
+      this.flushIntervalMillis = value;
+      return this;
+    }
+
     @Nonnull public TimeBasedRollingLogSettings build() {
-      return new TimeBasedRollingLogSettings(fileNameBase, timeDeltaMillis, compressionType, suffix, timeService);
+      return new TimeBasedRollingLogSettings(fileNameBase, timeDeltaMillis, compressionType, suffix, timeService,
+          compressionThreadCount, compressionShutdownTimeoutMillis, indexRecordInterval, indexByteInterval,
+          recordFormat, compressionBlockSize, alignedRolling, maxFileSize, maxFileRecordCount, maxRetainedFileCount,
+          maxRetainedBytes, maxRetainedAgeMillis, outputBufferSize, flushIntervalMillis);
     }
   }
 }
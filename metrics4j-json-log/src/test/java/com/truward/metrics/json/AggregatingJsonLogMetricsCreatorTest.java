@@ -0,0 +1,52 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.aggregate.AggregatingMetricsCreator;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.json.AggregatingJsonLogMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class AggregatingJsonLogMetricsCreatorTest {
+
+  @Test
+  public void shouldWriteSummaryOnClose() throws IOException {
+    // Given:
+    final ByteArrayOutputStream os = new ByteArrayOutputStream(1000);
+    final AggregatingJsonLogMetricsCreator metricsCreator = new AggregatingJsonLogMetricsCreator(os, 3600000L);
+
+    // When:
+    for (int i = 1; i <= 1000; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "UserService.loginUser");
+        metrics.put(PredefinedMetricNames.TIME_DELTA, (long) i);
+        metrics.put(PredefinedMetricNames.SUCCEEDED, i % 10 != 0);
+      }
+    }
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()))) {
+      final Map<String, ?> summary = reader.readNext();
+      assertNotNull(summary);
+      assertEquals("UserService.loginUser", summary.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(1000, ((Number) summary.get(AggregatingMetricsCreator.COUNT)).intValue());
+      assertEquals(100, ((Number) summary.get(AggregatingMetricsCreator.FAILED_COUNT)).intValue());
+      assertEquals(500.0, ((Number) summary.get(AggregatingMetricsCreator.TIME_DELTA_P50)).doubleValue(), 500.0 / 32);
+      assertEquals(999.0, ((Number) summary.get(AggregatingMetricsCreator.TIME_DELTA_P999)).doubleValue(), 999.0 / 32);
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+}
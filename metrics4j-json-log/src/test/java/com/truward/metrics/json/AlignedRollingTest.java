@@ -0,0 +1,123 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.RolledLogFile;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.time.TimeService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests aligned rolling of the logs, see {@link TimeBasedRollingLogSettings#isAlignedRolling()}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class AlignedRollingTest {
+  private static final long HOUR = 3600000L;
+  private static final long MINUTE = 60000L;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private long now;
+
+  @Test
+  public void shouldRollAtIntervalBoundaries() throws IOException {
+    // Given:
+    final long t10_00 = getLocalHourStart(1401616800000L); // 2014-06-01 10:00:00 UTC, aligned to local hour
+    now = t10_00 + 20 * MINUTE;
+    final TimeBasedRollingLogSettings settings = TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setCompressionType(CompressionType.NONE)
+        .setTimeDeltaMillis(HOUR)
+        .setAlignedRolling(true)
+        .setTimeService(new TimeService() {
+          @Override
+          public long now() {
+            return now;
+          }
+        })
+        .build();
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(settings);
+
+    // When:
+    write(metricsCreator);
+    now = t10_00 + 50 * MINUTE;
+    write(metricsCreator);
+    now = t10_00 + 65 * MINUTE;
+    write(metricsCreator);
+    now = t10_00 + 4 * HOUR + MINUTE;
+    write(metricsCreator);
+    metricsCreator.close();
+
+    // Then:
+    final List<RolledLogFile> files = RolledLogFile.list(settings, TimeZone.getDefault());
+    assertEquals(3, files.size());
+    assertEquals(t10_00, files.get(0).getStartTime());
+    assertEquals(t10_00 + HOUR, files.get(1).getStartTime());
+    assertEquals(t10_00 + 4 * HOUR, files.get(2).getStartTime());
+    assertEquals(2, countLines(files.get(0).getFile()));
+  }
+
+  @Test
+  public void shouldRollIdleLogFromScheduler() throws IOException, InterruptedException {
+    // Given:
+    final TimeBasedRollingLogSettings settings = TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setCompressionType(CompressionType.GZIP)
+        .setTimeDeltaMillis(500L)
+        .setAlignedRolling(true)
+        .build();
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(settings);
+
+    // When:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "idle");
+    }
+
+    // Then: file is compressed without subsequent writes
+    boolean compressed = false;
+    for (int i = 0; i < 50 && !compressed; ++i) {
+      Thread.sleep(100L);
+      final List<RolledLogFile> files = RolledLogFile.list(settings, TimeZone.getDefault());
+      compressed = files.size() == 1 && files.get(0).getCompressionType() == CompressionType.GZIP;
+    }
+    metricsCreator.close();
+    assertTrue("idle log should be rolled and compressed", compressed);
+  }
+
+  //
+  // Private
+  //
+
+  private static long getLocalHourStart(long time) {
+    return time - (time + TimeZone.getDefault().getOffset(time)) % HOUR;
+  }
+
+  private void write(JsonLogMetricsCreator metricsCreator) {
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.START_TIME, now);
+    }
+  }
+
+  private static int countLines(File file) throws IOException {
+    int result = 0;
+    for (final byte b : Files.readAllBytes(file.toPath())) {
+      if (b == '\n') {
+        ++result;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,221 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.appender.MapAppender;
+import com.truward.metrics.json.internal.appender.AsyncMapAppender;
+import com.truward.metrics.json.internal.cache.EmptyRecordCache;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.json.settings.BackPressurePolicy;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for asynchronous mode of {@link com.truward.metrics.json.JsonLogMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class AsyncJsonLogMetricsCreatorTest {
+
+  @Test
+  public void shouldWriteAllRecordsWhenBlocking() throws IOException {
+    // Given:
+    final ByteArrayOutputStream os = new ByteArrayOutputStream(1000);
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(os, EmptyRecordCache.getInstance(),
+        AsyncAppenderSettings.newBuilder().setBufferSize(16).setBackPressurePolicy(BackPressurePolicy.BLOCK).build());
+    final int entriesCount = 1000;
+
+    // When:
+    for (int i = 0; i < entriesCount; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "test");
+        metrics.put("id", i);
+      }
+    }
+    metricsCreator.close();
+
+    // Then:
+    assertEquals(0L, metricsCreator.getDroppedRecordCount());
+    try (final MetricsReader reader = new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()))) {
+      for (int i = 0; i < entriesCount; ++i) {
+        final Map<String, ?> metrics = reader.readNext();
+        assertNotNull("Entry #" + i + " not found", metrics);
+        assertEquals(i, metrics.get("id"));
+      }
+
+      assertNull("There should be no more metrics", reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldDropNewestRecords() throws Exception {
+    // Given:
+    final BlockingMapAppender delegate = new BlockingMapAppender();
+    final AsyncMapAppender appender = new AsyncMapAppender(delegate, EmptyRecordCache.getInstance(),
+        AsyncAppenderSettings.newBuilder().setBufferSize(4).setBackPressurePolicy(BackPressurePolicy.DROP_NEWEST)
+            .build());
+
+    // When:
+    appender.write(newRecord(0));
+    assertTrue("writer thread should take first record", delegate.started.await(5L, TimeUnit.SECONDS));
+    for (int i = 1; i <= 6; ++i) {
+      appender.write(newRecord(i)); // 4 records fit into the buffer, 2 more should be dropped
+    }
+    delegate.release.countDown();
+    appender.close();
+
+    // Then:
+    assertEquals(2L, appender.getDroppedRecordCount());
+    assertEquals(ids(0, 1, 2, 3, 4), delegate.ids);
+  }
+
+  @Test
+  public void shouldDropOldestRecords() throws Exception {
+    // Given:
+    final BlockingMapAppender delegate = new BlockingMapAppender();
+    final AsyncMapAppender appender = new AsyncMapAppender(delegate, EmptyRecordCache.getInstance(),
+        AsyncAppenderSettings.newBuilder().setBufferSize(4).setBackPressurePolicy(BackPressurePolicy.DROP_OLDEST)
+            .build());
+
+    // When:
+    appender.write(newRecord(0));
+    assertTrue("writer thread should take first record", delegate.started.await(5L, TimeUnit.SECONDS));
+    for (int i = 1; i <= 6; ++i) {
+      appender.write(newRecord(i));
+    }
+    delegate.release.countDown();
+    appender.close();
+
+    // Then:
+    assertEquals(2L, appender.getDroppedRecordCount());
+    assertEquals(ids(0, 3, 4, 5, 6), delegate.ids);
+  }
+
+  @Test
+  public void shouldAccountForRecordsWrittenConcurrentlyWithClose() throws Exception {
+    // Given:
+    final BlockingMapAppender delegate = new BlockingMapAppender();
+    delegate.release.countDown();
+    final AsyncMapAppender appender = new AsyncMapAppender(delegate, EmptyRecordCache.getInstance(),
+        AsyncAppenderSettings.newBuilder().setBufferSize(64).setBackPressurePolicy(BackPressurePolicy.DROP_NEWEST)
+            .build());
+    final AtomicInteger acceptedCount = new AtomicInteger();
+    final Thread[] producers = new Thread[4];
+    for (int i = 0; i < producers.length; ++i) {
+      producers[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int id = 0;; ++id) {
+              appender.write(newRecord(id));
+              acceptedCount.incrementAndGet();
+            }
+          } catch (IllegalStateException ignored) {
+            // appender has been closed
+          }
+        }
+      });
+      producers[i].start();
+    }
+
+    // When:
+    assertTrue("writer thread should take first record", delegate.started.await(5L, TimeUnit.SECONDS));
+    appender.close();
+    for (final Thread producer : producers) {
+      producer.join();
+    }
+
+    // Then: each accepted record is either written or counted as dropped
+    assertEquals(acceptedCount.get(), delegate.ids.size() + appender.getDroppedRecordCount());
+  }
+
+  @Test
+  public void shouldStopWriterBeforeClosingDelegateOnTimeout() throws Exception {
+    // Given:
+    final BlockingMapAppender delegate = new BlockingMapAppender();
+    final AsyncMapAppender appender = new AsyncMapAppender(delegate, EmptyRecordCache.getInstance(),
+        AsyncAppenderSettings.newBuilder().setBufferSize(8).setShutdownTimeoutMillis(100L).build());
+    appender.write(newRecord(0));
+    assertTrue("writer thread should take first record", delegate.started.await(5L, TimeUnit.SECONDS));
+    for (int i = 1; i <= 4; ++i) {
+      appender.write(newRecord(i));
+    }
+
+    // When: delegate is never released, its write fails once writer thread is interrupted
+    appender.close();
+
+    // Then:
+    assertFalse("delegate should not be closed while record is being written", delegate.closedWhileWriting);
+    assertEquals(4L, appender.getDroppedRecordCount());
+    assertEquals(ids(), delegate.ids);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectZeroShutdownTimeout() {
+    AsyncAppenderSettings.newBuilder().setShutdownTimeoutMillis(0L).build();
+  }
+
+  //
+  // Private
+  //
+
+  private static Map<String, Object> newRecord(int id) {
+    final Map<String, Object> result = new HashMap<>();
+    result.put("id", id);
+    return result;
+  }
+
+  private static List<Object> ids(Integer... ids) {
+    final List<Object> result = new ArrayList<>(ids.length);
+    Collections.addAll(result, ids);
+    return result;
+  }
+
+  private static final class BlockingMapAppender implements MapAppender {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Object> ids = Collections.synchronizedList(new ArrayList<>());
+    volatile boolean writing;
+    volatile boolean closedWhileWriting;
+
+    @Override
+    public void write(@Nonnull Map<String, Object> properties) {
+      writing = true;
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      } finally {
+        writing = false;
+      }
+      ids.add(properties.get("id"));
+    }
+
+    @Override
+    public void reportDuplicateEntry(@Nonnull Map<String, Object> source, @Nonnull String key) {
+      // do nothing
+    }
+
+    @Override
+    public void close() throws IOException {
+      closedWhileWriting = writing;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.JsonMetricsReaders;
+import com.truward.metrics.json.reader.LogIndex;
+import com.truward.metrics.json.reader.ParallelJsonMetricsReader;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.reader.MetricsReader;
+import com.truward.metrics.reader.MetricsRecordHandler;
+import com.truward.metrics.time.TimeService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests block compression of the rolling log files.
+ *
+ * @author Alexander Shabanov
+ */
+public final class BlockCompressionTest {
+  private static final long START_TIME = 1401616800000L;
+  private static final int RECORD_COUNT = 1000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+
+  @Before
+  public void init() throws IOException {
+    final long[] currentTime = { START_TIME };
+    final JsonLogMetricsCreator creator = new JsonLogMetricsCreator(TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setCompressionType(CompressionType.GZIP)
+        .setCompressionBlockSize(2048)
+        .setTimeService(new TimeService() {
+          @Override
+          public long now() {
+            return currentTime[0];
+          }
+        })
+        .build());
+    for (int i = 0; i < RECORD_COUNT; ++i) {
+      currentTime[0] = START_TIME + i * 100L;
+      try (final Metrics metrics = creator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "blockTest");
+        metrics.put("id", i);
+      }
+    }
+
+    // Then: file is compressed while being written
+    final File[] files = listFiles();
+    assertEquals(1, files.length);
+    assertTrue(files[0].getName().endsWith(".log.gz"));
+    file = files[0];
+    creator.close();
+  }
+
+  @Test
+  public void shouldReadBlockCompressedFile() throws IOException {
+    // When:
+    int count = 0;
+    try (final MetricsReader reader = JsonMetricsReaders.open(file)) {
+      for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+        assertEquals(count, record.get("id"));
+        ++count;
+      }
+    }
+
+    // Then:
+    assertEquals(RECORD_COUNT, count);
+    assertEquals(1, listFiles().length);
+  }
+
+  @Test
+  public void shouldIndexBlocks() throws IOException {
+    // When:
+    final LogIndex index = LogIndex.read(file);
+
+    // Then:
+    assertNotNull(index);
+    assertTrue(index.size() > 5);
+    final long writtenFrom = index.getTime(3) + 1L;
+    try (final MetricsReader reader = JsonMetricsReaders.open(file, writtenFrom, RecordFramingMode.BRACES)) {
+      final Map<String, ?> first = reader.readNext();
+      assertNotNull(first);
+      final int firstId = ((Number) first.get("id")).intValue();
+      assertEquals(START_TIME + firstId * 100L, index.getTime(3) + 100L); // record, following the indexed one
+    }
+  }
+
+  @Test
+  public void shouldReadBlocksInParallel() throws IOException {
+    // Given:
+    final ForkJoinPool pool = new ForkJoinPool(2);
+    final AtomicInteger count = new AtomicInteger();
+
+    // When:
+    try (final ParallelJsonMetricsReader reader = new ParallelJsonMetricsReader(file, pool, 512)) {
+      int expectedId = 0;
+      for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+        assertEquals(expectedId++, record.get("id"));
+      }
+      assertEquals(RECORD_COUNT, expectedId);
+
+      reader.forEach(new MetricsRecordHandler() {
+        @Override
+        public void handle(@Nonnull Map<String, ?> record) {
+          count.incrementAndGet();
+        }
+      });
+    } finally {
+      pool.shutdown();
+    }
+
+    // Then:
+    assertEquals(RECORD_COUNT, count.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectBlockCompressionWithZip() {
+    TimeBasedRollingLogSettings.newBuilder()
+        .setCompressionType(CompressionType.ZIP)
+        .setCompressionBlockSize(4096)
+        .build();
+  }
+
+  //
+  // Private
+  //
+
+  private File[] listFiles() {
+    return temporaryFolder.getRoot().listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return !name.endsWith(".idx");
+      }
+    });
+  }
+}
@@ -0,0 +1,102 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.RolledLogFile;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests buffered output of the rolling logs, see {@link TimeBasedRollingLogSettings#isOutputBufferingEnabled()}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class BufferedOutputTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldKeepRecordsInBufferUntilClosed() throws IOException {
+    // Given:
+    final TimeBasedRollingLogSettings settings = newSettings(60000L);
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(settings);
+
+    // When:
+    write(metricsCreator, 10);
+
+    // Then:
+    final File file = getSingleFile(settings);
+    assertEquals(0L, file.length());
+    metricsCreator.close();
+    assertEquals(10, countLines(file));
+  }
+
+  @Test
+  public void shouldFlushRecordsPeriodically() throws IOException, InterruptedException {
+    // Given:
+    final TimeBasedRollingLogSettings settings = newSettings(20L);
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(settings);
+
+    // When:
+    write(metricsCreator, 10);
+
+    // Then:
+    final File file = getSingleFile(settings);
+    for (int i = 0; i < 50 && countLines(file) < 10; ++i) {
+      Thread.sleep(100L);
+    }
+    assertEquals(10, countLines(file));
+    metricsCreator.close();
+    assertEquals(10, countLines(file));
+  }
+
+  //
+  // Private
+  //
+
+  private TimeBasedRollingLogSettings newSettings(long flushIntervalMillis) {
+    return TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setCompressionType(CompressionType.NONE)
+        .setOutputBufferSize(65536)
+        .setFlushIntervalMillis(flushIntervalMillis)
+        .build();
+  }
+
+  private static void write(JsonLogMetricsCreator metricsCreator, int count) {
+    for (int i = 0; i < count; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "UserService.loginUser");
+        metrics.put("id", i);
+      }
+    }
+  }
+
+  private static File getSingleFile(TimeBasedRollingLogSettings settings) {
+    final List<RolledLogFile> files = RolledLogFile.list(settings, TimeZone.getDefault());
+    assertEquals(1, files.size());
+    return files.get(0).getFile();
+  }
+
+  private static int countLines(File file) throws IOException {
+    int result = 0;
+    for (final byte b : Files.readAllBytes(file.toPath())) {
+      if (b == '\n') {
+        ++result;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,114 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.json.CompactJsonLogMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class CompactJsonLogMetricsCreatorTest {
+
+  @Test
+  public void shouldDumpAllValueTypes() throws IOException {
+    // Given:
+    final ByteArrayOutputStream os = new ByteArrayOutputStream(1000);
+    final JsonLogMetricsCreator metricsCreator = new CompactJsonLogMetricsCreator(os);
+
+    // When:
+    try (final Metrics metrics = metricsCreator.create()) {
+      writeAllValueTypes(metrics);
+    }
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()))) {
+      assertAllValueTypes(reader.readNext());
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldDumpRecordsAsynchronously() throws IOException {
+    // Given:
+    final ByteArrayOutputStream os = new ByteArrayOutputStream(1000);
+    final JsonLogMetricsCreator metricsCreator = new CompactJsonLogMetricsCreator(os,
+        AsyncAppenderSettings.newBuilder().setBufferSize(4).build());
+    final int entriesCount = 100;
+
+    // When:
+    for (int i = 0; i < entriesCount; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put("id", i);
+      }
+    }
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()))) {
+      for (int i = 0; i < entriesCount; ++i) {
+        assertEquals(singletonMap("id", i), reader.readNext());
+      }
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldDisallowWritingToClosedMetrics() throws IOException {
+    // Given
+    final Metrics metrics = new CompactJsonLogMetricsCreator(new ByteArrayOutputStream()).create();
+    metrics.put(PredefinedMetricNames.ORIGIN, "test");
+    metrics.close();
+
+    // When:
+    metrics.put(PredefinedMetricNames.START_TIME, 1L);
+
+    // Then: exception expected
+  }
+
+  //
+  // Private
+  //
+
+  private static void writeAllValueTypes(Metrics metrics) {
+    metrics.put(PredefinedMetricNames.ORIGIN, "test");
+    metrics.put(PredefinedMetricNames.START_TIME, 1000L);
+    metrics.put(PredefinedMetricNames.SUCCEEDED, true);
+    metrics.put("int", 1);
+    metrics.put("char", 'c');
+    metrics.put("float", 1.5f);
+    metrics.put("double", 2.5);
+    metrics.put("builder", new StringBuilder("sb"));
+    metrics.put("list", Arrays.asList(1, 2));
+    metrics.put("map", singletonMap("a", "b"));
+  }
+
+  private static void assertAllValueTypes(Map<String, ?> map) {
+    assertNotNull("should read metrics entry", map);
+    assertEquals(10, map.size());
+    assertEquals("test", map.get(PredefinedMetricNames.ORIGIN));
+    assertEquals(1000, map.get(PredefinedMetricNames.START_TIME));
+    assertEquals(true, map.get(PredefinedMetricNames.SUCCEEDED));
+    assertEquals(1, map.get("int"));
+    assertEquals("c", map.get("char"));
+    assertEquals(1.5, map.get("float"));
+    assertEquals(2.5, map.get("double"));
+    assertEquals("sb", map.get("builder"));
+    assertEquals(Arrays.asList(1, 2), map.get("list"));
+    assertEquals(singletonMap("a", "b"), map.get("map"));
+  }
+}
@@ -11,6 +11,7 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 
@@ -161,6 +162,50 @@ public final class JsonLogMetricsCreatorTest {
     }
   }
 
+  @Test
+  public void shouldSeparateRecordsWithNewline() throws IOException {
+    // Given:
+    for (int i = 0; i < 3; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "test");
+      }
+    }
+
+    // When:
+    metricsCreator.close();
+
+    // Then:
+    assertEquals("{\"origin\":\"test\"}\n{\"origin\":\"test\"}\n{\"origin\":\"test\"}\n",
+        new String(os.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldNotWritePartialRecordOnUnsupportedValue() throws IOException {
+    // Given:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put("val", "a");
+    }
+
+    // When:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put("val", "b");
+      metrics.put("unsupported", Collections.singleton(new Object()));
+    } catch (UnsupportedOperationException ignored) {
+      // expected
+    }
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put("val", "c");
+    }
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = newMetricsReader()) {
+      assertEquals(singletonMap("val", "a"), reader.readNext());
+      assertEquals(singletonMap("val", "c"), reader.readNext());
+      assertNull("there should be no more metrics", reader.readNext());
+    }
+  }
+
   //
   // Private
   //
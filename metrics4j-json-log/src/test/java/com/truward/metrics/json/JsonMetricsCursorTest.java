@@ -0,0 +1,152 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.JsonMetricsCursor;
+import com.truward.metrics.reader.MetricsCursor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link JsonMetricsCursor}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class JsonMetricsCursorTest {
+  private ByteArrayOutputStream os;
+  private JsonLogMetricsCreator metricsCreator;
+
+  @Before
+  public void init() {
+    os = new ByteArrayOutputStream(1000);
+    metricsCreator = new JsonLogMetricsCreator(os);
+  }
+
+  @Test
+  public void shouldReadRecords() throws IOException {
+    // Given:
+    final int entriesCount = 100;
+    for (int i = 0; i < entriesCount; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "test" + i);
+        metrics.put(PredefinedMetricNames.START_TIME, 1400000000000L + i);
+        metrics.put(PredefinedMetricNames.SUCCEEDED, i % 2 == 0);
+        metrics.put("ratio", i * 0.5);
+      }
+    }
+    metricsCreator.close();
+
+    // When:
+    try (final MetricsCursor cursor = newCursor()) {
+      // Then:
+      for (int i = 0; i < entriesCount; ++i) {
+        assertTrue("Entry #" + i + " not found", cursor.next());
+        assertEquals(4, cursor.size());
+        assertEquals("test" + i, cursor.getString(PredefinedMetricNames.ORIGIN));
+        assertEquals(1400000000000L + i, cursor.getLong(PredefinedMetricNames.START_TIME, -1L));
+        assertEquals(i % 2 == 0, cursor.getBoolean(PredefinedMetricNames.SUCCEEDED, i % 2 != 0));
+        assertEquals(i * 0.5, cursor.getDouble("ratio", -1.0), 0.0001);
+        assertFalse(cursor.has(PredefinedMetricNames.TIME_DELTA));
+      }
+      assertFalse("There should be no more metrics", cursor.next());
+    }
+  }
+
+  @Test
+  public void shouldReturnDefaultsForMissingOrMismatchedEntries() throws IOException {
+    // Given:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "test");
+      metrics.put(PredefinedMetricNames.TIME_DELTA, 10);
+    }
+    metricsCreator.close();
+
+    // When:
+    try (final MetricsCursor cursor = newCursor()) {
+      assertTrue(cursor.next());
+
+      // Then:
+      assertEquals(-1L, cursor.getLong(PredefinedMetricNames.ORIGIN, -1L));
+      assertEquals(-1L, cursor.getLong(PredefinedMetricNames.START_TIME, -1L));
+      assertEquals(10.0, cursor.getDouble(PredefinedMetricNames.TIME_DELTA, -1.0), 0.0001);
+      assertTrue(cursor.getBoolean(PredefinedMetricNames.TIME_DELTA, true));
+      assertNull(cursor.getString(PredefinedMetricNames.TIME_DELTA));
+      assertEquals(10, cursor.get(PredefinedMetricNames.TIME_DELTA));
+    }
+  }
+
+  @Test
+  public void shouldReadNestedObjects() throws IOException {
+    // Given:
+    final List<Object> parameters = Arrays.<Object>asList(1, "str", Long.MAX_VALUE, Arrays.asList(3));
+    final Map<String, Object> traits = Collections.<String, Object>singletonMap("a", "b");
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put("parameters", parameters);
+      metrics.put("traits", traits);
+    }
+    metricsCreator.close();
+
+    // When:
+    try (final MetricsCursor cursor = newCursor()) {
+      assertTrue(cursor.next());
+
+      // Then:
+      assertEquals(parameters, cursor.get("parameters"));
+      assertEquals(traits, cursor.get("traits"));
+      assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void shouldReadRecordsWithoutNewline() throws IOException {
+    // Given:
+    os.write("{\"id\":1} {\"id\":2}{\"id\":3}".getBytes("UTF-8"));
+
+    // When:
+    try (final MetricsCursor cursor = newCursor()) {
+      // Then:
+      for (int i = 1; i <= 3; ++i) {
+        assertTrue(cursor.next());
+        assertEquals(i, cursor.getLong("id", -1L));
+        assertEquals("id", cursor.getName(0));
+      }
+      assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void shouldReturnLastEntryWithRepeatedName() throws IOException {
+    // Given:
+    os.write("{\"origin\":\"a\",\"timeDelta\":1,\"origin\":\"b\",\"timeDelta\":2.5}".getBytes("UTF-8"));
+
+    // When:
+    try (final MetricsCursor cursor = newCursor()) {
+      assertTrue(cursor.next());
+
+      // Then:
+      assertEquals(4, cursor.size());
+      assertEquals("b", cursor.getString(PredefinedMetricNames.ORIGIN));
+      assertEquals("b", cursor.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(2.5, cursor.getDouble(PredefinedMetricNames.TIME_DELTA, -1.0), 0.0001);
+      assertFalse(cursor.next());
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private MetricsCursor newCursor() throws IOException {
+    return new JsonMetricsCursor(new ByteArrayInputStream(os.toByteArray()));
+  }
+}
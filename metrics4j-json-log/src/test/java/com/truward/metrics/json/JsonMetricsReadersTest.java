@@ -0,0 +1,152 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.internal.reader.ReadAheadInputStream;
+import com.truward.metrics.json.reader.JsonMetricsReaders;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link JsonMetricsReaders}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class JsonMetricsReadersTest {
+  private static final int ENTRIES_COUNT = 1000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private byte[] contents;
+
+  @Before
+  public void init() throws IOException {
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(os)) {
+      for (int i = 0; i < ENTRIES_COUNT; ++i) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.ORIGIN, "test");
+          metrics.put("id", i);
+        }
+      }
+    }
+    contents = os.toByteArray();
+  }
+
+  @Test
+  public void shouldDetectCompressionType() {
+    assertEquals(CompressionType.NONE, CompressionType.fromFileName("metrics_2014-01-01_10_00_00.log"));
+    assertEquals(CompressionType.GZIP, CompressionType.fromFileName("metrics_2014-01-01_10_00_00.log.gz"));
+    assertEquals(CompressionType.ZIP, CompressionType.fromFileName("metrics_2014-01-01_10_00_00.log.ZIP"));
+  }
+
+  @Test
+  public void shouldReadUncompressedFile() throws IOException {
+    // Given:
+    final File file = temporaryFolder.newFile("metrics.log");
+    try (final OutputStream os = new FileOutputStream(file)) {
+      os.write(contents);
+    }
+
+    // When/Then:
+    assertMetricsRead(file);
+  }
+
+  @Test
+  public void shouldReadGzipFile() throws IOException {
+    // Given:
+    final File file = temporaryFolder.newFile("metrics.log.gz");
+    try (final OutputStream os = new GZIPOutputStream(new FileOutputStream(file))) {
+      os.write(contents);
+    }
+
+    // When/Then:
+    assertMetricsRead(file);
+  }
+
+  @Test
+  public void shouldReadZipFile() throws IOException {
+    // Given:
+    final File file = temporaryFolder.newFile("metrics.log.zip");
+    try (final ZipOutputStream os = new ZipOutputStream(new FileOutputStream(file))) {
+      os.putNextEntry(new ZipEntry("metrics.log"));
+      os.write(contents);
+    }
+
+    // When/Then:
+    assertMetricsRead(file);
+  }
+
+  @Test
+  public void shouldReadAheadWithSmallBuffers() throws IOException {
+    // Given:
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[13];
+
+    // When:
+    try (final InputStream is = new ReadAheadInputStream(new ByteArrayInputStream(contents), 7, "test-read-ahead")) {
+      assertEquals(contents[0], (byte) is.read());
+      result.write(contents[0]);
+      for (int read = is.read(buffer); read >= 0; read = is.read(buffer)) {
+        result.write(buffer, 0, read);
+      }
+      assertEquals(-1, is.read());
+    }
+
+    // Then:
+    assertArrayEquals(contents, result.toByteArray());
+  }
+
+  @Test
+  public void shouldReportSourceError() throws IOException {
+    // Given:
+    final InputStream source = new SequenceInputStream(new ByteArrayInputStream(contents), new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Corrupted source");
+      }
+    });
+
+    // When:
+    try (final InputStream is = new ReadAheadInputStream(source, 64, "test-read-ahead")) {
+      final byte[] buffer = new byte[100];
+      //noinspection StatementWithEmptyBody
+      while (is.read(buffer) >= 0) {
+        // read until error
+      }
+      fail("Error should be reported");
+    } catch (IOException e) {
+      // Then:
+      assertEquals("Corrupted source", e.getCause().getMessage());
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private static void assertMetricsRead(File file) throws IOException {
+    try (final MetricsReader reader = JsonMetricsReaders.open(file, RecordFramingMode.NEWLINE)) {
+      for (int i = 0; i < ENTRIES_COUNT; ++i) {
+        final Map<String, ?> metrics = reader.readNext();
+        assertNotNull("Entry #" + i + " not found in " + file.getName(), metrics);
+        assertEquals(i, metrics.get("id"));
+      }
+      assertNull("There should be no more metrics", reader.readNext());
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.json.reader.JsonMetricsReaders;
+import com.truward.metrics.json.reader.LogIndex;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.reader.MetricsReader;
+import com.truward.metrics.time.TimeService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LogIndex}, written by the rolling log appender.
+ *
+ * @author Alexander Shabanov
+ */
+public final class LogIndexTest {
+  private static final long START_TIME = 1401616800000L;
+  private static final int RECORD_COUNT = 100;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final TestTimeService timeService = new TestTimeService();
+
+  @Test
+  public void shouldSeekCompressedFile() throws IOException {
+    // Given:
+    writeRolledLog(TimeBasedRollingLogSettings.newBuilder().setCompressionType(CompressionType.GZIP)
+        .setIndexRecordInterval(10));
+    final File file = findFile(".log.gz");
+
+    // When:
+    final LogIndex index = LogIndex.read(file);
+
+    // Then:
+    assertNotNull(index);
+    assertEquals(9, index.size());
+    assertEquals(START_TIME + 9000L, index.getTime(0)); // time of the last preceding record
+    assertEquals("Index of the uncompressed file should be removed", 1, findFiles(".log.idx").length);
+    assertEquals(0, readPositions(file, Long.MIN_VALUE)[0]);
+    assertEquals(RECORD_COUNT, readPositions(file, Long.MIN_VALUE)[1]);
+    assertArrayEquals(new int[] { 50, 50 }, readPositions(file, START_TIME + 55000L));
+    assertArrayEquals(new int[] { 90, 10 }, readPositions(file, START_TIME + 200000L));
+  }
+
+  @Test
+  public void shouldSeekUncompressedFileByByteInterval() throws IOException {
+    // Given:
+    writeRolledLog(TimeBasedRollingLogSettings.newBuilder().setCompressionType(CompressionType.NONE)
+        .setIndexByteInterval(256L));
+    final File[] files = findFiles(".log");
+    Arrays.sort(files);
+    final File file = files[0]; // rolled file
+
+    // When:
+    final LogIndex index = LogIndex.read(file);
+
+    // Then: each entry points to the start of the record
+    assertNotNull(index);
+    assertTrue(index.size() > 1);
+    try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      for (int i = 0; i < index.size(); ++i) {
+        randomAccessFile.seek(index.getOffset(i) - 1);
+        assertEquals('\n', randomAccessFile.read());
+        assertEquals('{', randomAccessFile.read());
+      }
+    }
+
+    final int[] positions = readPositions(file, START_TIME + 55000L);
+    assertTrue(positions[0] > 0 && positions[0] <= 55);
+    assertEquals(RECORD_COUNT - positions[0], positions[1]);
+  }
+
+  //
+  // Private
+  //
+
+  private void writeRolledLog(TimeBasedRollingLogSettings.Builder settingsBuilder) throws IOException {
+    timeService.currentTime = START_TIME;
+    final JsonLogMetricsCreator creator = new JsonLogMetricsCreator(settingsBuilder
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setTimeService(timeService)
+        .setTimeDeltaMillis(3600000L)
+        .build());
+    for (int i = 0; i < RECORD_COUNT; ++i) {
+      try (final Metrics metrics = creator.create()) {
+        metrics.put("pos", i);
+      }
+      timeService.currentTime += 1000L;
+    }
+
+    // roll the log
+    timeService.currentTime = START_TIME + 7200000L;
+    try (final Metrics metrics = creator.create()) {
+      metrics.put("pos", RECORD_COUNT);
+    }
+    creator.close();
+  }
+
+  /**
+   * @return Position of the first record read and count of records read
+   */
+  private static int[] readPositions(File file, long writtenFromMillis) throws IOException {
+    int first = -1;
+    int count = 0;
+    try (final MetricsReader reader = JsonMetricsReaders.open(file, writtenFromMillis, RecordFramingMode.BRACES)) {
+      for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+        if (first < 0) {
+          first = ((Number) record.get("pos")).intValue();
+        }
+        ++count;
+      }
+    }
+    return new int[] { first, count };
+  }
+
+  private File findFile(String suffix) {
+    final File[] files = findFiles(suffix);
+    assertEquals(1, files.length);
+    return files[0];
+  }
+
+  private File[] findFiles(final String suffix) {
+    return temporaryFolder.getRoot().listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(suffix) && name.contains("_2014-");
+      }
+    });
+  }
+
+  private static final class TestTimeService implements TimeService {
+    volatile long currentTime;
+
+    @Override
+    public long now() {
+      return currentTime;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.MappedJsonMetricsReader;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MappedJsonMetricsReader}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class MappedJsonMetricsReaderTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+
+  @Before
+  public void init() throws IOException {
+    file = temporaryFolder.newFile("metrics.log");
+  }
+
+  @Test
+  public void shouldReadRecordsAcrossWindows() throws IOException {
+    // Given:
+    final int entriesCount = 100;
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(file)) {
+      for (int i = 0; i < entriesCount; ++i) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.ORIGIN, "test");
+          metrics.put("id", i);
+        }
+      }
+    }
+
+    // When/Then:
+    assertMetricsRead(entriesCount, MappedJsonMetricsReader.DEFAULT_WINDOW_SIZE);
+    assertMetricsRead(entriesCount, 100);
+    assertMetricsRead(entriesCount, 7); // records are larger than window
+    assertMetricsRead(entriesCount, 1);
+  }
+
+  @Test
+  public void shouldReadNestedObjects() throws IOException {
+    // Given:
+    final List<Object> parameters = Arrays.<Object>asList(1, "str", Arrays.asList(3));
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(file)) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put("parameters", parameters);
+        metrics.put("description", "{\"braces\": [}");
+      }
+    }
+
+    // When:
+    try (final MetricsReader reader = new MappedJsonMetricsReader(file, 16)) {
+      final Map<String, ?> metrics = reader.readNext();
+
+      // Then:
+      assertNotNull(metrics);
+      assertEquals(parameters, metrics.get("parameters"));
+      assertEquals("{\"braces\": [}", metrics.get("description"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadLastRecordWithoutNewline() throws IOException {
+    // Given:
+    writeFile("{\"id\":1}\n\n  \n{\"id\":2}");
+
+    // When:
+    try (final MetricsReader reader = new MappedJsonMetricsReader(file, MappedJsonMetricsReader.DEFAULT_WINDOW_SIZE,
+        true)) {
+      // Then:
+      assertEquals(1, reader.readNext().get("id"));
+      assertEquals(2, reader.readNext().get("id"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadRecordAppendedInTwoParts() throws IOException {
+    // Given:
+    writeFile("{\"id\":1}\n{\"id\":");
+
+    try (final MetricsReader reader = new MappedJsonMetricsReader(file)) {
+      assertEquals(1, reader.readNext().get("id"));
+      assertNull("Record being written should not be read", reader.readNext());
+
+      // When:
+      appendFile("2}\n");
+
+      // Then:
+      assertEquals(2, reader.readNext().get("id"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldContinueAfterMalformedRecord() throws IOException {
+    // Given:
+    writeFile("{\"id\":1}\n{\"id\":\n{\"id\":3}\n");
+
+    // When:
+    try (final MetricsReader reader = new MappedJsonMetricsReader(file)) {
+      assertEquals(1, reader.readNext().get("id"));
+      try {
+        reader.readNext();
+        fail("Malformed record should not be read");
+      } catch (IOException ignored) {
+        // expected
+      }
+
+      // Then:
+      assertEquals(3, reader.readNext().get("id"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadEmptyFile() throws IOException {
+    try (final MetricsReader reader = new MappedJsonMetricsReader(file)) {
+      assertNull(reader.readNext());
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void writeFile(String contents) throws IOException {
+    try (final OutputStream os = new FileOutputStream(file)) {
+      os.write(contents.getBytes("UTF-8"));
+    }
+  }
+
+  private void appendFile(String contents) throws IOException {
+    try (final OutputStream os = new FileOutputStream(file, true)) {
+      os.write(contents.getBytes("UTF-8"));
+    }
+  }
+
+  private void assertMetricsRead(int expectedCount, int windowSize) throws IOException {
+    try (final MetricsReader reader = new MappedJsonMetricsReader(file, windowSize)) {
+      for (int i = 0; i < expectedCount; ++i) {
+        final Map<String, ?> metrics = reader.readNext();
+        assertNotNull("Entry #" + i + " not found for windowSize=" + windowSize, metrics);
+        assertEquals(i, metrics.get("id"));
+        assertEquals("test", metrics.get(PredefinedMetricNames.ORIGIN));
+      }
+
+      assertNull("There should be no more metrics", reader.readNext());
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.ParallelJsonMetricsReader;
+import com.truward.metrics.reader.MetricsRecordHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ParallelJsonMetricsReader}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class ParallelJsonMetricsReaderTest {
+  private static final int ENTRIES_COUNT = 1000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+  private ForkJoinPool pool;
+
+  @Before
+  public void init() throws IOException {
+    file = temporaryFolder.newFile("metrics.log");
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void shouldReadRecordsInOrder() throws IOException {
+    // Given:
+    writeMetricsRecords();
+
+    // When:
+    try (final ParallelJsonMetricsReader reader = new ParallelJsonMetricsReader(file, pool, 100)) {
+      // Then:
+      for (int i = 0; i < ENTRIES_COUNT; ++i) {
+        final Map<String, ?> metrics = reader.readNext();
+        assertNotNull("Entry #" + i + " not found", metrics);
+        assertEquals(i, metrics.get("id"));
+      }
+      assertNull("There should be no more metrics", reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadAllRecordsInParallel() throws IOException {
+    // Given:
+    writeMetricsRecords();
+    final AtomicInteger count = new AtomicInteger();
+    final AtomicLong idSum = new AtomicLong();
+
+    // When:
+    try (final ParallelJsonMetricsReader reader = new ParallelJsonMetricsReader(file, pool, 100)) {
+      reader.forEach(new MetricsRecordHandler() {
+        @Override
+        public void handle(@Nonnull Map<String, ?> record) {
+          count.incrementAndGet();
+          idSum.addAndGet((Integer) record.get("id"));
+        }
+      });
+    }
+
+    // Then:
+    assertEquals(ENTRIES_COUNT, count.get());
+    assertEquals((long) ENTRIES_COUNT * (ENTRIES_COUNT - 1) / 2, idSum.get());
+  }
+
+  @Test
+  public void shouldReadFileWithSingleRange() throws IOException {
+    // Given:
+    writeFile("{\"id\":0}\n{\"id\":1}");
+
+    // When:
+    try (final ParallelJsonMetricsReader reader = new ParallelJsonMetricsReader(file)) {
+      // Then:
+      assertEquals(0, reader.readNext().get("id"));
+      assertEquals(1, reader.readNext().get("id"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadCompressedFileWithoutIndex() throws IOException {
+    // Given:
+    writeMetricsRecords();
+    final File compressedFile = temporaryFolder.newFile("metrics.log.gz");
+    try (final OutputStream os = new GZIPOutputStream(new FileOutputStream(compressedFile))) {
+      Files.copy(file.toPath(), os);
+    }
+    final AtomicInteger count = new AtomicInteger();
+
+    // When:
+    try (final ParallelJsonMetricsReader reader = new ParallelJsonMetricsReader(compressedFile, pool, 100)) {
+      // Then:
+      for (int i = 0; i < ENTRIES_COUNT; ++i) {
+        final Map<String, ?> metrics = reader.readNext();
+        assertNotNull("Entry #" + i + " not found", metrics);
+        assertEquals(i, metrics.get("id"));
+      }
+      assertNull("There should be no more metrics", reader.readNext());
+
+      reader.forEach(new MetricsRecordHandler() {
+        @Override
+        public void handle(@Nonnull Map<String, ?> record) {
+          count.incrementAndGet();
+        }
+      });
+    }
+    assertEquals(ENTRIES_COUNT, count.get());
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldFailOnMalformedRecord() throws IOException {
+    // Given:
+    writeFile("{\"id\":0}\n{\"id\":\n{\"id\":2}\n");
+
+    // When:
+    try (final ParallelJsonMetricsReader reader = new ParallelJsonMetricsReader(file, pool, 4)) {
+      reader.forEach(new MetricsRecordHandler() {
+        @Override
+        public void handle(@Nonnull Map<String, ?> record) {
+          // do nothing
+        }
+      });
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private void writeFile(String contents) throws IOException {
+    try (final OutputStream os = new FileOutputStream(file)) {
+      os.write(contents.getBytes("UTF-8"));
+    }
+  }
+
+  private void writeMetricsRecords() throws IOException {
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(file)) {
+      for (int i = 0; i < ENTRIES_COUNT; ++i) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.ORIGIN, "test");
+          metrics.put("id", i);
+        }
+      }
+    }
+  }
+}
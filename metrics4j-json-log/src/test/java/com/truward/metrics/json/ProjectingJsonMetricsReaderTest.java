@@ -0,0 +1,138 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.ProjectingJsonMetricsReader;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ProjectingJsonMetricsReader}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class ProjectingJsonMetricsReaderTest {
+  private ByteArrayOutputStream os;
+  private JsonLogMetricsCreator metricsCreator;
+
+  @Before
+  public void init() {
+    os = new ByteArrayOutputStream(1000);
+    metricsCreator = new JsonLogMetricsCreator(os);
+  }
+
+  @Test
+  public void shouldReadRequestedFieldsOnly() throws IOException {
+    // Given:
+    final Map<String, Object> request = new HashMap<>();
+    request.put("user", "alice");
+    request.put("parameters", Arrays.asList(1, 2, Collections.singletonMap("a", "b")));
+    final Map<String, Object> response = Collections.<String, Object>singletonMap("code", 200);
+
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "test");
+      metrics.put("request", request);
+      metrics.put("response", response);
+      metrics.put("tags", Arrays.asList("x", "y"));
+      metrics.put(PredefinedMetricNames.TIME_DELTA, 10L);
+    }
+    metricsCreator.close();
+
+    // When:
+    try (final MetricsReader reader = newMetricsReader(PredefinedMetricNames.ORIGIN, "request.user", "response",
+        "missing")) {
+      final Map<String, ?> metrics = reader.readNext();
+
+      // Then:
+      assertNotNull(metrics);
+      assertEquals(3, metrics.size());
+      assertEquals("test", metrics.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(Collections.singletonMap("user", "alice"), metrics.get("request"));
+      assertEquals(response, metrics.get("response"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReturnEmptyMapIfNoFieldsFound() throws IOException {
+    // Given:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "test");
+    }
+    metricsCreator.close();
+
+    // When:
+    try (final MetricsReader reader = newMetricsReader(PredefinedMetricNames.SUCCEEDED)) {
+      // Then:
+      assertEquals(Collections.emptyMap(), reader.readNext());
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadWholeValueIfRequestedByShorterPath() throws IOException {
+    // Given:
+    final Map<String, Object> request = new HashMap<>();
+    request.put("user", "alice");
+    request.put("id", 1);
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put("request", request);
+    }
+    metricsCreator.close();
+
+    // When:
+    try (final MetricsReader reader = newMetricsReader("request.user", "request")) {
+      // Then:
+      assertEquals(Collections.singletonMap("request", request), reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldStopAfterFieldsFound() throws IOException {
+    // Given:
+    os.write("{\"origin\":\"a\",\"timeDelta\":1, malformed}\n{\"origin\":\"b\"}".getBytes("UTF-8"));
+
+    // When:
+    try (final MetricsReader reader = new ProjectingJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()),
+        ProjectingJsonMetricsReader.DEFAULT_BUFFER_SIZE, ProjectingJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE,
+        RecordFramingMode.BRACES, Collections.singletonList(PredefinedMetricNames.ORIGIN), true)) {
+      // Then:
+      assertEquals(Collections.singletonMap(PredefinedMetricNames.ORIGIN, "a"), reader.readNext());
+      assertEquals(Collections.singletonMap(PredefinedMetricNames.ORIGIN, "b"), reader.readNext());
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldReadLastValueOfRepeatedField() throws IOException {
+    // Given:
+    os.write("{\"origin\":\"a\",\"origin\":\"b\",\"timeDelta\":1,\"origin\":\"c\"}".getBytes("UTF-8"));
+
+    // When:
+    try (final MetricsReader reader = newMetricsReader(PredefinedMetricNames.ORIGIN, PredefinedMetricNames.TIME_DELTA)) {
+      // Then:
+      final Map<String, ?> record = reader.readNext();
+      assertNotNull(record);
+      assertEquals("c", record.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(1, record.get(PredefinedMetricNames.TIME_DELTA));
+      assertNull(reader.readNext());
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private MetricsReader newMetricsReader(String... fieldPaths) {
+    return new ProjectingJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()), Arrays.asList(fieldPaths));
+  }
+}
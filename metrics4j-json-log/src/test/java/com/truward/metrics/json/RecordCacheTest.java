@@ -0,0 +1,118 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.internal.cache.SharedRecordCache;
+import com.truward.metrics.json.internal.cache.ThreadLocalRecordCache;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for pooled implementations of {@link com.truward.metrics.json.internal.cache.RecordCache}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class RecordCacheTest {
+
+  @Test
+  public void shouldReuseMapsInSharedCache() {
+    // Given:
+    final SharedRecordCache cache = new SharedRecordCache(2, 4);
+    final Map<String, Object> map = newMap(3);
+
+    // When:
+    assertNull(cache.fetch());
+    cache.take(map);
+    final Map<String, Object> fetched = cache.fetch();
+
+    // Then:
+    assertSame(map, fetched);
+    assertTrue("Fetched map should be empty", fetched.isEmpty());
+    assertEquals(1L, cache.getHitCount());
+    assertEquals(1L, cache.getMissCount());
+  }
+
+  @Test
+  public void shouldNotRetainLargeMaps() {
+    // Given:
+    final SharedRecordCache cache = new SharedRecordCache(2, 4);
+
+    // When:
+    cache.take(newMap(5));
+
+    // Then:
+    assertNull(cache.fetch());
+  }
+
+  @Test
+  public void shouldNotExceedCapacity() {
+    // Given:
+    final SharedRecordCache cache = new SharedRecordCache(2, 4);
+
+    // When:
+    for (int i = 0; i < 3; ++i) {
+      cache.take(newMap(1));
+    }
+
+    // Then:
+    assertEquals(2, cache.getPooledCount());
+  }
+
+  @Test
+  public void shouldPassExcessMapsToFallbackCache() {
+    // Given:
+    final SharedRecordCache shared = new SharedRecordCache(4, 4);
+    final ThreadLocalRecordCache cache = new ThreadLocalRecordCache(1, 4, shared);
+    final Map<String, Object> first = newMap(1);
+    final Map<String, Object> second = newMap(1);
+
+    // When:
+    cache.take(first);
+    cache.take(second);
+
+    // Then:
+    assertEquals(1, shared.getPooledCount());
+    assertSame(first, cache.fetch());
+    assertSame(second, cache.fetch());
+    assertNull(cache.fetch());
+    assertEquals(2L, cache.getHitCount());
+    assertEquals(1L, cache.getMissCount());
+  }
+
+  @Test
+  public void shouldReuseMapsInMetricsCreator() throws IOException {
+    // Given:
+    final SharedRecordCache cache = new SharedRecordCache();
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(new ByteArrayOutputStream(), cache);
+
+    // When:
+    for (int i = 0; i < 10; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "test");
+      }
+    }
+    metricsCreator.close();
+
+    // Then:
+    assertEquals(1L, cache.getMissCount());
+    assertEquals(9L, cache.getHitCount());
+  }
+
+  //
+  // Private
+  //
+
+  private static Map<String, Object> newMap(int size) {
+    final Map<String, Object> result = new HashMap<>();
+    for (int i = 0; i < size; ++i) {
+      result.put("key" + i, i);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,130 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.RolledLogFile;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.time.TimeService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests size-based rolling and retention policy of the rolling logs.
+ *
+ * @author Alexander Shabanov
+ */
+public final class SizeRollingTest {
+  private static final TimeService FIXED_TIME = new TimeService() {
+    @Override
+    public long now() {
+      return 1401616800000L;
+    }
+  };
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldRollByRecordCount() throws IOException {
+    // Given:
+    final TimeBasedRollingLogSettings settings = newSettingsBuilder()
+        .setMaxFileRecordCount(10)
+        .build();
+
+    // When:
+    write(settings, 35);
+
+    // Then:
+    final List<RolledLogFile> files = RolledLogFile.list(settings, TimeZone.getDefault());
+    assertEquals(4, files.size());
+    assertEquals(0, files.get(0).getIndex());
+    assertEquals(3, files.get(3).getIndex());
+    assertEquals(10, countLines(files.get(0).getFile()));
+    assertEquals(5, countLines(files.get(3).getFile()));
+  }
+
+  @Test
+  public void shouldRollBySize() throws IOException {
+    // Given:
+    final TimeBasedRollingLogSettings settings = newSettingsBuilder()
+        .setMaxFileSize(1000L)
+        .build();
+
+    // When:
+    write(settings, 200);
+
+    // Then:
+    final List<RolledLogFile> files = RolledLogFile.list(settings, TimeZone.getDefault());
+    assertTrue(files.size() > 5);
+    int lineCount = 0;
+    for (final RolledLogFile file : files) {
+      assertTrue(file.getFile().length() < 1100L);
+      lineCount += countLines(file.getFile());
+    }
+    assertEquals(200, lineCount);
+  }
+
+  @Test
+  public void shouldDeleteOldestFiles() throws IOException, InterruptedException {
+    // Given:
+    final TimeBasedRollingLogSettings settings = newSettingsBuilder()
+        .setMaxFileRecordCount(1)
+        .setMaxRetainedFileCount(2)
+        .build();
+
+    // When:
+    write(settings, 5);
+
+    // Then:
+    List<RolledLogFile> files = RolledLogFile.list(settings, TimeZone.getDefault());
+    for (int i = 0; i < 50 && files.size() > 2; ++i) {
+      Thread.sleep(100L);
+      files = RolledLogFile.list(settings, TimeZone.getDefault());
+    }
+    assertEquals(2, files.size());
+    assertEquals(3, files.get(0).getIndex());
+    assertEquals(4, files.get(1).getIndex());
+  }
+
+  //
+  // Private
+  //
+
+  private TimeBasedRollingLogSettings.Builder newSettingsBuilder() {
+    return TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setCompressionType(CompressionType.NONE)
+        .setTimeService(FIXED_TIME);
+  }
+
+  private static void write(TimeBasedRollingLogSettings settings, int count) throws IOException {
+    final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(settings);
+    for (int i = 0; i < count; ++i) {
+      try (final Metrics metrics = metricsCreator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "UserService.loginUser");
+        metrics.put("id", i);
+      }
+    }
+    metricsCreator.close();
+  }
+
+  private static int countLines(File file) throws IOException {
+    int result = 0;
+    for (final byte b : Files.readAllBytes(file.toPath())) {
+      if (b == '\n') {
+        ++result;
+      }
+    }
+    return result;
+  }
+}
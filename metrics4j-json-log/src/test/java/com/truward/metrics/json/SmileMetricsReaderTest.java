@@ -0,0 +1,208 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.internal.cache.EmptyRecordCache;
+import com.truward.metrics.json.reader.JsonMetricsReaders;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.json.reader.SmileMetricsReader;
+import com.truward.metrics.json.reader.SmileToJsonConverter;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.RecordFormat;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.reader.MetricsReader;
+import com.truward.metrics.time.TimeService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SmileMetricsReader} and {@link RecordFormat#SMILE} format.
+ *
+ * @author Alexander Shabanov
+ */
+public final class SmileMetricsReaderTest {
+  private static final int ENTRIES_COUNT = 100;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldWriteAndReadRecords() throws IOException {
+    // Given:
+    final byte[] smile = writeRecords(RecordFormat.SMILE);
+
+    // When:
+    final List<Map<String, ?>> records = readAll(new SmileMetricsReader(new ByteArrayInputStream(smile)));
+
+    // Then:
+    assertEquals(ENTRIES_COUNT, records.size());
+    for (int i = 0; i < ENTRIES_COUNT; ++i) {
+      final Map<String, ?> record = records.get(i);
+      assertEquals("smileTest", record.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(i, record.get("id"));
+      assertEquals(1401616800000L + i, record.get(PredefinedMetricNames.START_TIME));
+      assertEquals(0.5 * i, record.get("ratio"));
+      assertEquals(i % 2 == 0, record.get("succeeded"));
+      assertEquals(Arrays.asList(1, 2, 3), record.get("list"));
+    }
+    assertTrue("Smile log should be smaller than JSON one", smile.length < writeRecords(RecordFormat.JSON).length);
+  }
+
+  @Test
+  public void shouldReadRecordsWithManyDistinctNamesAndValues() throws IOException {
+    // Given: more than 256 distinct names and short values, which don't fit into single byte back-references
+    final int count = 600;
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(os, EmptyRecordCache.getInstance(),
+        RecordFormat.SMILE)) {
+      for (int i = 0; i < count; ++i) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.ORIGIN, "origin" + (i % 300));
+          metrics.put("key" + (i % 300), i);
+        }
+      }
+    }
+
+    // When:
+    final List<Map<String, ?>> records = readAll(new SmileMetricsReader(new ByteArrayInputStream(os.toByteArray())));
+
+    // Then:
+    assertEquals(count, records.size());
+    for (int i = 0; i < count; ++i) {
+      assertEquals("origin" + (i % 300), records.get(i).get(PredefinedMetricNames.ORIGIN));
+      assertEquals(i, records.get(i).get("key" + (i % 300)));
+    }
+  }
+
+  @Test
+  public void shouldConvertToJson() throws IOException {
+    // Given:
+    final byte[] smile = writeRecords(RecordFormat.SMILE);
+    final ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+    // When:
+    final long count = SmileToJsonConverter.convert(new ByteArrayInputStream(smile), json);
+
+    // Then:
+    assertEquals(ENTRIES_COUNT, count);
+    assertEquals(readAll(new SmileMetricsReader(new ByteArrayInputStream(smile))),
+        readAll(new StandardJsonMetricsReader(new ByteArrayInputStream(json.toByteArray()),
+            StandardJsonMetricsReader.DEFAULT_BUFFER_SIZE, StandardJsonMetricsReader.DEFAULT_MAX_BUFFER_SIZE,
+            RecordFramingMode.NEWLINE)));
+  }
+
+  @Test
+  public void shouldIgnoreIncompleteLastRecord() throws IOException {
+    // Given:
+    final byte[] smile = writeRecords(RecordFormat.SMILE);
+    final byte[] truncated = Arrays.copyOf(smile, smile.length - 3);
+
+    // When:
+    final List<Map<String, ?>> records = readAll(new SmileMetricsReader(new ByteArrayInputStream(truncated), true));
+
+    // Then:
+    assertEquals(ENTRIES_COUNT - 1, records.size());
+    try {
+      readAll(new SmileMetricsReader(new ByteArrayInputStream(truncated)));
+      fail("Incomplete record should not be ignored by default");
+    } catch (IOException ignored) {
+      // expected
+    }
+  }
+
+  @Test
+  public void shouldSeekSegmentsOfCompressedRollingLog() throws IOException {
+    // Given: segment per 10 records
+    final long startTime = 1401616800000L;
+    final long[] currentTime = { startTime };
+    final JsonLogMetricsCreator creator = new JsonLogMetricsCreator(TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setRecordFormat(RecordFormat.SMILE)
+        .setCompressionType(CompressionType.GZIP)
+        .setIndexRecordInterval(10)
+        .setTimeService(new TimeService() {
+          @Override
+          public long now() {
+            return currentTime[0];
+          }
+        })
+        .build());
+    for (int i = 0; i <= ENTRIES_COUNT; ++i) {
+      currentTime[0] = i < ENTRIES_COUNT ? startTime + i * 1000L : startTime + 7200000L; // roll at the last one
+      try (final Metrics metrics = creator.create()) {
+        metrics.put(PredefinedMetricNames.ORIGIN, "smileTest");
+        metrics.put("id", i);
+      }
+    }
+    creator.close();
+    final File[] files = temporaryFolder.getRoot().listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(".log.gz");
+      }
+    });
+    assertEquals(1, files.length);
+
+    // When:
+    final List<Map<String, ?>> all = readAll(JsonMetricsReaders.open(files[0]));
+    final List<Map<String, ?>> tail = readAll(JsonMetricsReaders.open(files[0], startTime + 55000L,
+        RecordFramingMode.BRACES));
+
+    // Then:
+    assertEquals(ENTRIES_COUNT, all.size());
+    assertEquals(50, tail.size());
+    assertEquals(50, tail.get(0).get("id"));
+    assertEquals("smileTest", tail.get(0).get(PredefinedMetricNames.ORIGIN));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectStreamingMetrics() {
+    new StreamingJsonLogMetricsCreator(TimeBasedRollingLogSettings.newBuilder()
+        .setRecordFormat(RecordFormat.SMILE)
+        .build());
+  }
+
+  //
+  // Private
+  //
+
+  private static byte[] writeRecords(RecordFormat recordFormat) throws IOException {
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(os, EmptyRecordCache.getInstance(),
+        recordFormat)) {
+      for (int i = 0; i < ENTRIES_COUNT; ++i) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.ORIGIN, "smileTest");
+          metrics.put("id", i);
+          metrics.put(PredefinedMetricNames.START_TIME, 1401616800000L + i);
+          metrics.put("ratio", 0.5 * i);
+          metrics.put("succeeded", i % 2 == 0);
+          metrics.put("list", Arrays.asList(1, 2, 3));
+        }
+      }
+    }
+    return os.toByteArray();
+  }
+
+  private static List<Map<String, ?>> readAll(MetricsReader reader) throws IOException {
+    final List<Map<String, ?>> result = new ArrayList<>();
+    try {
+      for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+        result.add(record);
+      }
+    } finally {
+      reader.close();
+    }
+    return result;
+  }
+}
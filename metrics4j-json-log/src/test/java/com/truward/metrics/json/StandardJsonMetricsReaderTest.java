@@ -3,6 +3,7 @@ package com.truward.metrics.json;
 import com.truward.metrics.Metrics;
 import com.truward.metrics.PredefinedMetricNames;
 import com.truward.metrics.reader.MetricsReader;
+import com.truward.metrics.json.reader.RecordFramingMode;
 import com.truward.metrics.json.reader.StandardJsonMetricsReader;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +16,7 @@ import java.util.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for {@link com.truward.metrics.json.reader.AbstractJsonMetricsReader}.
@@ -76,6 +78,64 @@ public final class StandardJsonMetricsReaderTest {
     }
   }
 
+  @Test
+  public void shouldReadNewlineFramedMetrics() throws IOException {
+    // Given:
+    final int entriesCount = 100;
+    for (int i = 0; i < entriesCount; ++i) {
+      writeMetricsRecord(i);
+    }
+
+    // When:
+    metricsCreator.close();
+
+    // Then:
+    assertNewlineFramedMetricsRead(entriesCount, 100, 100);
+    assertNewlineFramedMetricsRead(entriesCount, 10, 100);
+    assertNewlineFramedMetricsRead(entriesCount, 11, 107);
+    assertNewlineFramedMetricsRead(entriesCount, 9, 101);
+    assertNewlineFramedMetricsRead(entriesCount, 1, 100);
+  }
+
+  @Test
+  public void shouldReadBracesInStringValues() throws IOException {
+    // Given:
+    final String description = "unbalanced { brace";
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put("description", description);
+    }
+    writeMetricsRecord(1);
+
+    // When:
+    try (final MetricsReader reader = newMetricsReader(8, 100, RecordFramingMode.NEWLINE)) {
+      // Then:
+      assertEquals(description, reader.readNext().get("description"));
+      assertEquals(1, reader.readNext().get("id"));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldSkipMalformedAndLargeRecords() throws IOException {
+    // Given:
+    final StringBuilder largeValue = new StringBuilder();
+    for (int i = 0; i < 300; ++i) {
+      largeValue.append('a');
+    }
+    os.write(("{\"id\":0}\n{\"id\":\n{\"id\":2}\n{\"id\":\"" + largeValue + "\"}\n\n{\"id\":4}").getBytes("UTF-8"));
+
+    // When:
+    try (final MetricsReader reader = newMetricsReader(16, 128, RecordFramingMode.NEWLINE)) {
+      // Then:
+      assertEquals(0, reader.readNext().get("id"));
+      assertReadFails(reader);
+      assertEquals(2, reader.readNext().get("id"));
+      assertReadFails(reader);
+      assertEquals(4, reader.readNext().get("id"));
+      assertNull(reader.readNext());
+    }
+  }
+
   //
   // Private
   //
@@ -84,6 +144,34 @@ public final class StandardJsonMetricsReaderTest {
     return new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()), initialBufferSize, maxBufferSize);
   }
 
+  private MetricsReader newMetricsReader(int initialBufferSize, int maxBufferSize, RecordFramingMode framingMode) {
+    return new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()), initialBufferSize, maxBufferSize,
+        framingMode);
+  }
+
+  private static void assertReadFails(MetricsReader reader) {
+    try {
+      reader.readNext();
+      fail("Record should not be read");
+    } catch (IOException ignored) {
+      // expected
+    }
+  }
+
+  private void assertNewlineFramedMetricsRead(int expectedCount, int initialBufferSize, int maxBufferSize)
+      throws IOException {
+    try (final MetricsReader reader = newMetricsReader(initialBufferSize, maxBufferSize, RecordFramingMode.NEWLINE)) {
+      for (int i = 0; i < expectedCount; ++i) {
+        final Map<String, ?> metrics = reader.readNext();
+        assertNotNull("Entry #" + i + " not found for initialBufferSize=" + initialBufferSize +
+            ", maxBufferSize=" + maxBufferSize, metrics);
+        assertEquals(i, metrics.get("id"));
+      }
+
+      assertNull("There should be no more metrics", reader.readNext());
+    }
+  }
+
   private void writeMetricsRecord(int id) {
     try (final Metrics metrics = metricsCreator.create()) {
       metrics.put(PredefinedMetricNames.ORIGIN, "test");
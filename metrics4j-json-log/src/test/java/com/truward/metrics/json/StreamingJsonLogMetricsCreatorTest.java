@@ -0,0 +1,172 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.json.settings.AsyncAppenderSettings;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link com.truward.metrics.json.StreamingJsonLogMetricsCreator}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class StreamingJsonLogMetricsCreatorTest {
+  private ByteArrayOutputStream os;
+  private JsonLogMetricsCreator metricsCreator;
+
+  @Before
+  public void init() {
+    os = new ByteArrayOutputStream(1000);
+    metricsCreator = new StreamingJsonLogMetricsCreator(os);
+  }
+
+  @Test
+  public void shouldDumpAllValueTypes() throws IOException {
+    // Given:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "test");
+      metrics.put(PredefinedMetricNames.START_TIME, 1000L);
+      metrics.put(PredefinedMetricNames.SUCCEEDED, true);
+      metrics.put("int", 1);
+      metrics.put("char", 'c');
+      metrics.put("float", 1.5f);
+      metrics.put("double", 2.5);
+      metrics.put("list", Arrays.asList(1, 2));
+      metrics.put("map", singletonMap("a", "b"));
+    }
+
+    // When:
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = newMetricsReader()) {
+      final Map<String, ?> map = reader.readNext();
+      assertNotNull("should read metrics entry", map);
+      assertEquals(9, map.size());
+      assertEquals("test", map.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(1000, map.get(PredefinedMetricNames.START_TIME));
+      assertEquals(true, map.get(PredefinedMetricNames.SUCCEEDED));
+      assertEquals(1, map.get("int"));
+      assertEquals("c", map.get("char"));
+      assertEquals(1.5, map.get("float"));
+      assertEquals(2.5, map.get("double"));
+      assertEquals(Arrays.asList(1, 2), map.get("list"));
+      assertEquals(singletonMap("a", "b"), map.get("map"));
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldWriteNestedMetrics() throws IOException {
+    // Given:
+    try (final Metrics outer = metricsCreator.create()) {
+      outer.put(PredefinedMetricNames.ORIGIN, "outer");
+      try (final Metrics inner = metricsCreator.create()) {
+        inner.put(PredefinedMetricNames.ORIGIN, "inner");
+      }
+      outer.put("id", 1);
+    }
+
+    // When:
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = newMetricsReader()) {
+      assertEquals(singletonMap(PredefinedMetricNames.ORIGIN, "inner"), reader.readNext());
+      final Map<String, ?> outer = reader.readNext();
+      assertNotNull(outer);
+      assertEquals("outer", outer.get(PredefinedMetricNames.ORIGIN));
+      assertEquals(1, outer.get("id"));
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldKeepLastDuplicateEntry() throws IOException {
+    // Given:
+    try (final Metrics metrics = metricsCreator.create()) {
+      metrics.put(PredefinedMetricNames.ORIGIN, "old");
+      metrics.put(PredefinedMetricNames.ORIGIN, "new");
+    }
+
+    // When:
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = newMetricsReader()) {
+      assertEquals(singletonMap(PredefinedMetricNames.ORIGIN, "new"), reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldDiscardRecordWithUnsupportedValue() throws IOException {
+    // Given:
+    final Metrics metrics = metricsCreator.create();
+    metrics.put("val", "a");
+    try {
+      metrics.put("unsupported", Collections.singleton(new Object()));
+      fail("Exception expected");
+    } catch (UnsupportedOperationException ignored) {
+      // expected
+    }
+    metrics.put("val", "b"); // ignored
+    metrics.close();
+
+    // When:
+    try (final Metrics next = metricsCreator.create()) {
+      next.put("val", "c");
+    }
+    metricsCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = newMetricsReader()) {
+      assertEquals(singletonMap("val", "c"), reader.readNext());
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+
+  @Test
+  public void shouldDumpRecordsAsynchronously() throws IOException {
+    // Given:
+    final JsonLogMetricsCreator asyncCreator = new StreamingJsonLogMetricsCreator(os,
+        AsyncAppenderSettings.newBuilder().setBufferSize(4).build());
+    final int entriesCount = 100;
+
+    // When:
+    for (int i = 0; i < entriesCount; ++i) {
+      try (final Metrics metrics = asyncCreator.create()) {
+        metrics.put("id", i);
+      }
+    }
+    asyncCreator.close();
+
+    // Then:
+    try (final MetricsReader reader = newMetricsReader()) {
+      for (int i = 0; i < entriesCount; ++i) {
+        assertEquals(singletonMap("id", i), reader.readNext());
+      }
+      assertNull("there should be no more metrics entries", reader.readNext());
+    }
+  }
+
+  //
+  // Private
+  //
+
+  private MetricsReader newMetricsReader() {
+    return new StandardJsonMetricsReader(new ByteArrayInputStream(os.toByteArray()));
+  }
+}
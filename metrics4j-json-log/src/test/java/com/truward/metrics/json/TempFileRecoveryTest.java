@@ -0,0 +1,102 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.StandardJsonMetricsReader;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests recovery of the rolled logs, which compression has been interrupted.
+ *
+ * @author Alexander Shabanov
+ */
+public final class TempFileRecoveryTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldRecoverTempFile() throws IOException {
+    // Given: log file, which compression has been interrupted
+    final File logFile = newLogFile();
+    final File tempFile = newTempFile(logFile.getPath() + ".gz.temp");
+
+    // When:
+    openAndClose();
+
+    // Then:
+    assertFalse("temp file should be removed", tempFile.exists());
+    assertCompressed(logFile);
+  }
+
+  @Test
+  public void shouldRecoverIndexedTempFile() throws IOException {
+    // Given: temp file with the index suffix, written when the temp file of the previous attempt existed
+    final File logFile = newLogFile();
+    final File tempFile = newTempFile(logFile.getPath() + "_1.gz.temp");
+
+    // When:
+    openAndClose();
+
+    // Then:
+    assertFalse("temp file should be removed", tempFile.exists());
+    assertCompressed(logFile);
+  }
+
+  //
+  // Private
+  //
+
+  private String getFileNameBase() {
+    return new File(temporaryFolder.getRoot(), "metrics").getPath();
+  }
+
+  private File newLogFile() throws IOException {
+    final File result = new File(getFileNameBase() + "_2014-01-01_10_00_00.log");
+    try (final FileOutputStream os = new FileOutputStream(result)) {
+      os.write("{\"origin\":\"recovered\"}\n".getBytes(StandardCharsets.UTF_8));
+    }
+    return result;
+  }
+
+  private static File newTempFile(String path) throws IOException {
+    final File result = new File(path);
+    try (final FileOutputStream os = new FileOutputStream(result)) {
+      os.write(1);
+    }
+    return result;
+  }
+
+  private void openAndClose() throws IOException {
+    final JsonLogMetricsCreator creator = new JsonLogMetricsCreator(TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(getFileNameBase())
+        .setCompressionType(CompressionType.GZIP)
+        .build());
+    creator.close(); // waits for pending compression
+  }
+
+  private static void assertCompressed(File logFile) throws IOException {
+    assertFalse("log file should be compressed", logFile.exists());
+    try (final MetricsReader reader = new StandardJsonMetricsReader(new GZIPInputStream(
+        new FileInputStream(logFile.getPath() + ".gz")))) {
+      final Map<String, ?> metrics = reader.readNext();
+      assertNotNull(metrics);
+      assertEquals("recovered", metrics.get(PredefinedMetricNames.ORIGIN));
+      assertNull(reader.readNext());
+    }
+  }
+}
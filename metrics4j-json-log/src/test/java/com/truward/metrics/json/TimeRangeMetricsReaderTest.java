@@ -0,0 +1,144 @@
+package com.truward.metrics.json;
+
+import com.truward.metrics.Metrics;
+import com.truward.metrics.PredefinedMetricNames;
+import com.truward.metrics.json.reader.RecordFramingMode;
+import com.truward.metrics.json.reader.RolledLogFile;
+import com.truward.metrics.json.reader.TimeRangeMetricsReader;
+import com.truward.metrics.json.settings.CompressionType;
+import com.truward.metrics.json.settings.TimeBasedRollingLogSettings;
+import com.truward.metrics.reader.MetricsReader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TimeRangeMetricsReader} and {@link RolledLogFile}.
+ *
+ * @author Alexander Shabanov
+ */
+public final class TimeRangeMetricsReaderTest {
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+  private static final long T10_00 = 1401616800000L; // 2014-06-01 10:00:00 UTC
+  private static final long MINUTE = 60000L;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private TimeBasedRollingLogSettings settings;
+
+  @Before
+  public void init() {
+    settings = TimeBasedRollingLogSettings.newBuilder()
+        .setFileNameBase(new File(temporaryFolder.getRoot(), "metrics").getPath())
+        .setCompressionType(CompressionType.NONE)
+        .build();
+  }
+
+  @Test
+  public void shouldParseFileNames() {
+    final File dir = temporaryFolder.getRoot();
+    final RolledLogFile file = RolledLogFile.parse(new File(dir, "metrics_2014-06-01_10_00_00_2.log.gz"), "metrics",
+        ".log", UTC);
+    assertNotNull(file);
+    assertEquals(T10_00, file.getStartTime());
+    assertEquals(2, file.getIndex());
+    assertEquals(CompressionType.GZIP, file.getCompressionType());
+
+    assertNotNull(RolledLogFile.parse(new File(dir, "metrics_2014-06-01_10_00_00.log_1.zip"), "metrics", ".log", UTC));
+    assertNull(RolledLogFile.parse(new File(dir, "metrics_2014-06-01_10_00_00.log.gz.temp"), "metrics", ".log", UTC));
+    assertNull(RolledLogFile.parse(new File(dir, "metrics_2014-06-01_10_00.log"), "metrics", ".log", UTC));
+    assertNull(RolledLogFile.parse(new File(dir, "other_2014-06-01_10_00_00.log"), "metrics", ".log", UTC));
+  }
+
+  @Test
+  public void shouldReadRecordsInTimeRange() throws IOException {
+    // Given: file per 10 minutes, record per minute, records are written 30 seconds after their start time
+    final List<Long> expected = new ArrayList<>();
+    for (int file = 0; file < 6; ++file) {
+      final List<Long> startTimes = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) {
+        final long startTime = T10_00 + (file * 10 + i) * MINUTE - MINUTE / 2;
+        startTimes.add(startTime);
+        if (startTime >= T10_00 + 25 * MINUTE && startTime < T10_00 + 30 * MINUTE) {
+          expected.add(startTime);
+        }
+      }
+      writeFile(T10_00 + file * 10 * MINUTE, startTimes, file % 2 == 0);
+    }
+
+    // When:
+    final List<Long> result = new ArrayList<>();
+    try (final TimeRangeMetricsReader reader = new TimeRangeMetricsReader(settings, T10_00 + 25 * MINUTE,
+        T10_00 + 30 * MINUTE, MINUTE, UTC, RecordFramingMode.BRACES)) {
+      // Then: file 10:30 is read for the record, that has been started before 10:30 but written after
+      assertEquals(2, reader.getFiles().size());
+      assertEquals(T10_00 + 20 * MINUTE, reader.getFiles().get(0).getStartTime());
+      assertEquals(T10_00 + 30 * MINUTE, reader.getFiles().get(1).getStartTime());
+
+      for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+        result.add(((Number) record.get(PredefinedMetricNames.START_TIME)).longValue());
+      }
+    }
+
+    assertEquals(5, expected.size());
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void shouldSkipIncompleteRecordAndPreferCompressedFile() throws IOException {
+    // Given:
+    writeFile(T10_00, Arrays.asList(T10_00, T10_00 + 1), true);
+    writeFile(T10_00, Arrays.asList(T10_00, T10_00 + 1), false); // same log, which is being compressed
+    final File inProgress = writeFile(T10_00 + MINUTE, Arrays.asList(T10_00 + MINUTE), false);
+    try (final OutputStream os = new FileOutputStream(inProgress, true)) {
+      os.write("{\"startTime\":".getBytes("UTF-8"));
+    }
+
+    // When:
+    int count = 0;
+    try (final MetricsReader reader = new TimeRangeMetricsReader(settings, T10_00, T10_00 + 2 * MINUTE, 0L, UTC,
+        RecordFramingMode.NEWLINE)) {
+      for (Map<String, ?> record = reader.readNext(); record != null; record = reader.readNext()) {
+        ++count;
+      }
+    }
+
+    // Then:
+    assertEquals(3, count);
+  }
+
+  //
+  // Private
+  //
+
+  private File writeFile(long fileTime, List<Long> startTimes, boolean compressed) throws IOException {
+    final SimpleDateFormat dateFormat = new SimpleDateFormat(TimeBasedRollingLogSettings.FILE_NAME_DATE_TIME_PATTERN);
+    dateFormat.setTimeZone(UTC);
+    final File file = new File(settings.getFileNameBase() + '_' + dateFormat.format(fileTime) +
+        settings.getSuffix() + (compressed ? ".gz" : ""));
+
+    final OutputStream fileStream = new FileOutputStream(file);
+    try (final JsonLogMetricsCreator metricsCreator = new JsonLogMetricsCreator(compressed ?
+        new GZIPOutputStream(fileStream) : fileStream)) {
+      for (final Long startTime : startTimes) {
+        try (final Metrics metrics = metricsCreator.create()) {
+          metrics.put(PredefinedMetricNames.START_TIME, startTime);
+        }
+      }
+    }
+    return file;
+  }
+}
@@ -72,6 +72,9 @@ public class RollingLogCreatorIntegrationTest {
       testTimeService.sleep(250L); // there should be 4 entries in each compressed file
     }
 
+    // wait for pending compression to complete
+    creator.close();
+
     // make sure that 4 zip files has been created
     final File[] zipFiles = dir.listFiles(new FilenameFilter() {
       @Override
@@ -80,8 +83,6 @@ public class RollingLogCreatorIntegrationTest {
       }
     });
     assertEquals(4, zipFiles.length);
-
-    creator.close();
   }
 
   @Test
@@ -107,6 +108,9 @@ public class RollingLogCreatorIntegrationTest {
       testTimeService.sleep(50L); // there should be 40 entries in each compressed file
     }
 
+    // wait for pending compression to complete
+    creator.close();
+
     // make sure that 4 zip files has been created
     final File[] zipFiles = dir.listFiles(new FilenameFilter() {
       @Override
@@ -115,8 +119,6 @@ public class RollingLogCreatorIntegrationTest {
       }
     });
     assertEquals(2, zipFiles.length);
-
-    creator.close();
   }
 
   //